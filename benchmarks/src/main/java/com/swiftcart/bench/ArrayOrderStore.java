@@ -0,0 +1,63 @@
+package com.swiftcart.bench;
+
+import java.util.Arrays;
+
+/**
+ * ArrayOrderStore is the struct-of-arrays OrderStore.
+ * Every field is a primitive array indexed by handle (the stage timestamps are one array with
+ * STAGES slots per handle), so an order costs 13 + 8 * STAGES bytes of heap and no
+ * object header, and the arrays are allocated once for the store's lifetime.
+ */
+public class ArrayOrderStore extends OrderStore {
+    private final int[] ids;
+    private final byte[] zones;
+    private final long[] enqueuedAt;
+    private final long[] enteredAt;
+
+    public ArrayOrderStore(int capacity) {
+        super(capacity);
+        this.ids = new int[capacity];
+        this.zones = new byte[capacity];
+        this.enqueuedAt = new long[capacity];
+        this.enteredAt = new long[Math.multiplyExact(capacity, STAGES)];
+    }
+
+    @Override
+    protected void init(int handle, int id, byte zoneCode) {
+        ids[handle] = id;
+        zones[handle] = zoneCode;
+        enqueuedAt[handle] = 0;
+        int base = handle * STAGES;
+        Arrays.fill(enteredAt, base, base + STAGES, 0);
+    }
+
+    @Override
+    public int getId(int handle) {
+        return ids[handle];
+    }
+
+    @Override
+    protected byte getZoneCode(int handle) {
+        return zones[handle];
+    }
+
+    @Override
+    protected void setEnteredAt(int handle, int stage, long nanos) {
+        enteredAt[handle * STAGES + stage] = nanos;
+    }
+
+    @Override
+    protected long getEnteredAt(int handle, int stage) {
+        return enteredAt[handle * STAGES + stage];
+    }
+
+    @Override
+    public void markEnqueued(int handle, long nanos) {
+        enqueuedAt[handle] = nanos;
+    }
+
+    @Override
+    public long getEnqueuedAt(int handle) {
+        return enqueuedAt[handle];
+    }
+}
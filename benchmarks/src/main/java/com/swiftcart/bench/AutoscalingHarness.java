@@ -0,0 +1,64 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.EventLog;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.QueueSnapshot;
+import com.swiftcart.Simulation;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationConfig;
+import com.swiftcart.SimulationResult;
+import com.swiftcart.Warehouse;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Fixed workers against the WorkerAutoscaler on a pipeline with two slow stages.
+ * Orders arrive every 300 ms while packing takes 400 ms and labelling 800 ms an order, so one packer
+ * and one labeller fall further behind with every order, eight of each keep up with most of them idle,
+ * and the autoscaler should settle near two packers and three labellers. For each setup it prints
+ * boxes per simulated minute, the deepest the packing and labelling input queues got, and the most
+ * packers and labellers that ran at once.
+ * JMH measures wall time, not simulated time, so this is a plain main:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.AutoscalingHarness [orders]
+ */
+public class AutoscalingHarness {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        System.out.printf("%-12s %10s %12s %12s %8s %10s%n", "workers", "boxes/min", "max picked", "max packed", "packers", "labellers");
+        run("fixed 1", orders, false, 1);
+        run("fixed 8", orders, false, 8);
+        run("autoscaled", orders, true, 1);
+    }
+
+    private static void run(String name, int orders, boolean autoscale, int workers) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.source.orders", String.valueOf(orders));
+        properties.setProperty("swiftcart.source.arrivals", "fixed:300");
+        properties.setProperty("swiftcart.service.packing", "400");
+        properties.setProperty("swiftcart.service.labelling", "800");
+        properties.setProperty("swiftcart.workers.packing", String.valueOf(workers));
+        properties.setProperty("swiftcart.workers.labelling", String.valueOf(workers));
+        properties.setProperty("swiftcart.autoscale", String.valueOf(autoscale));
+        properties.setProperty("swiftcart.seed", "42");
+        SimulationClock clock = SimulationClock.forMode("discrete");
+        SimulationResult result = new Simulation(SimulationConfig.fromProperties(properties), clock, OrderJournal.disabled(), EventLog.disabled())
+            .run(null, false);
+
+        Warehouse warehouse = result.getWarehouses().get(0);
+        double minutes = result.getDurationMillis() / 60_000.0;
+        System.out.printf("%-12s %10.1f %12d %12d %8d %10d%n", name, result.getMetrics().getBoxesPacked() / minutes,
+            maxDepth(warehouse, "picking"), maxDepth(warehouse, "packing"),
+            warehouse.getStationPools().get(1).getPeakWorkers(), warehouse.getStationPools().get(2).getPeakWorkers());
+    }
+
+    private static long maxDepth(Warehouse warehouse, String queue) {
+        for (QueueSnapshot snapshot : warehouse.getMetrics().getQueues()) {
+            if (snapshot.getQueue().equals(queue)) {
+                return snapshot.getMaxDepth();
+            }
+        }
+        return 0;
+    }
+}
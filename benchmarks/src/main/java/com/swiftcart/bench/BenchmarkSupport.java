@@ -0,0 +1,56 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.Order;
+import com.swiftcart.RealTimeClock;
+import com.swiftcart.Zone;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Helpers shared by the benchmarks.
+ * The stations print a line for every order, which would swamp the handoff cost we want
+ * to measure, so the benchmarks silence stdout for the duration of a trial.
+ */
+final class BenchmarkSupport {
+    static final Zone[] ZONES = Zone.values();
+
+    private BenchmarkSupport() {
+    }
+
+    static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+
+    static void restoreStdout(PrintStream original) {
+        System.setOut(original);
+    }
+
+    // Orders cycle through the zones so every zone fills its batches at the same rate.
+    static Order[] orders(int count) {
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            orders[i] = new Order(i + 1, ZONES[i % ZONES.length]);
+        }
+        return orders;
+    }
+
+    static void join(Thread thread) throws InterruptedException {
+        thread.join(10_000);
+        if (thread.isAlive()) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Real time with the simulated sleeps (order gaps, loader breakdowns) removed.
+     */
+    static final class NoSleepClock extends RealTimeClock {
+        @Override
+        public void sleep(long millis) {
+            // Benchmarks measure processing cost, not simulated delays.
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.Container;
+import com.swiftcart.ContainerBuilder;
+import com.swiftcart.IdSequence;
+import com.swiftcart.ListContainerBuilder;
+import com.swiftcart.Order;
+import com.swiftcart.OrderBufferPool;
+import com.swiftcart.PooledContainerBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocation per order of the sorting area's batching, without queues or threads in the way.
+ * Each invocation feeds 300 orders (10 containers) to one ContainerBuilder and recycles every
+ * container straight away, the way a departing truck does.
+ * Run with -prof gc and compare gc.alloc.rate.norm: the list builder allocates batch and
+ * container lists per box, the pooled builder only the Container objects (about 1 byte per order).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContainerBuilderBenchmark {
+    static final int ORDERS_PER_INVOCATION = 300;
+
+    @Param({"list", "pooled"})
+    public String builder;
+
+    private ContainerBuilder containerBuilder;
+    private Order[] orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orders = BenchmarkSupport.orders(ORDERS_PER_INVOCATION);
+        containerBuilder = "pooled".equals(builder)
+            ? new PooledContainerBuilder(new OrderBufferPool(30, 4, 16), new IdSequence(), 6, 5)
+            : new ListContainerBuilder(new IdSequence(), 6, 5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public int batchPerOrder() {
+        int boxes = 0;
+        for (Order order : orders) {
+            if (containerBuilder.add(order)) {
+                Container container = containerBuilder.pollContainer();
+                if (container != null) {
+                    boxes += container.getOrders().size();
+                    container.recycle();
+                }
+            }
+        }
+        return boxes;
+    }
+}
@@ -0,0 +1,98 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.DeadlineQueue;
+import com.swiftcart.Order;
+import com.swiftcart.OrderPriority;
+import com.swiftcart.RealTimeClock;
+import com.swiftcart.Zone;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Eight threads putting and taking orders with mixed deadlines on one queue that already holds
+ * 512 of them, as the stations do on a busy order queue under deadline scheduling.
+ * Compares PriorityBlockingQueue, one heap behind one lock, with the bucketed DeadlineQueue,
+ * and the first-in first-out ArrayBlockingQueue for what ordering costs at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class DeadlineQueueBenchmark {
+    private static final int QUEUED = 512;
+    private static final int ORDERS = 4096;
+
+    @Param({"array", "priority-blocking", "deadline"})
+    public String queue;
+
+    private BlockingQueue<Order> orderQueue;
+    private final Order[] orders = new Order[ORDERS];
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        RealTimeClock clock = new RealTimeClock();
+        switch (queue) {
+            case "array":
+                orderQueue = new ArrayBlockingQueue<>(HandoffBenchmark.QUEUE_CAPACITY);
+                break;
+            case "priority-blocking":
+                orderQueue = new PriorityBlockingQueue<>(HandoffBenchmark.QUEUE_CAPACITY, Comparator.comparingLong(Order::getDeadlineMillis));
+                break;
+            case "deadline":
+                orderQueue = new DeadlineQueue(HandoffBenchmark.QUEUE_CAPACITY, clock);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+        // One in five express, with 45 s to go, the rest spread over the next ten minutes
+        SplittableRandom random = new SplittableRandom(42);
+        long now = clock.currentTimeMillis();
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = new Order(i, Zone.NORTH);
+            boolean express = random.nextInt(5) == 0;
+            orders[i].assignDeadline(express ? OrderPriority.EXPRESS : OrderPriority.STANDARD,
+                now + (express ? 45_000 : random.nextLong(60_000, 600_000)));
+        }
+        for (int i = 0; i < QUEUED; i++) {
+            orderQueue.put(orders[i]);
+        }
+    }
+
+    @Benchmark
+    public Order putAndTake(ThreadIndex index) throws InterruptedException {
+        orderQueue.put(orders[index.next()]);
+        return orderQueue.take();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        private int next;
+
+        int next() {
+            next = (next + 1) & (ORDERS - 1);
+            return next;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.EventLog;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.Simulation;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationConfig;
+import com.swiftcart.SimulationResult;
+import com.swiftcart.Stage;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * The station threads against the WorkStealingPipeline, on the real-time clock.
+ * Every order is sent at once. With instant stations this measures what the queue hops between
+ * picking, packing and labelling cost; with picking, packing and labelling taking 2, 3 and 4 ms an
+ * order, the one labeller of the default stations is the bottleneck while the pickers wait, and the
+ * same six threads as a work-stealing pool share the stages between them. Each line has the orders
+ * per second of wall time, the boxes packed (the same for both engines, since the seed is fixed)
+ * and the p99 labelling queue wait. Orders still only pick under the four picking permits.
+ * The stages need the real-time clock, so this is a plain main:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.EngineHarness [orders]
+ */
+public class EngineHarness {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        System.out.printf("%-10s %-9s %10s %8s %14s%n", "stages", "engine", "orders/s", "boxes", "p99 label wait");
+        for (String[] service : new String[][] {{"instant", "0", "0", "0"}, {"2/3/4 ms", "2", "3", "4"}}) {
+            for (String engine : new String[] {"stations", "stealing"}) {
+                run(orders, service, engine);
+            }
+        }
+    }
+
+    private static void run(int orders, String[] service, String engine) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.source.orders", String.valueOf(orders));
+        properties.setProperty("swiftcart.source.arrivals", "max");
+        properties.setProperty("swiftcart.service.picking", service[1]);
+        properties.setProperty("swiftcart.service.packing", service[2]);
+        properties.setProperty("swiftcart.service.labelling", service[3]);
+        properties.setProperty("swiftcart.loading.breakdownMillis", "5");
+        properties.setProperty("swiftcart.engine", engine);
+        properties.setProperty("swiftcart.seed", "42");
+        long start = System.nanoTime();
+        SimulationResult result = new Simulation(SimulationConfig.fromProperties(properties), SimulationClock.forMode("realtime"),
+            OrderJournal.disabled(), EventLog.disabled()).run(null, false);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10s %-9s %10.0f %8d %12.3f ms%n", service[0], engine, orders / seconds, result.getMetrics().getBoxesPacked(),
+            result.getMetrics().stage(Stage.LABELLING).getQueueWait().getValueAtPercentile(99) / 1e6);
+    }
+}
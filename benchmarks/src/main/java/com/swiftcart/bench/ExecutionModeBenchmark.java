@@ -0,0 +1,108 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.BatchSettings;
+import com.swiftcart.EventLog;
+import com.swiftcart.ExecutionMode;
+import com.swiftcart.LabellingStation;
+import com.swiftcart.Order;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.PackingStation;
+import com.swiftcart.RandomStream;
+import com.swiftcart.ShutdownCoordinator;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.Stage;
+import com.swiftcart.StageMetrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Platform threads against virtual threads with thousands of concurrent stations.
+ * Each invocation starts that many PackingStations sharing one input queue and that many
+ * LabellingStations taking from the packers' output queue on an executor of the chosen
+ * ExecutionMode, pushes 4 orders per station through both stages, poisons them and waits
+ * until every task has finished. Most tasks spend their life parked in take(), which is
+ * where a virtual thread is cheaper than an OS thread.
+ * The virtual mode needs JDK 21 or newer and fails on older JDKs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+    static final int ORDERS_PER_STATION = 4;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1000", "4000"})
+    public int stations;
+
+    private ExecutionMode executionMode;
+    private SimulationClock clock;
+    private final OrderJournal journal = OrderJournal.disabled();
+    private final EventLog log = EventLog.disabled();
+    private Order[] orders;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stdout = BenchmarkSupport.silenceStdout();
+        executionMode = ExecutionMode.forName(mode);
+        clock = new BenchmarkSupport.NoSleepClock();
+        orders = BenchmarkSupport.orders(stations * ORDERS_PER_STATION);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.restoreStdout(stdout);
+    }
+
+    @Benchmark
+    public int runStations() throws InterruptedException {
+        BlockingQueue<Order> pickingQueue = new LinkedBlockingQueue<>();
+        BlockingQueue<Order> packingQueue = new LinkedBlockingQueue<>();
+        BlockingQueue<Order> labellingQueue = new LinkedBlockingQueue<>();
+        ShutdownCoordinator<Order> packingShutdown = new ShutdownCoordinator<>(stations, Order.POISON_PILL);
+        ShutdownCoordinator<Order> labellingShutdown = new ShutdownCoordinator<>(stations, Order.POISON_PILL);
+        StageMetrics packingMetrics = new StageMetrics(Stage.PACKING);
+        StageMetrics labellingMetrics = new StageMetrics(Stage.LABELLING);
+
+        ExecutorService executor = executionMode.newExecutor(2 * stations);
+        for (int i = 0; i < stations; i++) {
+            executor.submit(new PackingStation(pickingQueue, packingQueue, packingMetrics, packingShutdown, journal, log, clock, BatchSettings.SINGLE, RandomStream.forStage(42, Stage.PACKING), 0.05, 0));
+            executor.submit(new LabellingStation(packingQueue, labellingQueue, labellingMetrics, labellingShutdown, journal, log, clock, BatchSettings.SINGLE, RandomStream.forStage(42, Stage.LABELLING), 0.05, 0));
+        }
+
+        for (Order order : orders) {
+            pickingQueue.put(order);
+        }
+        pickingQueue.put(Order.POISON_PILL);
+
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Stations did not finish");
+        }
+        return labellingQueue.size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.MpmcRingBuffer;
+import com.swiftcart.Order;
+import com.swiftcart.SpscRingBuffer;
+import com.swiftcart.WaitStrategy;
+import com.swiftcart.Zone;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Raw handoff throughput of one queue between stations.
+ * The benchmark threads are the producers and a dedicated thread takes every order off the queue,
+ * as a station would. All queues hold QUEUE_CAPACITY orders, so producers run at the rate the
+ * consumer can drain rather than filling an unbounded queue.
+ * Subclasses choose the number of producers and which queues are compared.
+ */
+public abstract class HandoffBenchmark {
+    static final int QUEUE_CAPACITY = 1024;
+
+    private BlockingQueue<Order> queue;
+    private Thread consumer;
+    private final Order order = new Order(1, Zone.NORTH);
+
+    protected abstract String queueType();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = createQueue(queueType());
+        consumer = new Thread(this::consume, "bench-consumer");
+        consumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        consumer.interrupt();
+        consumer.join();
+    }
+
+    @Benchmark
+    public void handoff() throws InterruptedException {
+        queue.put(order);
+    }
+
+    private void consume() {
+        try {
+            while (true) {
+                queue.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static BlockingQueue<Order> createQueue(String type) {
+        switch (type) {
+            case "linked":
+                return new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+            case "array":
+                return new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            case "spsc-spin":
+                return new SpscRingBuffer<>(QUEUE_CAPACITY, WaitStrategy.BUSY_SPIN);
+            case "spsc-yield":
+                return new SpscRingBuffer<>(QUEUE_CAPACITY, WaitStrategy.YIELD);
+            case "spsc-park":
+                return new SpscRingBuffer<>(QUEUE_CAPACITY, WaitStrategy.PARK);
+            case "mpmc-spin":
+                return new MpmcRingBuffer<>(QUEUE_CAPACITY, WaitStrategy.BUSY_SPIN);
+            case "mpmc-yield":
+                return new MpmcRingBuffer<>(QUEUE_CAPACITY, WaitStrategy.YIELD);
+            case "mpmc-park":
+                return new MpmcRingBuffer<>(QUEUE_CAPACITY, WaitStrategy.PARK);
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + type);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.IdSequence;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost per id of an IdSequence shared by four threads.
+ * Block size 1 makes every next() an atomic add on the one shared counter, so the threads fight
+ * over its cache line; with blocks of 64 they touch it once every 64 ids and otherwise only their
+ * own thread-local block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+public class IdSequenceBenchmark {
+
+    @Param({"1", "64"})
+    public int blockSize;
+
+    private IdSequence sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // Short iterations, each with a fresh sequence, keep four threads from running the int ids out
+        sequence = new IdSequence(blockSize);
+    }
+
+    @Benchmark
+    public int next() {
+        return sequence.next();
+    }
+}
@@ -0,0 +1,119 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.Container;
+import com.swiftcart.EventLog;
+import com.swiftcart.Loader;
+import com.swiftcart.LoadingJob;
+import com.swiftcart.LoadingPriority;
+import com.swiftcart.LoadingScheduler;
+import com.swiftcart.Order;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.RandomStream;
+import com.swiftcart.ScheduledLoader;
+import com.swiftcart.ShutdownCoordinator;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.Stage;
+import com.swiftcart.StageMetrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading throughput under breakdowns, semaphore loaders against the LoadingScheduler.
+ * Each run pushes N containers through the loading stage as fast as the sorting queue takes them,
+ * on the discrete-event clock, so the 5 s breakdowns are the only thing that costs time and the
+ * run measures how much loading capacity the breakdowns leave, in containers per simulated minute,
+ * with the p99 wait in the sorting queue and the p99 service time of a container.
+ * The semaphore loaders get as many permits as there are loaders, so both designs have the same
+ * capacity. They then ship the same containers per minute: a breakdown costs a loader the same
+ * time whether it comes before or after a job. What differs is who waits for it. A semaphore loader
+ * breaks down holding its container, which shows in the service time; a scheduled loader breaks
+ * down after handing its container on, so the next containers go to the loaders that are running.
+ * The harness is there to keep that comparison honest, not to show a gain: the scheduler is
+ * experimental and the semaphore loaders stay the default.
+ * Breakdowns are drawn by container id from a fixed seed, so every run gives the same numbers.
+ * JMH measures wall time, not simulated time, so this is a plain main:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.LoadingHarness [containers]
+ */
+public class LoadingHarness {
+    static final int BAYS = 2;
+
+    public static void main(String[] args) throws InterruptedException {
+        int containers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.printf("%-10s %7s %18s %11s %14s%n", "loading", "loaders", "containers/min", "p99 wait s", "p99 service s");
+        for (int loaders : new int[] {3, 6}) {
+            for (String mode : new String[] {"semaphore", "scheduled"}) {
+                run(mode, loaders, containers);
+            }
+        }
+    }
+
+    private static void run(String mode, int loaders, int containers) throws InterruptedException {
+        SimulationClock clock = SimulationClock.forMode("discrete");
+        OrderJournal journal = OrderJournal.disabled();
+        EventLog log = EventLog.disabled();
+        StageMetrics metrics = new StageMetrics(Stage.LOADING);
+        BlockingQueue<Container> sortingQueue = clock.newQueue(10);
+        BlockingQueue<Container> loadingQueue = clock.newQueue(Integer.MAX_VALUE);
+        List<Order> boxes = Arrays.asList(BenchmarkSupport.orders(30));
+        ExecutorService executor = Executors.newFixedThreadPool(loaders + 3);
+
+        executor.submit(clock.participant(() -> {
+            try {
+                for (int i = 1; i <= containers; i++) {
+                    Container container = new Container(i, boxes);
+                    container.markEnqueued(clock.nanoTime());
+                    sortingQueue.put(container);
+                }
+                sortingQueue.put(Container.POISON_PILL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        if (mode.equals("scheduled")) {
+            BlockingQueue<LoadingJob> jobQueue = clock.newQueue(BAYS);
+            BlockingQueue<Integer> freeBays = clock.newQueue(BAYS);
+            for (int bay = 1; bay <= BAYS; bay++) {
+                freeBays.put(bay);
+            }
+            executor.submit(clock.participant(new LoadingScheduler(sortingQueue, jobQueue, freeBays, LoadingPriority.FIFO, 10)));
+            ShutdownCoordinator<LoadingJob> shutdown = new ShutdownCoordinator<>(loaders, LoadingJob.POISON_PILL);
+            for (int i = 0; i < loaders; i++) {
+                executor.submit(clock.participant(new ScheduledLoader(jobQueue, freeBays, loadingQueue, metrics, shutdown, journal, log, clock, RandomStream.forStage(42, Stage.LOADING), 0.1, 5000)));
+            }
+        } else {
+            // As many permits as loaders, so both designs have the same loading capacity
+            Semaphore loaderSemaphore = clock.newSemaphore(loaders);
+            Semaphore bays = clock.newSemaphore(BAYS);
+            ShutdownCoordinator<Container> shutdown = new ShutdownCoordinator<>(loaders, Container.POISON_PILL);
+            for (int i = 0; i < loaders; i++) {
+                executor.submit(clock.participant(new Loader(sortingQueue, loadingQueue, loaderSemaphore, bays, metrics, shutdown, journal, log, clock, RandomStream.forStage(42, Stage.LOADING), 0.1, 5000)));
+            }
+        }
+        executor.submit(clock.participant(() -> {
+            try {
+                while (loadingQueue.take() != Container.POISON_PILL) {
+                    // The trucks are not part of this measurement.
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        long start = clock.currentTimeMillis();
+        clock.start();
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("The loading stage did not finish");
+        }
+        double minutes = (clock.currentTimeMillis() - start) / 60_000.0;
+        System.out.printf("%-10s %7d %18.1f %11.1f %14.1f%n", mode, loaders, containers / minutes,
+            metrics.getQueueWait().getValueAtPercentile(99) / 1e9, metrics.getServiceTime().getValueAtPercentile(99) / 1e9);
+    }
+}
@@ -0,0 +1,36 @@
+package com.swiftcart.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Four producers and one consumer, as on the hop from the four PickingStation threads to packing.
+ * Compares the current blocking queues with the multi-producer ring buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class MpscHandoffBenchmark extends HandoffBenchmark {
+
+    @Param({"linked", "array", "mpmc-spin", "mpmc-yield", "mpmc-park"})
+    public String queue;
+
+    @Override
+    protected String queueType() {
+        return queue;
+    }
+}
@@ -0,0 +1,66 @@
+package com.swiftcart.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * OffHeapOrderStore is the OrderStore kept outside the Java heap, in one direct buffer.
+ * Each handle owns a fixed-size row: id (int) at 0, zone code (byte) at 4, enqueued time
+ * (long) at 8 and the stage-entry times (long per Stage) from 16. The garbage collector never
+ * scans or copies the rows, so millions of in-flight orders add nothing to GC work.
+ */
+public class OffHeapOrderStore extends OrderStore {
+    static final int ROW_SIZE = 16 + 8 * STAGES;
+    private static final int ID = 0;
+    private static final int ZONE = 4;
+    private static final int ENQUEUED_AT = 8;
+    private static final int ENTERED_AT = 16;
+
+    private final ByteBuffer rows;
+
+    public OffHeapOrderStore(int capacity) {
+        super(capacity);
+        this.rows = ByteBuffer.allocateDirect(Math.multiplyExact(capacity, ROW_SIZE)).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    protected void init(int handle, int id, byte zoneCode) {
+        int row = handle * ROW_SIZE;
+        rows.putInt(row + ID, id);
+        rows.put(row + ZONE, zoneCode);
+        rows.putLong(row + ENQUEUED_AT, 0);
+        for (int stage = 0; stage < STAGES; stage++) {
+            rows.putLong(row + ENTERED_AT + 8 * stage, 0);
+        }
+    }
+
+    @Override
+    public int getId(int handle) {
+        return rows.getInt(handle * ROW_SIZE + ID);
+    }
+
+    @Override
+    protected byte getZoneCode(int handle) {
+        return rows.get(handle * ROW_SIZE + ZONE);
+    }
+
+    @Override
+    protected void setEnteredAt(int handle, int stage, long nanos) {
+        rows.putLong(handle * ROW_SIZE + ENTERED_AT + 8 * stage, nanos);
+    }
+
+    @Override
+    protected long getEnteredAt(int handle, int stage) {
+        return rows.getLong(handle * ROW_SIZE + ENTERED_AT + 8 * stage);
+    }
+
+    @Override
+    public void markEnqueued(int handle, long nanos) {
+        rows.putLong(handle * ROW_SIZE + ENQUEUED_AT, nanos);
+    }
+
+    @Override
+    public long getEnqueuedAt(int handle) {
+        return rows.getLong(handle * ROW_SIZE + ENQUEUED_AT);
+    }
+}
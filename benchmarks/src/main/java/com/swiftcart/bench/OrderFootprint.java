@@ -0,0 +1,86 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.MpmcRingBuffer;
+import com.swiftcart.Order;
+import com.swiftcart.Stage;
+import com.swiftcart.WaitStrategy;
+import com.swiftcart.Zone;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+
+/**
+ * Bytes per in-flight order of the two order representations.
+ * Fills a queue with N orders the way a backed-up station would hold them, and reports the heap
+ * (and direct memory) that the orders and the queue take, divided by N:
+ * "objects" is Order objects in an MpmcRingBuffer, "array" and "offheap" are an OrderStore of
+ * that kind with the handles in an OrderHandleQueue. Every order has all its stage timestamps set.
+ * JMH does not measure retained memory, so this is a plain main:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.OrderFootprint [orders]
+ */
+public class OrderFootprint {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-8s %12s %12s %12s%n", "store", "heap B/order", "direct B/order", "total B/order");
+        for (String representation : new String[] {"objects", "array", "offheap"}) {
+            measure(representation, orders);
+        }
+    }
+
+    private static void measure(String representation, int orders) throws InterruptedException {
+        Zone[] zones = Zone.values();
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        Object retained;
+        if (representation.equals("objects")) {
+            MpmcRingBuffer<Order> queue = new MpmcRingBuffer<>(orders, WaitStrategy.PARK);
+            for (int i = 0; i < orders; i++) {
+                Order order = new Order(i + 1, zones[i % zones.length]);
+                for (Stage stage : Stage.values()) {
+                    order.markEntered(stage, i);
+                }
+                order.markEnqueued(i);
+                queue.put(order);
+            }
+            retained = queue;
+        } else {
+            OrderStore store = OrderStore.forName(representation, orders);
+            OrderHandleQueue queue = new OrderHandleQueue(orders, WaitStrategy.PARK);
+            for (int i = 0; i < orders; i++) {
+                int handle = store.allocate(i + 1, zones[i % zones.length]);
+                for (Stage stage : Stage.values()) {
+                    store.markEntered(handle, stage, i);
+                }
+                store.markEnqueued(handle, i);
+                queue.put(handle);
+            }
+            retained = new Object[] {store, queue};
+        }
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        // Keep the queue reachable until it has been measured
+        Reference.reachabilityFence(retained);
+        System.out.printf("%-8s %12.1f %12.1f %12.1f%n", representation,
+            (double) heap / orders, (double) direct / orders, (double) (heap + direct) / orders);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,130 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.WaitStrategy;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OrderHandleQueue is the MpmcRingBuffer for the int handles of an OrderStore.
+ * It uses the same per-slot sequence numbers, but the slots are a plain int[] and the sequences
+ * are ints (compared with wrap-around, which is safe for any capacity below 2^30), so a slot costs
+ * eight bytes and passing an order between stations never touches an object.
+ * A handle is never negative; poll returns NO_HANDLE when the queue is empty.
+ * Like the MpmcRingBuffer it has at least two slots, since with one a published slot and a freed
+ * one carry the same sequence number.
+ */
+public class OrderHandleQueue {
+    public static final int NO_HANDLE = -1;
+
+    private final int[] buffer;
+    private final int mask;
+    private final AtomicIntegerArray sequences;
+    private final AtomicLong head = new PaddedPosition();
+    private final AtomicLong tail = new PaddedPosition();
+    private final WaitStrategy waitStrategy;
+
+    public OrderHandleQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Handle queue capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity == 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new int[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        this.sequences = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(int handle) {
+        if (handle < 0) {
+            throw new IllegalArgumentException("Not an order handle: " + handle);
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            int difference = sequences.get(index) - (int) position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = handle;
+                    sequences.lazySet(index, (int) position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    public int poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            int difference = sequences.get(index) - ((int) position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    int handle = buffer[index];
+                    sequences.lazySet(index, (int) position + buffer.length);
+                    return handle;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return NO_HANDLE;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    public void put(int handle) throws InterruptedException {
+        int idle = 0;
+        while (!offer(handle)) {
+            idle = waitStrategy.idle(idle);
+            checkInterrupt();
+        }
+    }
+
+    public int take() throws InterruptedException {
+        int idle = 0;
+        int handle;
+        while ((handle = poll()) == NO_HANDLE) {
+            idle = waitStrategy.idle(idle);
+            checkInterrupt();
+        }
+        return handle;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * Returns the real capacity, which is the requested one rounded up to a power of two, and at least two.
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    private static void checkInterrupt() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * An AtomicLong padded to its own cache line, so the producer and consumer positions
+     * do not invalidate each other.
+     */
+    @SuppressWarnings("unused")
+    static final class PaddedPosition extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
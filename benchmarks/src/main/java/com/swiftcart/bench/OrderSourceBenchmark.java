@@ -0,0 +1,129 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.ArrivalProcess;
+import com.swiftcart.CsvOrderSource;
+import com.swiftcart.JournalOrderSource;
+import com.swiftcart.NdjsonOrderSource;
+import com.swiftcart.Order;
+import com.swiftcart.OrderArrival;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.OrderSource;
+import com.swiftcart.RealTimeClock;
+import com.swiftcart.SyntheticOrderSource;
+import com.swiftcart.Zone;
+import com.swiftcart.ZoneMix;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Orders/sec read from each OrderSource, without the pipeline behind it.
+ * Each invocation opens the source and reads 100,000 orders, from a file in the temp directory
+ * for the csv, ndjson and journal sources. Run with -prof gc: gc.alloc.rate.norm should be
+ * about the size of one Order per order, however large the file is.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSourceBenchmark {
+    static final int ORDERS_PER_INVOCATION = 100_000;
+
+    @Param({"synthetic", "csv", "ndjson", "journal"})
+    public String source;
+
+    private Path file;
+    private final OrderArrival arrival = new OrderArrival();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        switch (source) {
+            case "csv":
+                file = Files.createTempFile("orders", ".csv");
+                try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                    out.write("id,zone,arrivalMillis\n");
+                    for (int i = 1; i <= ORDERS_PER_INVOCATION; i++) {
+                        out.write(i + "," + zone(random) + "," + i * 500L + "\n");
+                    }
+                }
+                break;
+            case "ndjson":
+                file = Files.createTempFile("orders", ".ndjson");
+                try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                    for (int i = 1; i <= ORDERS_PER_INVOCATION; i++) {
+                        out.write("{\"id\": " + i + ", \"zone\": \"" + zone(random) + "\", \"at\": " + i * 500L + "}\n");
+                    }
+                }
+                break;
+            case "journal":
+                file = Files.createTempFile("orders", ".journal");
+                try (OrderJournal journal = OrderJournal.create(file, 8L << 20, new RealTimeClock(), false)) {
+                    for (int i = 1; i <= ORDERS_PER_INVOCATION; i++) {
+                        journal.orderCreated(new Order(i, zone(random)));
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (file != null) {
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public long readAll() throws IOException {
+        long ids = 0;
+        try (OrderSource orders = open()) {
+            while (orders.next(arrival)) {
+                ids += arrival.getOrder().getId();
+            }
+        }
+        return ids;
+    }
+
+    private OrderSource open() throws IOException {
+        switch (source) {
+            case "csv":
+                return new CsvOrderSource(file, 1, Double.POSITIVE_INFINITY);
+            case "ndjson":
+                return new NdjsonOrderSource(file, 1, Double.POSITIVE_INFINITY);
+            case "journal":
+                return new JournalOrderSource(file, 1, Double.POSITIVE_INFINITY);
+            default:
+                return new SyntheticOrderSource(1, ORDERS_PER_INVOCATION, ArrivalProcess.forSpec("max"), ZoneMix.forSpec("uniform"), new SplittableRandom(42));
+        }
+    }
+
+    private static Zone zone(Random random) {
+        return BenchmarkSupport.ZONES[random.nextInt(BenchmarkSupport.ZONES.length)];
+    }
+}
@@ -0,0 +1,145 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.Stage;
+import com.swiftcart.WaitStrategy;
+import com.swiftcart.Zone;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OrderStore keeps in-flight orders as rows of primitive fields instead of Order objects.
+ * An order is an int handle into the store: allocate() takes a free handle and fills in the
+ * id and zone, the stations pass the handle through OrderHandleQueues and record their
+ * timestamps against it, and free() hands it back once the order has left the pipeline.
+ * The store has a fixed capacity, so it also bounds the number of orders in flight. Free handles
+ * form a lock-free stack threaded through an int[] (a Treiber stack whose head carries a version
+ * in its upper half, so a handle freed and reallocated between two reads cannot corrupt it).
+ * ArrayOrderStore keeps the fields in parallel heap arrays and OffHeapOrderStore in one
+ * direct buffer; the choice is made with forName("array"|"offheap").
+ * A handle's fields are written by one station at a time, and the handle queues publish them
+ * to the next station, so the store itself needs no locking.
+ * The pipeline still passes Order objects; OrderFootprint measures what this would save.
+ */
+public abstract class OrderStore {
+    public static final int NO_HANDLE = OrderHandleQueue.NO_HANDLE;
+    // Stage-entry times per handle, one for each Stage
+    static final int STAGES = Stage.values().length;
+
+    private final int capacity;
+    // nextFree[h] is the free handle below h on the stack, or NO_HANDLE
+    private final int[] nextFree;
+    // Version in the upper 32 bits, top free handle in the lower 32
+    private final AtomicLong freeTop = new OrderHandleQueue.PaddedPosition();
+
+    protected OrderStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Order store capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.nextFree = new int[capacity];
+        for (int handle = 0; handle < capacity; handle++) {
+            nextFree[handle] = handle + 1 < capacity ? handle + 1 : NO_HANDLE;
+        }
+        freeTop.set(0);
+    }
+
+    public static OrderStore forName(String name, int capacity) {
+        switch (name) {
+            case "array":
+                return new ArrayOrderStore(capacity);
+            case "offheap":
+                return new OffHeapOrderStore(capacity);
+            default:
+                throw new IllegalArgumentException("Unknown order store: " + name + " (expected array or offheap)");
+        }
+    }
+
+    /**
+     * Stores a new order and returns its handle, or NO_HANDLE if every handle is in use.
+     * The stage timestamps of the handle start at zero.
+     */
+    public int allocate(int id, Zone zone) {
+        int handle = pop();
+        if (handle != NO_HANDLE) {
+            init(handle, id, zone.getCode());
+        }
+        return handle;
+    }
+
+    /**
+     * Like allocate, but waits for a handle to be freed when the store is full.
+     */
+    public int allocateWaiting(int id, Zone zone) throws InterruptedException {
+        int idle = 0;
+        int handle;
+        while ((handle = pop()) == NO_HANDLE) {
+            idle = WaitStrategy.PARK.idle(idle);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        init(handle, id, zone.getCode());
+        return handle;
+    }
+
+    public void free(int handle) {
+        if (handle < 0 || handle >= capacity) {
+            throw new IllegalArgumentException("Not a handle of this store: " + handle);
+        }
+        while (true) {
+            long top = freeTop.get();
+            nextFree[handle] = (int) top;
+            if (freeTop.compareAndSet(top, nextVersion(top) | handle)) {
+                return;
+            }
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int pop() {
+        while (true) {
+            long top = freeTop.get();
+            int handle = (int) top;
+            if (handle == NO_HANDLE) {
+                return NO_HANDLE;
+            }
+            int next = nextFree[handle];
+            if (freeTop.compareAndSet(top, nextVersion(top) | (next & 0xFFFFFFFFL))) {
+                return handle;
+            }
+        }
+    }
+
+    private static long nextVersion(long top) {
+        return ((top >>> 32) + 1) << 32;
+    }
+
+    public Zone getZone(int handle) {
+        return Zone.forCode(getZoneCode(handle));
+    }
+
+    public void markEntered(int handle, Stage stage, long nanos) {
+        setEnteredAt(handle, stage.ordinal(), nanos);
+    }
+
+    public long getEnteredAt(int handle, Stage stage) {
+        return getEnteredAt(handle, stage.ordinal());
+    }
+
+    protected abstract void init(int handle, int id, byte zoneCode);
+
+    public abstract int getId(int handle);
+
+    protected abstract byte getZoneCode(int handle);
+
+    protected abstract void setEnteredAt(int handle, int stage, long nanos);
+
+    protected abstract long getEnteredAt(int handle, int stage);
+
+    public abstract void markEnqueued(int handle, long nanos);
+
+    public abstract long getEnqueuedAt(int handle);
+}
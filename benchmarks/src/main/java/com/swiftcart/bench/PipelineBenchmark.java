@@ -0,0 +1,178 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.BatchSettings;
+import com.swiftcart.Container;
+import com.swiftcart.EventLog;
+import com.swiftcart.IdSequence;
+import com.swiftcart.LabellingStation;
+import com.swiftcart.ListContainerBuilder;
+import com.swiftcart.Loader;
+import com.swiftcart.Order;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.PackingStation;
+import com.swiftcart.PickingStation;
+import com.swiftcart.PrioritySettings;
+import com.swiftcart.RandomStream;
+import com.swiftcart.ShutdownCoordinator;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationMetrics;
+import com.swiftcart.SortingArea;
+import com.swiftcart.Stage;
+import com.swiftcart.Transport;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end orders/sec through picking, packing, labelling, sorting and loading,
+ * as the number of order producers and picking consumers varies.
+ * The queues come from the same transports the simulation can use, so the blocking chain and
+ * the ring buffers can be compared; the loaders run without their breakdown sleep, and a drain
+ * thread stands in for the trucks.
+ * An operation is one order reaching the sorting area or being rejected on the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+    static final int ORDERS_PER_INVOCATION = 3000;
+    static final int LOADERS = 3;
+
+    @Param({"1", "2", "4"})
+    public int producers;
+
+    @Param({"1", "2", "4"})
+    public int pickers;
+
+    @Param({"blocking", "ring-spin", "ring-yield", "ring-park"})
+    public String transport;
+
+    @Param({"1", "32"})
+    public int batch;
+
+    private BlockingQueue<Order> intakeQueue;
+    private BlockingQueue<Container> loadingQueue;
+    private SimulationMetrics metrics;
+    private final List<Thread> workers = new ArrayList<>();
+    private ExecutorService producerPool;
+    private List<Callable<Void>> producerTasks;
+    private long ordersSent;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stdout = BenchmarkSupport.silenceStdout();
+        SimulationClock clock = new BenchmarkSupport.NoSleepClock();
+        OrderJournal journal = OrderJournal.disabled();
+        EventLog log = EventLog.disabled();
+        Transport queues = Transport.forName(transport, clock);
+        intakeQueue = queues.newQueue(Integer.MAX_VALUE, producers + pickers, pickers);
+        BlockingQueue<Order> pickingQueue = queues.newQueue(Integer.MAX_VALUE, pickers, 1);
+        BlockingQueue<Order> packingQueue = queues.newQueue(Integer.MAX_VALUE, 1, 1);
+        BlockingQueue<Order> labellingQueue = queues.newQueue(Integer.MAX_VALUE, 1, 1);
+        BlockingQueue<Container> sortingQueue = queues.newQueue(10, 1 + LOADERS, LOADERS);
+        loadingQueue = queues.newQueue(Integer.MAX_VALUE, LOADERS, 1);
+        metrics = new SimulationMetrics();
+
+        BatchSettings batchSettings = new BatchSettings(batch, 0);
+        Semaphore pickingSemaphore = new Semaphore(pickers);
+        ShutdownCoordinator<Order> pickingShutdown = new ShutdownCoordinator<>(pickers, Order.POISON_PILL);
+        for (int i = 0; i < pickers; i++) {
+            start(new PickingStation(intakeQueue, pickingQueue, pickingSemaphore, metrics.stage(Stage.PICKING), pickingShutdown, journal, log, clock, batchSettings, RandomStream.forStage(42, Stage.PICKING), 0.05, 0), "picker-" + i);
+        }
+        start(new PackingStation(pickingQueue, packingQueue, metrics.stage(Stage.PACKING), single(), journal, log, clock, batchSettings, RandomStream.forStage(42, Stage.PACKING), 0.05, 0), "packer");
+        start(new LabellingStation(packingQueue, labellingQueue, metrics.stage(Stage.LABELLING), single(), journal, log, clock, batchSettings, RandomStream.forStage(42, Stage.LABELLING), 0.05, 0), "labeller");
+        start(new SortingArea(labellingQueue, sortingQueue, metrics.containersShippedCounter(), metrics.boxesPackedCounter(),
+            metrics.stage(Stage.SORTING), single(), journal, log, clock, batchSettings, new ListContainerBuilder(new IdSequence(), 6, 5),
+            PrioritySettings.fifo()), "sorter");
+        Semaphore loaderSemaphore = new Semaphore(LOADERS);
+        Semaphore loadingBaySemaphore = new Semaphore(2);
+        ShutdownCoordinator<Container> loadingShutdown = new ShutdownCoordinator<>(LOADERS, Container.POISON_PILL);
+        for (int i = 0; i < LOADERS; i++) {
+            start(new Loader(sortingQueue, loadingQueue, loaderSemaphore, loadingBaySemaphore, metrics.stage(Stage.LOADING), loadingShutdown, journal, log, clock, RandomStream.forStage(42, Stage.LOADING), 0.1, 5000), "loader-" + i);
+        }
+        start(this::drainLoadingQueue, "trucks");
+
+        producerPool = Executors.newFixedThreadPool(producers);
+        producerTasks = new ArrayList<>();
+        Order[] orders = BenchmarkSupport.orders(ORDERS_PER_INVOCATION);
+        int share = ORDERS_PER_INVOCATION / producers;
+        for (int p = 0; p < producers; p++) {
+            int from = p * share;
+            int to = p == producers - 1 ? ORDERS_PER_INVOCATION : from + share;
+            producerTasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    intakeQueue.put(orders[i]);
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        producerPool.shutdown();
+        intakeQueue.put(Order.POISON_PILL);
+        for (Thread worker : workers) {
+            BenchmarkSupport.join(worker);
+        }
+        BenchmarkSupport.restoreStdout(stdout);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public long endToEnd() throws InterruptedException {
+        producerPool.invokeAll(producerTasks);
+        ordersSent += ORDERS_PER_INVOCATION;
+        long done;
+        while ((done = metrics.getBoxesPacked() + metrics.getOrdersRejected()) < ordersSent) {
+            Thread.onSpinWait();
+        }
+        return done;
+    }
+
+    private void drainLoadingQueue() {
+        try {
+            while (loadingQueue.take() != Container.POISON_PILL) {
+                // The truck side is not part of this measurement.
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ShutdownCoordinator<Order> single() {
+        return new ShutdownCoordinator<>(1, Order.POISON_PILL);
+    }
+
+    private void start(Runnable station, String name) {
+        Thread thread = new Thread(station, "bench-" + name);
+        workers.add(thread);
+        thread.start();
+    }
+}
@@ -0,0 +1,69 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.DispatchMetrics;
+import com.swiftcart.EventLog;
+import com.swiftcart.LatencyHistogram;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.OrderPriority;
+import com.swiftcart.Simulation;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationConfig;
+import com.swiftcart.SimulationResult;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * First-in first-out against deadline scheduling under a mix of express and standard orders,
+ * with 10%, 30% and 50% of them express.
+ * Orders arrive with Poisson gaps of 500 ms on average at a labeller that takes 560 ms an order,
+ * so the labelling queue comes and goes in long bursts; express orders have 45 s to get on a
+ * truck and standard ones 90 s, and trucks leave 20 s after their first container. Each line has
+ * the containers the sorting area made, the p99 and max order-to-truck time of all orders and the
+ * p99 of each priority, in simulated seconds, and how many orders of each priority left after
+ * their deadline. The seed is fixed, so both schedulings reject the same orders.
+ * At 50% express the labelling queue always holds express orders, so a standard order only gets
+ * its turn once its deadline is as close as theirs: that is the case for moving waiting orders to
+ * more urgent buckets as their time runs out.
+ * It runs on the discrete-event clock, so it is a plain main:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.PriorityHarness [orders]
+ */
+public class PriorityHarness {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        System.out.printf("%-8s %-9s %10s %8s %8s %8s %9s %9s %9s%n", "express", "queues", "containers", "p99 s", "max s",
+            "p99 exp", "p99 std", "late exp", "late std");
+        for (String share : new String[] {"0.1", "0.3", "0.5"}) {
+            for (String scheduling : new String[] {"fifo", "deadline"}) {
+                run(orders, share, scheduling);
+            }
+        }
+    }
+
+    private static void run(int orders, String share, String scheduling) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.source.orders", String.valueOf(orders));
+        properties.setProperty("swiftcart.source.arrivals", "poisson:500");
+        properties.setProperty("swiftcart.service.labelling", "560");
+        properties.setProperty("swiftcart.priority", scheduling);
+        properties.setProperty("swiftcart.priority.express", share);
+        properties.setProperty("swiftcart.priority.expressSlaMillis", "45000");
+        properties.setProperty("swiftcart.priority.standardSlaMillis", "90000");
+        properties.setProperty("swiftcart.dispatch.maxDwellMillis", "20000");
+        properties.setProperty("swiftcart.seed", "42");
+        SimulationResult result = new Simulation(SimulationConfig.fromProperties(properties), SimulationClock.forMode("discrete"),
+            OrderJournal.disabled(), EventLog.disabled()).run(null, false);
+        DispatchMetrics dispatch = result.getMetrics().dispatch();
+        LatencyHistogram all = dispatch.getOrderToTruck();
+        System.out.printf("%-8s %-9s %10d %8.1f %8.1f %8.1f %9.1f %9d %9d%n", share, scheduling, result.getMetrics().getContainersShipped(),
+            seconds(all.getValueAtPercentile(99)), seconds(all.getMax()),
+            seconds(dispatch.getOrderToTruck(OrderPriority.EXPRESS).getValueAtPercentile(99)),
+            seconds(dispatch.getOrderToTruck(OrderPriority.STANDARD).getValueAtPercentile(99)),
+            dispatch.getDeadlinesMissed(OrderPriority.EXPRESS), dispatch.getDeadlinesMissed(OrderPriority.STANDARD));
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
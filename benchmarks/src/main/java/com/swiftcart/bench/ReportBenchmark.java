@@ -0,0 +1,105 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.EventFormatter;
+import com.swiftcart.EventLog;
+import com.swiftcart.EventType;
+import com.swiftcart.LogLevel;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.RealTimeClock;
+import com.swiftcart.Simulation;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationConfig;
+import com.swiftcart.SimulationReport;
+import com.swiftcart.SimulationResult;
+import com.swiftcart.TextBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the station status output and of the final report.
+ * logEvent logs one per-order event through an EventLog whose writer formats every record into
+ * its TextBuffer and writes it to a discarding channel, so the writer keeps up with the station
+ * and both sides are measured. renderReport renders the report of a finished run of the given
+ * number of orders; its time should not grow with the orders, since everything it reads was
+ * aggregated during the run.
+ * Run with -prof gc: gc.alloc.rate.norm of logEvent should be about 0 bytes per event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @State(Scope.Thread)
+    public static class LogState {
+        @Param({"console", "compact"})
+        public String format;
+
+        private EventLog log;
+        private int orderId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            log = new EventLog(LogLevel.DEBUG, new RealTimeClock(), EventFormatter.forName(format),
+                Channels.newChannel(OutputStream.nullOutputStream()), false);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            log.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReportState {
+        @Param({"1000", "100000"})
+        public int orders;
+
+        private SimulationReport report;
+        private final TextBuffer text = new TextBuffer(8192);
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, InterruptedException {
+            Properties properties = new Properties();
+            properties.setProperty("swiftcart.source.orders", String.valueOf(orders));
+            properties.setProperty("swiftcart.source.arrivals", "max");
+            properties.setProperty("swiftcart.seed", "42");
+            SimulationConfig config = SimulationConfig.fromProperties(properties);
+            OrderJournal journal = OrderJournal.disabled();
+            SimulationResult result = new Simulation(config, SimulationClock.forMode("discrete"), journal, EventLog.disabled())
+                .run(null, false);
+            report = new SimulationReport(config, result, journal);
+        }
+    }
+
+    @Benchmark
+    public void logEvent(LogState state) {
+        state.log.log(EventType.ORDER_PROCESSED, "PackingStation", ++state.orderId, 0, "Packing");
+    }
+
+    @Benchmark
+    public int renderReport(ReportState state) {
+        state.text.clear();
+        state.report.render(state.text);
+        return state.text.length();
+    }
+}
@@ -0,0 +1,126 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.EventLog;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.Simulation;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationConfig;
+import com.swiftcart.SimulationMetrics;
+import com.swiftcart.SimulationResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Check that a streaming run's memory stays flat however long it runs.
+ * A streaming run on the discrete-event clock takes Poisson arrivals for the given number of
+ * simulated hours, 24 by default, and then drains; its windows are reported every simulated hour.
+ * While it runs, the heap is measured after a full GC every 200 ms of wall time, together with how
+ * many orders the run has created so far, read from its metrics over JMX. The heap of the last
+ * fifth of the samples must not be more than the tolerance above that of the second fifth, once
+ * everything has warmed up; anything that grows with the orders, like a list that is never cleared, fails it long before
+ * the end of a 24-hour run. Exits with status 1 if it does:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.SoakHarness [hours] [meanGapMillis] [toleranceMb]
+ */
+public class SoakHarness {
+    private static final long SAMPLE_MILLIS = 200;
+    private static final int ROWS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int hours = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        String meanGap = args.length > 1 ? args[1] : "100";
+        double toleranceMb = args.length > 2 ? Double.parseDouble(args[2]) : 16;
+
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.streaming", "true");
+        properties.setProperty("swiftcart.streaming.durationMillis", String.valueOf(hours * 3_600_000L));
+        properties.setProperty("swiftcart.streaming.reportMillis", "3600000");
+        properties.setProperty("swiftcart.source.arrivals", "poisson:" + meanGap);
+        properties.setProperty("swiftcart.workers.packing", "2");
+        properties.setProperty("swiftcart.workers.labelling", "2");
+        properties.setProperty("swiftcart.seed", "42");
+        Simulation simulation = new Simulation(SimulationConfig.fromProperties(properties), SimulationClock.forMode("discrete"),
+            OrderJournal.disabled(), EventLog.disabled());
+
+        ExecutorService runner = Executors.newSingleThreadExecutor();
+        Future<SimulationResult> run = runner.submit(() -> simulation.run(null, true));
+        runner.shutdown();
+
+        // Orders created against the heap after a full GC, as the run goes on
+        List<long[]> samples = new ArrayList<>();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SimulationMetrics.OBJECT_NAME);
+        while (!run.isDone()) {
+            Thread.sleep(SAMPLE_MILLIS);
+            long created;
+            try {
+                created = createdOrders(server, name);
+            } catch (JMException e) {
+                continue; // Not registered yet, or already unregistered at the end of the run
+            }
+            System.gc();
+            samples.add(new long[] {created, memory.getHeapMemoryUsage().getUsed()});
+        }
+        SimulationResult result;
+        try {
+            result = run.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The streaming run failed", e.getCause());
+        }
+
+        System.out.printf("%n%d orders in %.1f simulated hours, %d boxes packed, %d heap samples%n", result.getTotalOrders(),
+            result.getDurationMillis() / 3_600_000.0, result.getMetrics().getBoxesPacked(), samples.size());
+        if (samples.size() < ROWS) {
+            System.out.println("FAILED: too few samples to judge, run for longer or with shorter gaps");
+            System.exit(1);
+        }
+        System.out.printf("%12s %10s%n", "orders", "heap MB");
+        for (int row = 0; row < ROWS; row++) {
+            long[] sample = samples.get(row * samples.size() / ROWS);
+            System.out.printf("%12d %10.1f%n", sample[0], megabytes(sample[1]));
+        }
+
+        double warm = maxHeap(samples, 1);
+        double last = maxHeap(samples, 4);
+        System.out.printf("Heap after warm-up: %.1f MB, at the end: %.1f MB%n", warm, last);
+        if (last > warm + toleranceMb) {
+            System.out.printf("FAILED: the heap grew by %.1f MB, more than %.1f MB%n", last - warm, toleranceMb);
+            System.exit(1);
+        }
+        System.out.println("Memory stayed flat");
+    }
+
+    private static long createdOrders(MBeanServer server, ObjectName name) throws JMException {
+        for (CompositeData stage : (CompositeData[]) server.getAttribute(name, "Stages")) {
+            if (stage.get("stage").equals("INTAKE")) {
+                return (Long) stage.get("processed");
+            }
+        }
+        return 0;
+    }
+
+    // The highest heap, in MB, of the samples in the given fifth of the run (0 to 4)
+    private static double maxHeap(List<long[]> samples, int fifth) {
+        long max = 0;
+        for (int i = fifth * samples.size() / 5; i < (fifth + 1) * samples.size() / 5; i++) {
+            max = Math.max(max, samples.get(i)[1]);
+        }
+        return megabytes(max);
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.BatchSettings;
+import com.swiftcart.Container;
+import com.swiftcart.ContainerAssembler;
+import com.swiftcart.EventLog;
+import com.swiftcart.IdSequence;
+import com.swiftcart.ListContainerBuilder;
+import com.swiftcart.Order;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.PrioritySettings;
+import com.swiftcart.RealTimeClock;
+import com.swiftcart.ShutdownCoordinator;
+import com.swiftcart.SortingArea;
+import com.swiftcart.SortingShard;
+import com.swiftcart.Stage;
+import com.swiftcart.StageMetrics;
+import com.swiftcart.ZoneBatch;
+import com.swiftcart.ZoneRoutingQueue;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batching cost per order in SortingArea.
+ * Each invocation sends 300 orders spread evenly over the five zones, which is exactly
+ * 50 batches of 6 and therefore 10 containers, so no partial batch carries over between
+ * invocations. The containers are taken from the same ArrayBlockingQueue(10) the simulation uses.
+ * With shards above 0 the orders go through the sharded sorting mode instead: a ZoneRoutingQueue,
+ * that many SortingShards and a ContainerAssembler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortingAreaBenchmark {
+    static final int ORDERS_PER_INVOCATION = 300;
+    static final int CONTAINERS_PER_INVOCATION = ORDERS_PER_INVOCATION / 30;
+
+    @Param({"1", "32"})
+    public int batch;
+
+    @Param({"0", "1", "2", "5"})
+    public int shards;
+
+    private BlockingQueue<Order> labellingQueue;
+    private BlockingQueue<Container> sortingQueue;
+    private final List<Thread> workers = new ArrayList<>();
+    private Order[] orders;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stdout = BenchmarkSupport.silenceStdout();
+        labellingQueue = new LinkedBlockingQueue<>();
+        sortingQueue = new ArrayBlockingQueue<>(10);
+        orders = BenchmarkSupport.orders(ORDERS_PER_INVOCATION);
+        RealTimeClock clock = new RealTimeClock();
+        OrderJournal journal = OrderJournal.disabled();
+        EventLog log = EventLog.disabled();
+        BatchSettings batchSettings = new BatchSettings(batch, 0);
+        if (shards == 0) {
+            start(new SortingArea(labellingQueue, sortingQueue, new LongAdder(), new LongAdder(), new StageMetrics(Stage.SORTING),
+                new ShutdownCoordinator<>(1, Order.POISON_PILL), journal, log, clock, batchSettings, new ListContainerBuilder(new IdSequence(), 6, 5),
+                PrioritySettings.fifo()), "bench-sorting");
+            return;
+        }
+        List<BlockingQueue<Order>> shardQueues = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            shardQueues.add(new LinkedBlockingQueue<>());
+        }
+        ZoneRoutingQueue router = new ZoneRoutingQueue(shardQueues);
+        labellingQueue = router;
+        BlockingQueue<ZoneBatch> batchQueue = new LinkedBlockingQueue<>();
+        ShutdownCoordinator<Order> shutdown = new ShutdownCoordinator<>(shards, Order.POISON_PILL);
+        LongAdder boxesPacked = new LongAdder();
+        StageMetrics metrics = new StageMetrics(Stage.SORTING);
+        for (int i = 0; i < shards; i++) {
+            start(new SortingShard(i, router.shard(i), batchQueue, boxesPacked, metrics, shutdown, journal, log, clock, batchSettings, 6), "bench-shard-" + i);
+        }
+        start(new ContainerAssembler(batchQueue, sortingQueue, new LongAdder(), new IdSequence(), 5, metrics, journal, log, clock), "bench-assembler");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        labellingQueue.put(Order.POISON_PILL);
+        // SortingArea poisons the loaders once it has flushed
+        sortingQueue.take();
+        for (Thread worker : workers) {
+            BenchmarkSupport.join(worker);
+        }
+        BenchmarkSupport.restoreStdout(stdout);
+    }
+
+    private void start(Runnable station, String name) {
+        Thread thread = new Thread(station, name);
+        workers.add(thread);
+        thread.start();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public int batchPerOrder() throws InterruptedException {
+        for (Order order : orders) {
+            labellingQueue.put(order);
+        }
+        int boxes = 0;
+        for (int i = 0; i < CONTAINERS_PER_INVOCATION; i++) {
+            boxes += sortingQueue.take().getOrders().size();
+        }
+        return boxes;
+    }
+}
@@ -0,0 +1,144 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.BatchSettings;
+import com.swiftcart.ConsoleEventFormatter;
+import com.swiftcart.EventLog;
+import com.swiftcart.LabellingStation;
+import com.swiftcart.LogLevel;
+import com.swiftcart.Order;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.PackingStation;
+import com.swiftcart.PickingStation;
+import com.swiftcart.RandomStream;
+import com.swiftcart.RealTimeClock;
+import com.swiftcart.ShutdownCoordinator;
+import com.swiftcart.Stage;
+import com.swiftcart.StageMetrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-stage throughput and latency of PickingStation, PackingStation and LabellingStation.
+ * A single station runs on its own thread between two queues, exactly as in the simulation.
+ * The benchmark thread feeds the input queue and counts orders that come out of the output
+ * queue or are rejected, so every operation includes both queue handoffs.
+ * The batch parameter runs the station in batch mode with that batch size.
+ * With logLevel "debug" the station logs every order through an EventLog whose writer
+ * formats the console messages into a discarded stream; "off" drops the events.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StationBenchmark {
+    static final int ORDERS_PER_INVOCATION = 1000;
+
+    @Param({"picking", "packing", "labelling"})
+    public String station;
+
+    @Param({"1", "32"})
+    public int batch;
+
+    @Param({"off", "debug"})
+    public String logLevel;
+
+    private BlockingQueue<Order> input;
+    private BlockingQueue<Order> output;
+    private StageMetrics metrics;
+    private final OrderJournal journal = OrderJournal.disabled();
+    private EventLog log;
+    private Thread worker;
+    private Order[] orders;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stdout = BenchmarkSupport.silenceStdout();
+        input = new LinkedBlockingQueue<>();
+        output = new LinkedBlockingQueue<>();
+        metrics = new StageMetrics(Stage.valueOf(station.toUpperCase()));
+        orders = BenchmarkSupport.orders(ORDERS_PER_INVOCATION);
+        log = "off".equals(logLevel)
+            ? EventLog.disabled()
+            : EventLog.toStream(LogLevel.forName(logLevel), new RealTimeClock(), new ConsoleEventFormatter(), System.out);
+        worker = new Thread(createStation(), "bench-" + station);
+        worker.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        input.put(Order.POISON_PILL);
+        BenchmarkSupport.join(worker);
+        log.close();
+        BenchmarkSupport.restoreStdout(stdout);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public int throughput() throws InterruptedException {
+        long rejectedBefore = metrics.getRejected();
+        for (Order order : orders) {
+            input.put(order);
+        }
+        return awaitOutcomes(ORDERS_PER_INVOCATION, rejectedBefore);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() throws InterruptedException {
+        long rejectedBefore = metrics.getRejected();
+        input.put(orders[0]);
+        return awaitOutcomes(1, rejectedBefore);
+    }
+
+    // Waits until every order fed in has either come out or been rejected.
+    private int awaitOutcomes(int expected, long rejectedBefore) {
+        int passed = 0;
+        while (passed + metrics.getRejected() - rejectedBefore < expected) {
+            if (output.poll() != null) {
+                passed++;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return passed;
+    }
+
+    private Runnable createStation() {
+        RealTimeClock clock = new RealTimeClock();
+        BatchSettings batchSettings = new BatchSettings(batch, 0);
+        ShutdownCoordinator<Order> shutdown = new ShutdownCoordinator<>(1, Order.POISON_PILL);
+        switch (station) {
+            case "picking":
+                return new PickingStation(input, output, new Semaphore(1), metrics, shutdown, journal, log, clock, batchSettings, RandomStream.forStage(42, Stage.PICKING), 0.05, 0);
+            case "packing":
+                return new PackingStation(input, output, metrics, shutdown, journal, log, clock, batchSettings, RandomStream.forStage(42, Stage.PACKING), 0.05, 0);
+            case "labelling":
+                return new LabellingStation(input, output, metrics, shutdown, journal, log, clock, batchSettings, RandomStream.forStage(42, Stage.LABELLING), 0.05, 0);
+            default:
+                throw new IllegalArgumentException("Unknown station: " + station);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.swiftcart.bench;
+
+import com.swiftcart.EventLog;
+import com.swiftcart.OrderJournal;
+import com.swiftcart.Simulation;
+import com.swiftcart.SimulationClock;
+import com.swiftcart.SimulationConfig;
+import com.swiftcart.SimulationResult;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of 1, 2, 4 and 8 warehouses behind one OrderRouter.
+ * Every run gives each warehouse the same N orders (default 20,000), all arriving at once, so the
+ * warehouses are saturated and the run measures their combined capacity in boxes per simulated
+ * minute; with nothing shared between warehouses but the intake this should grow with the warehouse
+ * count. Wall time shows what the discrete-event clock costs to drive that many threads; on a box
+ * with a core per warehouse it should stay about flat. Every run is seeded, but which worker takes
+ * which order still depends on thread scheduling, so expect a few percent of noise in the simulated rate.
+ * JMH measures wall time, not simulated time, so this is a plain main:
+ * java -cp benchmarks/target/benchmarks.jar com.swiftcart.bench.WarehouseScalingHarness [ordersPerWarehouse]
+ */
+public class WarehouseScalingHarness {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int ordersPerWarehouse = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        System.out.printf("%-10s %8s %14s %9s %9s%n", "warehouses", "orders", "boxes/min", "speedup", "wall ms");
+        double single = 0;
+        for (int warehouses : new int[] {1, 2, 4, 8}) {
+            long wallStart = System.nanoTime();
+            double rate = run(warehouses, warehouses * ordersPerWarehouse);
+            long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart);
+            if (warehouses == 1) {
+                single = rate;
+            }
+            System.out.printf("%-10d %8d %14.1f %8.2fx %9d%n", warehouses, warehouses * ordersPerWarehouse, rate, rate / single, wallMillis);
+        }
+    }
+
+    private static double run(int warehouses, int orders) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.warehouses", String.valueOf(warehouses));
+        properties.setProperty("swiftcart.source.orders", String.valueOf(orders));
+        properties.setProperty("swiftcart.source.arrivals", "max");
+        properties.setProperty("swiftcart.seed", "42");
+        SimulationClock clock = SimulationClock.forMode("discrete");
+        SimulationResult result = new Simulation(SimulationConfig.fromProperties(properties), clock, OrderJournal.disabled(), EventLog.disabled())
+            .run(null, false);
+        double minutes = result.getDurationMillis() / 60_000.0;
+        return result.getMetrics().getBoxesPacked() / minutes;
+    }
+}
@@ -0,0 +1,123 @@
+package com.swiftcart;
+
+import java.util.SplittableRandom;
+
+/**
+ * ArrivalProcess decides when the orders of a SyntheticOrderSource arrive.
+ * Chosen with -Dswiftcart.source.arrivals:
+ * fixed:G is one order every G ms (the original intake, fixed:500),
+ * poisson:G has exponentially distributed gaps with a mean of G ms,
+ * bursty:N,G,Q sends bursts of N orders G ms apart, separated by quiet gaps of Q ms on average,
+ * and max sends every order at once.
+ * A process is stateful and is only used by one source, under its lock.
+ */
+public abstract class ArrivalProcess {
+    private double now;
+    private boolean started;
+
+    /**
+     * Returns the arrival time of the next order, in ms from the start of the source.
+     */
+    final long next(SplittableRandom random) {
+        if (started) {
+            now += nextGap(random);
+        }
+        started = true;
+        return (long) now;
+    }
+
+    /**
+     * Returns the gap between the previous order and the next, in ms.
+     */
+    abstract double nextGap(SplittableRandom random);
+
+    public static ArrivalProcess forSpec(String spec) {
+        if (spec == null || spec.isEmpty()) {
+            return new Fixed(500);
+        }
+        int colon = spec.indexOf(':');
+        String kind = (colon < 0 ? spec : spec.substring(0, colon)).toLowerCase();
+        String[] args = colon < 0 ? new String[0] : spec.substring(colon + 1).split(",");
+        switch (kind) {
+            case "max":
+                return new Fixed(0);
+            case "fixed":
+                return new Fixed(argument(spec, args, 0));
+            case "poisson":
+                return new Poisson(argument(spec, args, 0));
+            case "bursty":
+                return new Bursty((int) argument(spec, args, 0), argument(spec, args, 1), argument(spec, args, 2));
+            default:
+                throw new IllegalArgumentException("Unknown arrival process: " + spec);
+        }
+    }
+
+    private static double argument(String spec, String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing argument " + (index + 1) + " of arrival process " + spec);
+        }
+        double value = Double.parseDouble(args[index].trim());
+        if (value < 0) {
+            throw new IllegalArgumentException("Arrival process arguments must not be negative: " + spec);
+        }
+        return value;
+    }
+
+    // Exponential gap with the given mean, by inversion
+    static double exponential(SplittableRandom random, double mean) {
+        return -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    private static final class Fixed extends ArrivalProcess {
+        private final double gap;
+
+        Fixed(double gap) {
+            this.gap = gap;
+        }
+
+        @Override
+        double nextGap(SplittableRandom random) {
+            return gap;
+        }
+    }
+
+    private static final class Poisson extends ArrivalProcess {
+        private final double meanGap;
+
+        Poisson(double meanGap) {
+            this.meanGap = meanGap;
+        }
+
+        @Override
+        double nextGap(SplittableRandom random) {
+            return exponential(random, meanGap);
+        }
+    }
+
+    private static final class Bursty extends ArrivalProcess {
+        private final int burstSize;
+        private final double gapInBurst;
+        private final double meanQuietGap;
+        private int sentInBurst;
+
+        Bursty(int burstSize, double gapInBurst, double meanQuietGap) {
+            if (burstSize < 1) {
+                throw new IllegalArgumentException("A burst needs at least one order: " + burstSize);
+            }
+            this.burstSize = burstSize;
+            this.gapInBurst = gapInBurst;
+            this.meanQuietGap = meanQuietGap;
+            this.sentInBurst = 1;
+        }
+
+        @Override
+        double nextGap(SplittableRandom random) {
+            if (sentInBurst < burstSize) {
+                sentInBurst++;
+                return gapInBurst;
+            }
+            sentInBurst = 1;
+            return exponential(random, meanQuietGap);
+        }
+    }
+}
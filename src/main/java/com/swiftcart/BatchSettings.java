@@ -0,0 +1,44 @@
+package com.swiftcart;
+
+import java.util.Properties;
+
+/**
+ * BatchSettings holds how many orders a station takes from its input queue at once,
+ * and how long it may wait for a batch to fill up once the first order has arrived.
+ * A size of 1 is the original one-order-at-a-time behaviour.
+ */
+public class BatchSettings {
+    public static final BatchSettings SINGLE = new BatchSettings(1, 0);
+
+    private final int size;
+    private final long maxLingerMillis;
+
+    public BatchSettings(int size, long maxLingerMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + size);
+        }
+        if (maxLingerMillis < 0) {
+            throw new IllegalArgumentException("Max linger must not be negative: " + maxLingerMillis);
+        }
+        this.size = size;
+        this.maxLingerMillis = maxLingerMillis;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getMaxLingerMillis() {
+        return maxLingerMillis;
+    }
+
+    /**
+     * Reads the settings of one station from swiftcart.batch.&lt;station&gt;=N
+     * and the shared swiftcart.batch.lingerMillis=M (default 0) in the given properties.
+     */
+    public static BatchSettings fromProperties(Properties properties, String station) {
+        int size = Integer.parseInt(properties.getProperty("swiftcart.batch." + station, "1"));
+        long linger = Long.parseLong(properties.getProperty("swiftcart.batch.lingerMillis", "0"));
+        return size == 1 && linger == 0 ? SINGLE : new BatchSettings(size, linger);
+    }
+}
@@ -0,0 +1,78 @@
+package com.swiftcart;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches holds the batched queue operations used by the stations in batch mode.
+ */
+final class Batches {
+
+    private Batches() {
+    }
+
+    /**
+     * Blocks for the first item and then drains up to settings.getSize() items in total.
+     * If the batch is not full it keeps collecting until the max linger time has passed.
+     * Collection stops as soon as the poison pill is seen, since nothing follows it.
+     */
+    static <E> void takeBatch(BlockingQueue<E> queue, List<E> batch, BatchSettings settings, E poisonPill,
+                              SimulationClock clock) throws InterruptedException {
+        collect(queue, queue.take(), batch, settings, poisonPill, clock);
+    }
+
+    /**
+     * Like takeBatch, but waits at most timeoutMillis for the first item and leaves the batch
+     * empty if none came.
+     */
+    static <E> void pollBatch(BlockingQueue<E> queue, List<E> batch, BatchSettings settings, E poisonPill,
+                              SimulationClock clock, long timeoutMillis) throws InterruptedException {
+        E first = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (first != null) {
+            collect(queue, first, batch, settings, poisonPill, clock);
+        }
+    }
+
+    private static <E> void collect(BlockingQueue<E> queue, E first, List<E> batch, BatchSettings settings, E poisonPill,
+                                    SimulationClock clock) throws InterruptedException {
+        int size = settings.getSize();
+        batch.add(first);
+        if (size == 1 || first == poisonPill) {
+            return;
+        }
+        queue.drainTo(batch, size - 1);
+        long deadline = clock.currentTimeMillis() + settings.getMaxLingerMillis();
+        while (batch.size() < size && batch.get(batch.size() - 1) != poisonPill) {
+            long remaining = deadline - clock.currentTimeMillis();
+            if (remaining <= 0) {
+                return;
+            }
+            E next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            if (next != poisonPill) {
+                queue.drainTo(batch, size - batch.size());
+            }
+        }
+    }
+
+    /**
+     * Forwards a whole batch, as one bulk operation when the queue supports it.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> void putAll(BlockingQueue<E> queue, List<? extends E> items) throws InterruptedException {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (items.size() > 1 && queue instanceof BulkQueue) {
+            ((BulkQueue<E>) queue).putAll(items);
+            return;
+        }
+        for (E item : items) {
+            queue.put(item);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.swiftcart;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BlockingQueueTransport is the original transport: every hop is a lock-based blocking queue
+ * created by the simulation clock (LinkedBlockingQueue or ArrayBlockingQueue in real time).
+ */
+public class BlockingQueueTransport implements Transport {
+    private final SimulationClock clock;
+
+    public BlockingQueueTransport(SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public <E> BlockingQueue<E> newQueue(int capacity, int producers, int consumers) {
+        return clock.newQueue(capacity);
+    }
+}
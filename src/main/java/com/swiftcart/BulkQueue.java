@@ -0,0 +1,15 @@
+package com.swiftcart;
+
+import java.util.List;
+
+/**
+ * BulkQueue is implemented by the queues that can accept a whole batch in one operation,
+ * publishing it with one synchronization instead of one per item.
+ */
+public interface BulkQueue<E> {
+
+    /**
+     * Puts every item in order, waiting for space where necessary.
+     */
+    void putAll(List<? extends E> items) throws InterruptedException;
+}
@@ -0,0 +1,21 @@
+package com.swiftcart;
+
+/**
+ * CompactEventFormatter writes one tab-separated line per event with a fixed column layout:
+ * time (simulation milliseconds), level, type, source, thread, id, count, label.
+ * It is meant for tools rather than people; empty values are written as "-".
+ */
+public class CompactEventFormatter implements EventFormatter {
+
+    @Override
+    public void format(EventRecord record, TextBuffer out) {
+        out.append(record.getTimeMillis()).append('\t')
+            .append(record.getType().getLevel().name()).append('\t')
+            .append(record.getType().name()).append('\t')
+            .append(record.getSource()).append('\t')
+            .append(record.getThread()).append('\t')
+            .append(record.getId()).append('\t')
+            .append(record.getCount()).append('\t')
+            .append(record.getLabel() != null ? record.getLabel() : "-");
+    }
+}
@@ -0,0 +1,74 @@
+package com.swiftcart;
+
+/**
+ * ConsoleEventFormatter writes the human-readable messages the stations have always printed,
+ * e.g. "PickingStation: Picking Order #12 (Thread: pool-1-thread-2)".
+ */
+public class ConsoleEventFormatter implements EventFormatter {
+
+    @Override
+    public void format(EventRecord record, TextBuffer out) {
+        out.append(record.getSource()).append(": ");
+        switch (record.getType()) {
+            case ORDER_CREATED:
+                out.append("Created Order #").append(record.getId()).append(" with zone ").append(record.getLabel()).append(' ');
+                break;
+            case ORDER_PROCESSED:
+                out.append(record.getLabel()).append(" Order #").append(record.getId()).append(' ');
+                break;
+            case ORDER_REJECTED:
+                out.append("Order #").append(record.getId()).append(" rejected. ");
+                break;
+            case BATCH_READY:
+                out.append("Batch of ").append(record.getCount()).append(" for zone ").append(record.getLabel()).append(" is ready. ");
+                break;
+            case CONTAINER_CREATED:
+                out.append("Created Container #").append(record.getId()).append(" with ").append(record.getCount()).append(" boxes. ");
+                break;
+            case FINAL_CONTAINER_CREATED:
+                out.append("Created final Container #").append(record.getId()).append(" with ").append(record.getCount()).append(" boxes. ");
+                break;
+            case CONTAINER_CLOSED_EARLY:
+                out.append("Closed Container #").append(record.getId()).append(" early with ").append(record.getCount()).append(" boxes to make a deadline. ");
+                break;
+            case CONTAINER_MOVING:
+                out.append("Moving Container #").append(record.getId()).append(" to Loading Bay ");
+                break;
+            case LOADER_BREAKDOWN:
+                out.append("Loader broke down! Sleeping for ").append(record.getCount()).append(" seconds. ");
+                break;
+            case CONTAINER_LOADING:
+                out.append("Loading Container #").append(record.getId()).append(" onto a truck. ");
+                break;
+            case TRUCK_ARRIVED:
+                out.append("Arrived at loading bay. ");
+                break;
+            case TRUCK_WAITING:
+                out.append("Waiting for a container. ");
+                break;
+            case TRUCK_LOADED:
+                out.append("Loaded Container #").append(record.getId()).append(". Total: ").append(record.getCount()).append('/').append(record.getLabel()).append(' ');
+                break;
+            case TRUCK_DEPARTED:
+                out.append("Full. Departing. ");
+                break;
+            case TRUCK_FORCE_DISPATCHED:
+                out.append("Force dispatched with ").append(record.getCount()).append(" containers");
+                if (record.getLabel() != null) {
+                    out.append(" (").append(record.getLabel()).append(')');
+                }
+                out.append(". ");
+                break;
+            case TRUCK_EMPTY:
+                out.append("Shutting down empty. ");
+                break;
+            case STAGE_SCALED:
+                out.append(record.getLabel()).append(" now has ").append(record.getId()).append(" workers, ")
+                    .append(record.getCount()).append(" orders queued. ");
+                break;
+            default:
+                out.append(record.getType().name()).append(' ');
+        }
+        out.append("(Thread: ").append(record.getThread()).append(')');
+    }
+}
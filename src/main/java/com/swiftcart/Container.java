@@ -4,17 +4,23 @@ import java.util.List;
 
 /**
  * Container class represents a container that holds a batch of orders.
- * It contains an ID to uniquely identify each container and a list of orders it holds.
+ * It contains an ID to uniquely identify each container within its run, handed out by the run's
+ * IdSequence, and a list of orders it holds.
  * A static POISON_PILL constant is used to signal the end of processing.
+ * Like orders, containers carry the time they entered the loading and truck stages.
+ * Containers built from pooled OrderBuffers hand the buffer back with recycle() once they have shipped.
  */
 public class Container {
-    public static final Container POISON_PILL = new Container(null);
-    private static int idCounter = 0;
+    public static final Container POISON_PILL = new Container(0, null);
     private final int id;
     private final List<Order> orders;
+    // Stage-entry timestamps, in SimulationClock.nanoTime(), indexed by Stage ordinal
+    private final long[] enteredAt = new long[Stage.COUNT];
+    // When the item was last handed to a queue, for measuring how long it waited there
+    private long enqueuedAt;
 
-    public Container(List<Order> orders) {
-        this.id = ++idCounter;
+    public Container(int id, List<Order> orders) {
+        this.id = id;
         this.orders = orders;
     }
 
@@ -25,4 +31,48 @@ public class Container {
     public List<Order> getOrders() {
         return orders;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the zone most of the boxes are going to, or null for a container without orders.
+     */
+    public Zone getMainZone() {
+        if (orders == null || orders.isEmpty()) {
+            return null;
+        }
+        int[] counts = new int[Zone.COUNT];
+        Zone main = null;
+        int best = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            Zone zone = orders.get(i).getRegionalZone();
+            int count = ++counts[zone.ordinal()];
+            if (count > best) {
+                best = count;
+                main = zone;
+            }
+        }
+        return main;
+    }
+
+    // Returns a pooled order buffer to its pool; the container must not be read afterwards.
+    public void recycle() {
+        if (orders instanceof OrderBuffer) {
+            ((OrderBuffer) orders).release();
+        }
+    }
+
+    public void markEntered(Stage stage, long nanos) {
+        enteredAt[stage.ordinal()] = nanos;
+    }
+
+    public long getEnteredAt(Stage stage) {
+        return enteredAt[stage.ordinal()];
+    }
+
+    public void markEnqueued(long nanos) {
+        enqueuedAt = nanos;
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+}
@@ -0,0 +1,93 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ContainerAssembler class combines the zone batches of the sorting shards into containers.
+ * It implements Runnable to allow it to run in a separate thread.
+ * Every batchesPerContainer complete batches (5 by default) become a Container. Incomplete batches only arrive on shutdown;
+ * once every shard has finished they are combined with any complete batches left over into a
+ * final Container, exactly as the single SortingArea does.
+ * The sorting time of every box runs from its shard taking it until its container is shipped.
+ * Every container is written to the OrderJournal before it is shipped.
+ */
+public class ContainerAssembler implements Runnable {
+    private final BlockingQueue<ZoneBatch> batchQueue;
+    private final BlockingQueue<Container> sortingQueue;
+    private final LongAdder containersShipped;
+    private final IdSequence containerIds;
+    private final int batchesPerContainer;
+    private final StageMetrics metrics;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+
+    public ContainerAssembler(BlockingQueue<ZoneBatch> batchQueue, BlockingQueue<Container> sortingQueue, LongAdder containersShipped,
+                              IdSequence containerIds, int batchesPerContainer, StageMetrics metrics, OrderJournal journal, EventLog log,
+                              SimulationClock clock) {
+        this.batchQueue = batchQueue;
+        this.sortingQueue = sortingQueue;
+        this.containersShipped = containersShipped;
+        this.containerIds = containerIds;
+        this.batchesPerContainer = batchesPerContainer;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run() {
+        List<List<Order>> readyBatches = new ArrayList<>();
+        List<List<Order>> incompleteBatches = new ArrayList<>();
+
+        try {
+            while (true) {
+                ZoneBatch batch = batchQueue.take();
+
+                if (batch == ZoneBatch.POISON_PILL) {
+                    readyBatches.addAll(incompleteBatches);
+                    List<Order> finalBoxes = new ArrayList<>();
+                    for (List<Order> readyBatch : readyBatches) {
+                        finalBoxes.addAll(readyBatch);
+                    }
+                    if (!finalBoxes.isEmpty()) {
+                        Container container = new Container(containerIds.next(), finalBoxes);
+                        log.log(EventType.FINAL_CONTAINER_CREATED, "ContainerAssembler", container.getId(), finalBoxes.size(), null);
+                        journal.containerSorted(container);
+                        metrics.packed(container, clock.nanoTime());
+                        sortingQueue.put(container);
+                        containersShipped.increment();
+                    }
+                    sortingQueue.put(Container.POISON_PILL);
+                    break;
+                }
+
+                if (!batch.isComplete()) {
+                    incompleteBatches.add(batch.getOrders());
+                    continue;
+                }
+
+                readyBatches.add(batch.getOrders());
+                if (readyBatches.size() == batchesPerContainer) {
+                    List<Order> containerBoxes = new ArrayList<>();
+                    for (List<Order> readyBatch : readyBatches) {
+                        containerBoxes.addAll(readyBatch);
+                    }
+                    Container container = new Container(containerIds.next(), containerBoxes);
+                    log.log(EventType.CONTAINER_CREATED, "ContainerAssembler", container.getId(), containerBoxes.size(), null);
+                    journal.containerSorted(container);
+                    metrics.packed(container, clock.nanoTime());
+                    sortingQueue.put(container);
+                    containersShipped.increment();
+                    readyBatches.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
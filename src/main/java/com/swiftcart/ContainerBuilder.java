@@ -0,0 +1,47 @@
+package com.swiftcart;
+
+/**
+ * ContainerBuilder holds the batching rules of the sorting area:
+ * boxes are grouped per regional zone into batches (of 6 by default), and a number of ready batches
+ * (5 by default) make a Container, numbered from the run's IdSequence.
+ * On shutdown every incomplete batch and every ready batch left over goes into one final Container.
+ * With deadline scheduling the sorting area can also close a zone's batch, and then the container,
+ * before they are full.
+ * The sorting area only moves orders in and containers out; logging stays with the caller.
+ */
+public interface ContainerBuilder {
+    int DEFAULT_BATCH_SIZE = 6;
+    int DEFAULT_BATCHES_PER_CONTAINER = 5;
+
+    /**
+     * Adds one box. Returns true when this box completed a batch for its zone.
+     */
+    boolean add(Order order);
+
+    /**
+     * Returns how many boxes of one zone make a batch.
+     */
+    int getBatchSize();
+
+    /**
+     * Returns the container completed by the last add, or null if there is none.
+     */
+    Container pollContainer();
+
+    /**
+     * Closes the incomplete batch of a zone as if it were full. Returns false if the zone has no boxes.
+     * Like add, it may complete a container, which pollContainer then returns.
+     */
+    boolean closeBatch(Zone zone);
+
+    /**
+     * Closes a container with the batches that are ready, or returns null if none are.
+     * Incomplete batches stay where they are.
+     */
+    Container closeContainer();
+
+    /**
+     * Empties the builder into a final container, or returns null if it holds no boxes.
+     */
+    Container flush();
+}
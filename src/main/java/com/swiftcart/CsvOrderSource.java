@@ -0,0 +1,71 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * CsvOrderSource streams orders from a CSV file with the columns id,zone[,arrivalMillis].
+ * A first line that does not start with a number is taken as a header and skipped,
+ * and the zone may be quoted.
+ */
+public class CsvOrderSource extends DelimitedOrderSource {
+
+    public CsvOrderSource(Path file, int firstOrderId, double speed) throws IOException {
+        super(file, firstOrderId, speed);
+    }
+
+    @Override
+    protected boolean parseLine(byte[] line, int start, int end, long lineNumber) {
+        if (lineNumber == 1 && isHeaderStart(line[start])) {
+            return false;
+        }
+        int idEnd = indexOf(line, ',', start, end);
+        if (idEnd < 0) {
+            throw malformed(lineNumber, "expected id,zone[,arrivalMillis]");
+        }
+        int zoneEnd = indexOf(line, ',', idEnd + 1, end);
+        try {
+            orderId = (int) parseLong(line, start, idEnd);
+            if (zoneEnd >= 0) {
+                arrivalMillis = parseLong(line, zoneEnd + 1, end);
+            } else {
+                zoneEnd = end;
+            }
+        } catch (NumberFormatException e) {
+            throw malformed(lineNumber, e.getMessage());
+        }
+        int zoneStart = idEnd + 1;
+        while (zoneStart < zoneEnd && line[zoneStart] == ' ') {
+            zoneStart++;
+        }
+        while (zoneEnd > zoneStart && line[zoneEnd - 1] == ' ') {
+            zoneEnd--;
+        }
+        if (zoneEnd - zoneStart >= 2 && line[zoneStart] == '"' && line[zoneEnd - 1] == '"') {
+            zoneStart++;
+            zoneEnd--;
+        }
+        if (zoneStart == zoneEnd) {
+            throw malformed(lineNumber, "missing zone");
+        }
+        zone = Zone.lookup(line, zoneStart, zoneEnd - zoneStart);
+        if (zone == null) {
+            throw malformed(lineNumber, "unknown zone");
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean isHeaderStart(byte first) {
+        return (first < '0' || first > '9') && first != '-' && first != ' ';
+    }
+
+    private static int indexOf(byte[] line, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (line[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
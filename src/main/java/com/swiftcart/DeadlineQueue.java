@@ -0,0 +1,224 @@
+package com.swiftcart;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DeadlineQueue is the order queue of deadline scheduling: take() hands out the order closest to
+ * its deadline first. Instead of one heap behind one lock, like PriorityBlockingQueue, the orders
+ * are kept in a fixed set of buckets by how much time they have left: due within 100 ms (or
+ * overdue), then 100-200 ms, 200-400 ms and so on, doubling up to about an hour, and a last bucket
+ * for orders without a deadline, such as the POISON_PILL, so that it still comes after every order.
+ * Each bucket is a lock-free ConcurrentLinkedQueue, first in first out, and a taker scans the
+ * buckets from the most urgent one, so puts and takes of different buckets never touch the same memory.
+ * Time left shrinks while an order waits, so every 100 ms one taker moves the orders that have
+ * crossed into a more urgent bucket down to it. An order that has waited is therefore served before
+ * one that came later with more time left, and the order is by deadline to within a factor of two
+ * of the time left, which is all scheduling needs.
+ * Two semaphores count the orders and the free places, so blocking and the capacity bound cost
+ * one CAS each when nothing has to wait.
+ * On the DiscreteEventClock a VirtualTimeQueue holds the buckets instead, and does the blocking.
+ */
+public class DeadlineQueue extends AbstractQueue<Order> implements BlockingQueue<Order> {
+    // Bucket 0 is due within the first span; bucket i < LAST covers [span * 2^(i-1), span * 2^i)
+    private static final long FIRST_SPAN_MILLIS = 100;
+    private static final int BUCKETS = 18;
+    private static final int LAST = BUCKETS - 1;
+
+    private final ConcurrentLinkedQueue<Order>[] buckets = newBuckets();
+    private final Semaphore orders = new Semaphore(0);
+    // Null for an unbounded queue
+    private final Semaphore space;
+    private final SimulationClock clock;
+    // When the buckets are next checked for orders that have become more urgent, and who does it
+    private volatile long nextRebucketMillis;
+    private final AtomicBoolean rebucketing = new AtomicBoolean();
+
+    /**
+     * Integer.MAX_VALUE stands for an unbounded queue, like SimulationClock.newQueue.
+     */
+    public DeadlineQueue(int capacity, SimulationClock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        this.space = capacity == Integer.MAX_VALUE ? null : new Semaphore(capacity);
+        this.clock = clock;
+    }
+
+    @Override
+    public void put(Order order) throws InterruptedException {
+        if (order == null) {
+            throw new NullPointerException();
+        }
+        if (space != null) {
+            space.acquire();
+        }
+        enqueue(order);
+    }
+
+    @Override
+    public boolean offer(Order order) {
+        if (order == null) {
+            throw new NullPointerException();
+        }
+        if (space != null && !space.tryAcquire()) {
+            return false;
+        }
+        enqueue(order);
+        return true;
+    }
+
+    @Override
+    public boolean offer(Order order, long timeout, TimeUnit unit) throws InterruptedException {
+        if (order == null) {
+            throw new NullPointerException();
+        }
+        if (space != null && !space.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        enqueue(order);
+        return true;
+    }
+
+    @Override
+    public Order take() throws InterruptedException {
+        orders.acquire();
+        return dequeue();
+    }
+
+    @Override
+    public Order poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return orders.tryAcquire(timeout, unit) ? dequeue() : null;
+    }
+
+    @Override
+    public Order poll() {
+        return orders.tryAcquire() ? dequeue() : null;
+    }
+
+    @Override
+    public Order peek() {
+        for (ConcurrentLinkedQueue<Order> bucket : buckets) {
+            Order order = bucket.peek();
+            if (order != null) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return orders.availablePermits();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return space == null ? Integer.MAX_VALUE : space.availablePermits();
+    }
+
+    @Override
+    public int drainTo(Collection<? super Order> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Order> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        while (n < maxElements && orders.tryAcquire()) {
+            c.add(dequeue());
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns a snapshot of the orders, most urgent bucket first.
+     */
+    @Override
+    public Iterator<Order> iterator() {
+        List<Order> snapshot = new ArrayList<>();
+        for (ConcurrentLinkedQueue<Order> bucket : buckets) {
+            snapshot.addAll(bucket);
+        }
+        return snapshot.iterator();
+    }
+
+    /**
+     * Returns the bucket of an order with the given deadline at the given time.
+     */
+    static int bucket(long deadlineMillis, long nowMillis) {
+        if (deadlineMillis == Order.NO_DEADLINE) {
+            return LAST;
+        }
+        long spans = (deadlineMillis - nowMillis) / FIRST_SPAN_MILLIS;
+        if (spans <= 0) {
+            return 0;
+        }
+        return Math.min(LAST - 1, 64 - Long.numberOfLeadingZeros(spans));
+    }
+
+    private void enqueue(Order order) {
+        buckets[bucket(order.getDeadlineMillis(), clock.currentTimeMillis())].offer(order);
+        orders.release();
+    }
+
+    // The caller holds a permit of orders, so one of the buckets has an order for it; a scan that
+    // loses every order it sees to other takers, or misses one being moved, goes round again
+    private Order dequeue() {
+        rebucketIfDue();
+        while (true) {
+            for (ConcurrentLinkedQueue<Order> bucket : buckets) {
+                Order order = bucket.poll();
+                if (order != null) {
+                    if (space != null) {
+                        space.release();
+                    }
+                    return order;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void rebucketIfDue() {
+        long now = clock.currentTimeMillis();
+        if (now < nextRebucketMillis || !rebucketing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (int i = 1; i < LAST; i++) {
+                for (Order order : buckets[i]) {
+                    int target = bucket(order.getDeadlineMillis(), now);
+                    // Only the one who removes the order moves it, so a taker that got it first keeps it
+                    if (target < i && buckets[i].remove(order)) {
+                        buckets[target].offer(order);
+                    }
+                }
+            }
+            nextRebucketMillis = now + FIRST_SPAN_MILLIS;
+        } finally {
+            rebucketing.set(false);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ConcurrentLinkedQueue<Order>[] newBuckets() {
+        ConcurrentLinkedQueue<Order>[] buckets = new ConcurrentLinkedQueue[BUCKETS];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        return buckets;
+    }
+}
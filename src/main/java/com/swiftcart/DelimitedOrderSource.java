@@ -0,0 +1,201 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * DelimitedOrderSource streams orders from a text file with one order per line.
+ * The file is read through a FileChannel into one reusable buffer and every line is parsed
+ * in place from its bytes, so a file of any size is read in constant memory; the only
+ * allocation per order is the Order itself (zones are looked up as Zone constants).
+ * Arrival times are taken relative to the first order read and divided by the speed factor;
+ * lines without one arrive as soon as the intake queue has room.
+ * Subclasses only parse a line: CsvOrderSource and NdjsonOrderSource.
+ */
+public abstract class DelimitedOrderSource implements OrderSource {
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int firstOrderId;
+    private final double speed;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int lineStart;
+    private long lineNumber;
+    private boolean endOfFile;
+    private long firstArrival = -1;
+    private int totalOrders = -1;
+
+    // Parse results of the current line, filled in by parseLine
+    protected int orderId;
+    protected Zone zone;
+    protected long arrivalMillis;
+
+    protected DelimitedOrderSource(Path file, int firstOrderId, double speed) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.firstOrderId = firstOrderId;
+        this.speed = speed;
+        buffer.limit(0);
+    }
+
+    /**
+     * Parses one line, without its line terminator, into orderId, zone and arrivalMillis
+     * (-1 if the line has no arrival time). Returns false for a line that holds no order,
+     * such as a header. Throws IllegalArgumentException for a malformed line.
+     */
+    protected abstract boolean parseLine(byte[] line, int start, int end, long lineNumber);
+
+    @Override
+    public synchronized boolean next(OrderArrival arrival) throws IOException {
+        while (true) {
+            int end = nextLineEnd();
+            if (end < 0) {
+                return false;
+            }
+            int start = lineStart;
+            lineStart = end + 1;
+            lineNumber++;
+            int trimmed = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+            if (trimmed == start) {
+                continue;
+            }
+            arrivalMillis = -1;
+            if (!parseLine(bytes, start, trimmed, lineNumber) || orderId < firstOrderId) {
+                continue;
+            }
+            arrival.set(new Order(orderId, zone), scaledArrival());
+            return true;
+        }
+    }
+
+    private long scaledArrival() {
+        if (arrivalMillis < 0 || speed == Double.POSITIVE_INFINITY) {
+            return 0;
+        }
+        if (firstArrival < 0) {
+            firstArrival = arrivalMillis;
+        }
+        return Math.max(0, Math.round((arrivalMillis - firstArrival) / speed));
+    }
+
+    // Returns the index of the next '\n' (or of the end of the last line), refilling the buffer as needed, or -1 at the end
+    private int nextLineEnd() throws IOException {
+        while (true) {
+            for (int i = lineStart; i < buffer.limit(); i++) {
+                if (bytes[i] == '\n') {
+                    return i;
+                }
+            }
+            if (endOfFile) {
+                if (lineStart < buffer.limit()) {
+                    // The last line has no terminator
+                    return buffer.limit();
+                }
+                return -1;
+            }
+            // Move the partial line to the front and read more behind it
+            int remaining = buffer.limit() - lineStart;
+            if (remaining == BUFFER_SIZE) {
+                throw new IllegalArgumentException(file + ":" + (lineNumber + 1) + ": line longer than " + BUFFER_SIZE + " bytes");
+            }
+            System.arraycopy(bytes, lineStart, bytes, 0, remaining);
+            lineStart = 0;
+            buffer.limit(BUFFER_SIZE).position(remaining);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    endOfFile = true;
+                    break;
+                }
+            }
+            buffer.limit(buffer.position());
+        }
+    }
+
+    /**
+     * Counts the orders in the file with a separate pass over it, so the run can size its trucks.
+     * Every non-empty line after the first counts; the first counts unless it is a header.
+     */
+    @Override
+    public synchronized int getTotalOrders() throws IOException {
+        if (totalOrders >= 0) {
+            return totalOrders;
+        }
+        try (FileChannel counter = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long lines = 0;
+            boolean inLine = false;
+            boolean firstLine = true;
+            boolean firstLineIsHeader = false;
+            while (counter.read(chunk) >= 0) {
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    byte b = chunk.get();
+                    if (b == '\n') {
+                        if (inLine) {
+                            lines++;
+                        }
+                        inLine = false;
+                        firstLine = false;
+                    } else if (b != '\r') {
+                        if (!inLine && firstLine) {
+                            firstLineIsHeader = isHeaderStart(b);
+                        }
+                        inLine = true;
+                    }
+                }
+                chunk.clear();
+            }
+            if (inLine) {
+                lines++;
+            }
+            totalOrders = (int) Math.min(Integer.MAX_VALUE, lines - (firstLineIsHeader ? 1 : 0));
+        }
+        return totalOrders;
+    }
+
+    /**
+     * Returns true if a first line starting with this byte is a header rather than an order.
+     */
+    protected abstract boolean isHeaderStart(byte first);
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    protected IllegalArgumentException malformed(long lineNumber, String problem) {
+        return new IllegalArgumentException(file + ":" + lineNumber + ": " + problem);
+    }
+
+    /**
+     * Parses a decimal number from bytes[start, end), allowing surrounding spaces.
+     */
+    protected static long parseLong(byte[] bytes, int start, int end) {
+        while (start < end && bytes[start] == ' ') {
+            start++;
+        }
+        while (end > start && bytes[end - 1] == ' ') {
+            end--;
+        }
+        boolean negative = start < end && bytes[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Empty number");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number: " + new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,25 @@
+package com.swiftcart;
+
+/**
+ * DepartureReason says why the DispatchScheduler sent a truck off.
+ */
+public enum DepartureReason {
+    /** The truck was filled to its capacity. */
+    FULL("full"),
+    /** Its first container had been on board for the max dwell time. */
+    MAX_DWELL("max dwell"),
+    /** It could not have filled up before its max-dwell deadline at the current container rate. */
+    EARLY("early"),
+    /** No more containers were coming. */
+    SHUTDOWN("shutdown");
+
+    private final String label;
+
+    DepartureReason(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,162 @@
+package com.swiftcart;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DiscreteEventClock runs the simulation on a virtual timeline instead of the wall clock.
+ * Every timed wait (a station sleeping, or a timed poll/offer on one of its queues) is
+ * stored as a timestamped event in a priority queue. Virtual time only moves forward when
+ * no station can make progress any more: every participant is either sleeping or blocked
+ * on one of the clock's queues. At that point the earliest event fires, time jumps to its
+ * timestamp and the waiting station continues.
+ * Because nothing really sleeps, a full run finishes in a fraction of a second while all
+ * timestamps, durations and rates are reported in simulated time.
+ * All bookkeeping is guarded by a single monitor, which is also shared by the queues and semaphores.
+ */
+public class DiscreteEventClock implements SimulationClock {
+    static final long NO_DEADLINE = -1L;
+
+    final Object lock = new Object();
+    private final PriorityQueue<Waiter> timeline = new PriorityQueue<>(
+        Comparator.comparingLong((Waiter w) -> w.wakeTime).thenComparingLong(w -> w.sequence));
+    private long now;
+    private long sequence;
+    // Participants that can make progress without time moving forward.
+    // Starts at one so that time stays still while the pipeline is being built.
+    private int runnable = 1;
+
+    @Override
+    public long currentTimeMillis() {
+        synchronized (lock) {
+            return now;
+        }
+    }
+
+    @Override
+    public long nanoTime() {
+        return TimeUnit.MILLISECONDS.toNanos(currentTimeMillis());
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        synchronized (lock) {
+            park(newWaiter(now + Math.max(0, millis)));
+        }
+    }
+
+    @Override
+    public <E> BlockingQueue<E> newQueue(int capacity) {
+        return new VirtualTimeQueue<>(this, capacity);
+    }
+
+    @Override
+    public BlockingQueue<Order> newDeadlineQueue(int capacity) {
+        return new VirtualTimeQueue<>(this, capacity, new DeadlineQueue(Integer.MAX_VALUE, this));
+    }
+
+    @Override
+    public Semaphore newSemaphore(int permits) {
+        return new VirtualTimeSemaphore(this, permits);
+    }
+
+    @Override
+    public Runnable participant(Runnable task) {
+        synchronized (lock) {
+            runnable++;
+        }
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                synchronized (lock) {
+                    runnable--;
+                    advanceIfIdle();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void start() {
+        synchronized (lock) {
+            runnable--;
+            advanceIfIdle();
+        }
+    }
+
+    // Creates a waiter that times out at the given simulation time, or never for NO_DEADLINE.
+    // Must be called while holding the lock.
+    Waiter newWaiter(long wakeTime) {
+        return new Waiter(wakeTime, sequence++);
+    }
+
+    // Blocks the calling participant until the waiter is signalled or its deadline fires.
+    // Must be called while holding the lock.
+    void park(Waiter waiter) throws InterruptedException {
+        runnable--;
+        if (waiter.wakeTime != NO_DEADLINE) {
+            timeline.add(waiter);
+        }
+        advanceIfIdle();
+        try {
+            while (!waiter.signalled) {
+                lock.wait();
+            }
+        } catch (InterruptedException e) {
+            if (!waiter.signalled) {
+                timeline.remove(waiter);
+                waiter.signalled = true;
+                runnable++;
+            }
+            throw e;
+        }
+    }
+
+    // Wakes a parked participant. Returns false if it had already been woken by its deadline.
+    // Must be called while holding the lock.
+    boolean signal(Waiter waiter) {
+        if (waiter.signalled) {
+            return false;
+        }
+        if (waiter.wakeTime != NO_DEADLINE) {
+            timeline.remove(waiter);
+        }
+        waiter.signalled = true;
+        runnable++;
+        lock.notifyAll();
+        return true;
+    }
+
+    long now() {
+        return now;
+    }
+
+    // Fires the earliest event once nobody can make progress at the current time.
+    private void advanceIfIdle() {
+        if (runnable == 0 && !timeline.isEmpty()) {
+            Waiter next = timeline.poll();
+            now = Math.max(now, next.wakeTime);
+            next.signalled = true;
+            runnable++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * A participant parked on the clock, optionally with a wake-up time.
+     */
+    static final class Waiter {
+        final long wakeTime;
+        final long sequence;
+        boolean signalled;
+
+        Waiter(long wakeTime, long sequence) {
+            this.wakeTime = wakeTime;
+            this.sequence = sequence;
+        }
+    }
+}
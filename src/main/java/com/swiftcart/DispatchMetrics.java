@@ -0,0 +1,152 @@
+package com.swiftcart;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DispatchMetrics collects what the DispatchScheduler's trucks did: how many left and why,
+ * how full they were, and how long they waited for their first container.
+ * Together with the truck stage's service time (how long each container sat on its truck)
+ * this shows what a max dwell or early departure setting trades between latency and fill rate.
+ * The departures and their waits are also counted per second of their departure, for the sliding
+ * windows of a streaming run.
+ * For every order that leaves it records the order-to-truck time, from its intake to its truck's
+ * departure, in total and per priority, and whether it left after its deadline.
+ */
+public class DispatchMetrics {
+    private final LongAdder trucksDispatched;
+    // The capacity of the trucks that left, in containers
+    private final LongAdder truckCapacity = new LongAdder();
+    private final LongAdder containersDispatched = new LongAdder();
+    private final Map<DepartureReason, LongAdder> departures = new EnumMap<>(DepartureReason.class);
+    // Truck wait for the first container, in ms of simulation time
+    private final LatencyHistogram truckWait = new LatencyHistogram();
+    private final LongAccumulator minTruckWait = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final RollingCounter departuresWindow = new RollingCounter();
+    private final RollingCounter truckWaitWindow = new RollingCounter();
+    // Order to truck, in ns of simulation time
+    private final LatencyHistogram orderToTruck = new LatencyHistogram();
+    private final Map<OrderPriority, LatencyHistogram> orderToTruckByPriority = new EnumMap<>(OrderPriority.class);
+    private final Map<OrderPriority, LongAdder> deadlinesMissed = new EnumMap<>(OrderPriority.class);
+
+    public DispatchMetrics(LongAdder trucksDispatched) {
+        this.trucksDispatched = trucksDispatched;
+        for (DepartureReason reason : DepartureReason.values()) {
+            departures.put(reason, new LongAdder());
+        }
+        for (OrderPriority priority : OrderPriority.values()) {
+            orderToTruckByPriority.put(priority, new LatencyHistogram());
+            deadlinesMissed.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a truck that left with the given number of containers. Empty trucks are not counted.
+     */
+    public void truckDeparted(Truck truck, DepartureReason reason, int containers) {
+        if (containers == 0) {
+            return;
+        }
+        trucksDispatched.increment();
+        truckCapacity.add(truck.getCapacity());
+        containersDispatched.add(containers);
+        departures.get(reason).increment();
+        long wait = truck.getWaitTime();
+        departuresWindow.add(truck.getDepartedAt(), 1);
+        truckWaitWindow.add(truck.getDepartedAt(), wait);
+        if (wait > 0) {
+            truckWait.record(wait);
+            minTruckWait.accumulate(wait);
+        }
+    }
+
+    /**
+     * Records an order leaving on a truck, at the given clock.nanoTime() and clock.currentTimeMillis().
+     */
+    public void orderDeparted(Order order, long departedNanos, long departedMillis) {
+        long time = departedNanos - order.getEnteredAt(Stage.INTAKE);
+        orderToTruck.record(time);
+        orderToTruckByPriority.get(order.getPriority()).record(time);
+        if (departedMillis > order.getDeadlineMillis()) {
+            deadlinesMissed.get(order.getPriority()).increment();
+        }
+    }
+
+    /**
+     * Adds the departures of another fleet to this one. The trucks dispatched counter is
+     * owned by the SimulationMetrics and is added there.
+     */
+    void add(DispatchMetrics other) {
+        truckCapacity.add(other.truckCapacity.sum());
+        containersDispatched.add(other.containersDispatched.sum());
+        for (DepartureReason reason : DepartureReason.values()) {
+            departures.get(reason).add(other.getDepartures(reason));
+        }
+        truckWait.add(other.truckWait);
+        orderToTruck.add(other.orderToTruck);
+        for (OrderPriority priority : OrderPriority.values()) {
+            orderToTruckByPriority.get(priority).add(other.orderToTruckByPriority.get(priority));
+            deadlinesMissed.get(priority).add(other.getDeadlinesMissed(priority));
+        }
+        minTruckWait.accumulate(other.minTruckWait.get());
+    }
+
+    public long getContainersDispatched() {
+        return containersDispatched.sum();
+    }
+
+    public long getDepartures(DepartureReason reason) {
+        return departures.get(reason).sum();
+    }
+
+    /**
+     * Returns the mean fill of the trucks that left, as a fraction of their capacity.
+     */
+    public double getUtilisation() {
+        long capacity = truckCapacity.sum();
+        return capacity == 0 ? 0.0 : (double) containersDispatched.sum() / capacity;
+    }
+
+    public LatencyHistogram getTruckWait() {
+        return truckWait;
+    }
+
+    /**
+     * Returns the time from intake to the truck's departure of every order that left, in ns.
+     */
+    public LatencyHistogram getOrderToTruck() {
+        return orderToTruck;
+    }
+
+    public LatencyHistogram getOrderToTruck(OrderPriority priority) {
+        return orderToTruckByPriority.get(priority);
+    }
+
+    /**
+     * Returns how many orders of the given priority left on a truck after their deadline.
+     */
+    public long getDeadlinesMissed(OrderPriority priority) {
+        return deadlinesMissed.get(priority).sum();
+    }
+
+    public RollingCounter getDeparturesWindow() {
+        return departuresWindow;
+    }
+
+    /**
+     * Returns the truck waits in ms, counted in the second each truck left.
+     */
+    public RollingCounter getTruckWaitWindow() {
+        return truckWaitWindow;
+    }
+
+    /**
+     * Returns the shortest truck wait in ms, or 0 if no truck has waited yet.
+     */
+    public long getMinTruckWait() {
+        long min = minTruckWait.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+}
@@ -0,0 +1,61 @@
+package com.swiftcart;
+
+import java.util.List;
+
+/**
+ * DispatchPolicy decides which of the open trucks a container is loaded onto.
+ * LEAST_FULL spreads the containers evenly, so the open trucks fill up together.
+ * BY_ZONE keeps each truck to one zone where it can: a container goes to a truck whose first
+ * container had the same main zone, then to an empty truck, and only then to the least full one.
+ */
+public enum DispatchPolicy {
+    LEAST_FULL {
+        @Override
+        Truck choose(List<Truck> openTrucks, Container container) {
+            return leastFull(openTrucks);
+        }
+    },
+    BY_ZONE {
+        @Override
+        Truck choose(List<Truck> openTrucks, Container container) {
+            Zone zone = container.getMainZone();
+            Truck empty = null;
+            for (Truck truck : openTrucks) {
+                if (truck.size() == 0) {
+                    if (empty == null) {
+                        empty = truck;
+                    }
+                } else if (zone != null && truck.getZone() == zone) {
+                    return truck;
+                }
+            }
+            return empty != null ? empty : leastFull(openTrucks);
+        }
+    };
+
+    /**
+     * Picks the truck for a container. The list holds at least one truck and none of them is full.
+     */
+    abstract Truck choose(List<Truck> openTrucks, Container container);
+
+    public static DispatchPolicy forName(String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("least-full")) {
+            return LEAST_FULL;
+        }
+        if (name.equalsIgnoreCase("zone")) {
+            return BY_ZONE;
+        }
+        throw new IllegalArgumentException("Unknown dispatch policy: " + name + " (expected least-full or zone)");
+    }
+
+    // Ties go to the truck that has been open longest, which is the first in the list
+    private static Truck leastFull(List<Truck> openTrucks) {
+        Truck best = openTrucks.get(0);
+        for (Truck truck : openTrucks) {
+            if (truck.size() < best.size()) {
+                best = truck;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,141 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DispatchScheduler class simulates the yard that runs the truck fleet at the loading bays.
+ * It implements Runnable to allow it to run in a separate thread, in place of one thread per truck.
+ * A fixed number of trucks stand open at the bays. Every container that comes off the loading
+ * queue goes to one of them, chosen by the DispatchPolicy, and a new truck pulls in as soon as
+ * one leaves, so the fleet is as large as the run needs and nothing depends on knowing the
+ * number of orders up front.
+ * A truck leaves when it is full, when its first container has been on board for the max dwell
+ * time, or early: once it is at least the early-departure fill, it leaves as soon as the current
+ * container rate (an exponentially weighted average of the gaps between containers, shared out
+ * over the open trucks) says it cannot fill up before its deadline. Between containers the
+ * scheduler waits on the queue only until the next such deadline.
+ * The poison pill sends off every open truck that holds containers.
+ */
+public class DispatchScheduler implements Runnable {
+    private static final double RATE_WEIGHT = 0.2;
+
+    private final BlockingQueue<Container> loadingQueue;
+    private final DispatchSettings settings;
+    private final IdSequence truckIds;
+    private final StageMetrics truckMetrics;
+    private final DispatchMetrics metrics;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+    private final List<Truck> openTrucks;
+    private final int earlyMinimum;
+    private long lastArrival = -1;
+    // Mean gap between containers in ms; 0 until two have arrived
+    private double meanGap;
+
+    public DispatchScheduler(BlockingQueue<Container> loadingQueue, DispatchSettings settings, IdSequence truckIds, StageMetrics truckMetrics,
+                             DispatchMetrics metrics, OrderJournal journal, EventLog log, SimulationClock clock) {
+        this.loadingQueue = loadingQueue;
+        this.settings = settings;
+        this.truckIds = truckIds;
+        this.truckMetrics = truckMetrics;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.openTrucks = new ArrayList<>(settings.getOpenTrucks());
+        this.earlyMinimum = settings.getEarlyFill() > 0 ? Math.max(1, (int) Math.ceil(settings.getEarlyFill() * settings.getTruckCapacity())) : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < settings.getOpenTrucks(); i++) {
+            openTrucks.add(newTruck());
+        }
+        try {
+            while (true) {
+                long now = clock.currentTimeMillis();
+                long wakeAt = departDue(now);
+                Container container = wakeAt == Long.MAX_VALUE
+                    ? loadingQueue.take()
+                    : loadingQueue.poll(wakeAt - now, TimeUnit.MILLISECONDS);
+                if (container == null) {
+                    continue;
+                }
+                if (container == Container.POISON_PILL) {
+                    break;
+                }
+                recordArrival(clock.currentTimeMillis());
+                Truck truck = settings.getPolicy().choose(openTrucks, container);
+                truck.load(container);
+                if (truck.isFull()) {
+                    replace(truck, DepartureReason.FULL);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Truck truck : openTrucks) {
+                metrics.truckDeparted(truck, DepartureReason.SHUTDOWN, truck.depart(DepartureReason.SHUTDOWN));
+            }
+            openTrucks.clear();
+        }
+    }
+
+    /**
+     * Sends off every truck whose deadline has passed, and returns when the next one falls due
+     * (Long.MAX_VALUE if none will without another container).
+     */
+    private long departDue(long now) {
+        long wakeAt = Long.MAX_VALUE;
+        for (int i = 0; i < openTrucks.size(); i++) {
+            Truck truck = openTrucks.get(i);
+            if (truck.size() == 0 || settings.getMaxDwellMillis() == 0) {
+                continue;
+            }
+            long deadline = truck.getFirstContainerTime() + settings.getMaxDwellMillis();
+            if (deadline <= now) {
+                replace(truck, DepartureReason.MAX_DWELL);
+                continue;
+            }
+            long early = earlyDeparture(truck, deadline);
+            if (early <= now) {
+                replace(truck, DepartureReason.EARLY);
+                continue;
+            }
+            wakeAt = Math.min(wakeAt, Math.min(deadline, early));
+        }
+        return wakeAt;
+    }
+
+    // The time after which the truck can no longer fill up before its deadline, or Long.MAX_VALUE
+    private long earlyDeparture(Truck truck, long deadline) {
+        if (truck.size() < earlyMinimum || meanGap <= 0) {
+            return Long.MAX_VALUE;
+        }
+        // Each open truck gets about one in every openTrucks containers
+        double millisToFill = (truck.getCapacity() - truck.size()) * meanGap * openTrucks.size();
+        return deadline - (long) Math.ceil(millisToFill);
+    }
+
+    private void recordArrival(long now) {
+        if (lastArrival >= 0) {
+            long gap = now - lastArrival;
+            meanGap = meanGap == 0 ? gap : (1 - RATE_WEIGHT) * meanGap + RATE_WEIGHT * gap;
+        }
+        lastArrival = now;
+    }
+
+    // Sends a truck off and lets the next one into its bay
+    private void replace(Truck truck, DepartureReason reason) {
+        metrics.truckDeparted(truck, reason, truck.depart(reason));
+        openTrucks.set(openTrucks.indexOf(truck), newTruck());
+    }
+
+    private Truck newTruck() {
+        return new Truck(truckIds.next(), settings.getTruckCapacity(), truckMetrics, metrics, journal, log, clock);
+    }
+}
@@ -0,0 +1,83 @@
+package com.swiftcart;
+
+import java.util.Properties;
+
+/**
+ * DispatchSettings holds how the DispatchScheduler runs the truck fleet: how many trucks stand
+ * at the loading bays at once, how many containers each one holds, which DispatchPolicy spreads the containers over them, the max
+ * dwell time after which a truck leaves however full it is, and the fill level from which a
+ * truck may leave early because it could not fill up before that deadline anyway.
+ * A max dwell of 0 means trucks only leave full (or at the end of the run), which is the
+ * original behaviour; early departure needs a max dwell to measure "in time" against.
+ */
+public class DispatchSettings {
+    private final int openTrucks;
+    private final int truckCapacity;
+    private final DispatchPolicy policy;
+    private final long maxDwellMillis;
+    private final double earlyFill;
+
+    public DispatchSettings(int openTrucks, int truckCapacity, DispatchPolicy policy, long maxDwellMillis, double earlyFill) {
+        if (openTrucks < 1) {
+            throw new IllegalArgumentException("At least one truck must be open: " + openTrucks);
+        }
+        if (truckCapacity < 1) {
+            throw new IllegalArgumentException("A truck must hold at least one container: " + truckCapacity);
+        }
+        if (maxDwellMillis < 0) {
+            throw new IllegalArgumentException("Max dwell must not be negative: " + maxDwellMillis);
+        }
+        if (earlyFill < 0 || earlyFill > 1) {
+            throw new IllegalArgumentException("Early departure fill must be between 0 and 1: " + earlyFill);
+        }
+        if (earlyFill > 0 && maxDwellMillis == 0) {
+            throw new IllegalArgumentException("Early departure needs a max dwell time");
+        }
+        this.openTrucks = openTrucks;
+        this.truckCapacity = truckCapacity;
+        this.policy = policy;
+        this.maxDwellMillis = maxDwellMillis;
+        this.earlyFill = earlyFill;
+    }
+
+    public int getOpenTrucks() {
+        return openTrucks;
+    }
+
+    public int getTruckCapacity() {
+        return truckCapacity;
+    }
+
+    public DispatchPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns how long a truck may hold its first container before it must leave, 0 for no limit.
+     */
+    public long getMaxDwellMillis() {
+        return maxDwellMillis;
+    }
+
+    /**
+     * Returns the fraction of its capacity a truck must hold before it may leave early, 0 for never.
+     */
+    public double getEarlyFill() {
+        return earlyFill;
+    }
+
+    /**
+     * Reads swiftcart.dispatch.openTrucks=N (default one per loading bay), swiftcart.truck.capacity=N
+     * (default 18), swiftcart.dispatch.policy=least-full|zone, swiftcart.dispatch.maxDwellMillis=M
+     * (default 0) and swiftcart.dispatch.earlyFill=F (default 0) from the given properties.
+     */
+    public static DispatchSettings fromProperties(Properties properties, int loadingBays) {
+        String earlyFill = properties.getProperty("swiftcart.dispatch.earlyFill");
+        return new DispatchSettings(
+            Integer.parseInt(properties.getProperty("swiftcart.dispatch.openTrucks", String.valueOf(loadingBays))),
+            Integer.parseInt(properties.getProperty("swiftcart.truck.capacity", String.valueOf(Truck.DEFAULT_CAPACITY))),
+            DispatchPolicy.forName(properties.getProperty("swiftcart.dispatch.policy")),
+            Long.parseLong(properties.getProperty("swiftcart.dispatch.maxDwellMillis", "0")),
+            earlyFill == null ? 0.0 : Double.parseDouble(earlyFill));
+    }
+}
@@ -0,0 +1,29 @@
+package com.swiftcart;
+
+/**
+ * EventFormatter turns an EventRecord into one line of text.
+ * Formatters run on the EventLog's writer thread and append to its reused TextBuffer.
+ */
+public interface EventFormatter {
+
+    /** Name of the system property used to choose the formatter. */
+    String PROPERTY = "swiftcart.log.format";
+
+    /**
+     * Appends the record, without a line separator.
+     */
+    void format(EventRecord record, TextBuffer out);
+
+    /**
+     * Returns the formatter for the given name: "console" (the default) or "compact".
+     */
+    static EventFormatter forName(String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("console")) {
+            return new ConsoleEventFormatter();
+        }
+        if (name.equalsIgnoreCase("compact")) {
+            return new CompactEventFormatter();
+        }
+        throw new IllegalArgumentException("Unknown log format: " + name);
+    }
+}
@@ -0,0 +1,258 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EventLog is the structured, asynchronous replacement for the stations' System.out.println calls.
+ * A station logs an event by claiming a preallocated EventRecord in a lock-free ring buffer and
+ * copying a few values into it: no string is built and no lock is taken on the hot path.
+ * One background writer thread drains the ring, formats the records with an EventFormatter
+ * straight into one reused TextBuffer as UTF-8 and writes it to the output channel in batches,
+ * and whenever it runs out of events, so formatting and writing allocate nothing either.
+ * Events below the configured LogLevel are dropped before they reach the ring.
+ * If the writer falls a full ring behind, stations wait for a free slot, so no event is lost.
+ * If the output fails, the writer keeps freeing slots and drops the events, and log() returns
+ * at once from then on, so a broken log never holds up the stations.
+ * Configured with -Dswiftcart.log.level, -Dswiftcart.log.format and -Dswiftcart.log.file.
+ */
+public class EventLog implements AutoCloseable {
+    /** Name of the system property naming a file to log to instead of stdout. */
+    public static final String FILE_PROPERTY = "swiftcart.log.file";
+
+    private static final int RING_CAPACITY = 1 << 14;
+    private static final int WRITE_BATCH_BYTES = 1 << 16;
+    // The writer polls briefly after running dry, then backs off to millisecond parks
+    private static final int WRITER_POLLS = 1_000;
+    private static final long WRITER_PARK_NANOS = 1_000_000L;
+
+    private final LogLevel level;
+    private final SimulationClock clock;
+    private final EventFormatter formatter;
+    private final WritableByteChannel output;
+    private final boolean closeOutput;
+
+    // Ring of preallocated records; sequences[i] == position means slot i is free for that position,
+    // position + 1 means the record for that position has been published.
+    private final EventRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean failed;
+
+    public EventLog(LogLevel level, SimulationClock clock, EventFormatter formatter, WritableByteChannel output, boolean closeOutput) {
+        this.level = level;
+        this.clock = clock;
+        this.formatter = formatter;
+        this.output = output;
+        this.closeOutput = closeOutput;
+        this.slots = new EventRecord[RING_CAPACITY];
+        this.sequences = new AtomicLongArray(RING_CAPACITY);
+        this.mask = RING_CAPACITY - 1;
+        for (int i = 0; i < RING_CAPACITY; i++) {
+            slots[i] = new EventRecord();
+            sequences.set(i, i);
+        }
+        if (level == LogLevel.OFF) {
+            this.writer = null;
+        } else {
+            this.writer = new Thread(this::drainLoop, "event-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Creates the log described by the system properties, writing to stdout unless a file is given.
+     */
+    public static EventLog fromSystemProperties(SimulationClock clock) {
+        LogLevel level = LogLevel.forName(System.getProperty(LogLevel.PROPERTY));
+        EventFormatter formatter = EventFormatter.forName(System.getProperty(EventFormatter.PROPERTY));
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || file.isEmpty()) {
+            return toStream(level, clock, formatter, System.out);
+        }
+        try {
+            return new EventLog(level, clock, formatter, FileChannel.open(Paths.get(file),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the event log file " + file, e);
+        }
+    }
+
+    /**
+     * Creates a log that writes to the given stream, which is flushed but never closed.
+     */
+    public static EventLog toStream(LogLevel level, SimulationClock clock, EventFormatter formatter, PrintStream stream) {
+        return new EventLog(level, clock, formatter, new StreamChannel(stream), false);
+    }
+
+    /**
+     * Creates a log that drops every event, e.g. for benchmarks.
+     */
+    public static EventLog disabled() {
+        return new EventLog(LogLevel.OFF, null, null, Channels.newChannel(OutputStream.nullOutputStream()), false);
+    }
+
+    public boolean isEnabled(LogLevel eventLevel) {
+        return eventLevel.compareTo(level) <= 0;
+    }
+
+    public void log(EventType type, String source) {
+        log(type, source, 0, 0, null);
+    }
+
+    public void log(EventType type, String source, int id) {
+        log(type, source, id, 0, null);
+    }
+
+    /**
+     * Records an event. The strings passed in should already exist (station names, zones, actions),
+     * so that logging allocates nothing.
+     */
+    public void log(EventType type, String source, int id, int count, String label) {
+        if (!isEnabled(type.getLevel()) || failed) {
+            return;
+        }
+        long position = tail.getAndIncrement();
+        int index = (int) position & mask;
+        int idle = 0;
+        while (sequences.get(index) != position) {
+            idle = WaitStrategy.PARK.idle(idle);
+        }
+        slots[index].set(clock.currentTimeMillis(), type, source, Thread.currentThread().getName(), id, count, label);
+        sequences.lazySet(index, position + 1);
+    }
+
+    private void drainLoop() {
+        TextBuffer text = new TextBuffer(WRITE_BATCH_BYTES + 1024);
+        String lineSeparator = System.lineSeparator();
+        int idle = 0;
+        try {
+            while (true) {
+                boolean wasClosed = closed;
+                int index = (int) head & mask;
+                if (sequences.get(index) == head + 1) {
+                    EventRecord record = slots[index];
+                    formatter.format(record, text);
+                    text.append(lineSeparator);
+                    record.clear();
+                    sequences.lazySet(index, head + slots.length);
+                    head++;
+                    idle = 0;
+                    if (text.length() >= WRITE_BATCH_BYTES) {
+                        text.writeTo(output);
+                    }
+                    continue;
+                }
+                // Out of events: hand what we have to the output before waiting
+                if (text.length() > 0) {
+                    text.writeTo(output);
+                }
+                if (wasClosed && head == tail.get()) {
+                    break;
+                }
+                if (idle < WRITER_POLLS) {
+                    idle = WaitStrategy.PARK.idle(idle);
+                } else {
+                    LockSupport.parkNanos(WRITER_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("EventLog: writing failed, further events are lost: " + e.getMessage());
+            discardLoop();
+        }
+    }
+
+    // After a failed write: frees the slots of the stations that claimed one before they saw the
+    // failure, until the log is closed
+    private void discardLoop() {
+        int idle = 0;
+        while (true) {
+            boolean wasClosed = closed;
+            int index = (int) head & mask;
+            if (sequences.get(index) == head + 1) {
+                slots[index].clear();
+                sequences.lazySet(index, head + slots.length);
+                head++;
+                idle = 0;
+                continue;
+            }
+            if (wasClosed && head == tail.get()) {
+                return;
+            }
+            if (idle < WRITER_POLLS) {
+                idle = WaitStrategy.PARK.idle(idle);
+            } else {
+                LockSupport.parkNanos(WRITER_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Writes out every event logged so far and stops the writer thread.
+     * Stations must have stopped logging before the log is closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (closeOutput) {
+                output.close();
+            }
+        } catch (IOException e) {
+            System.err.println("EventLog: closing the output failed: " + e.getMessage());
+        }
+    }
+
+    // Writes a heap buffer straight from its array to a stream such as System.out, and flushes it
+    private static final class StreamChannel implements WritableByteChannel {
+        private final PrintStream stream;
+
+        StreamChannel(PrintStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public int write(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            stream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            stream.flush();
+            buffer.position(buffer.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            stream.flush();
+        }
+    }
+}
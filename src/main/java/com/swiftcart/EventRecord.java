@@ -0,0 +1,64 @@
+package com.swiftcart;
+
+/**
+ * EventRecord is one slot of the EventLog's ring buffer.
+ * The slots are allocated once and overwritten in place, so logging an event copies a few
+ * primitives and references that already exist instead of building a string.
+ * The meaning of id, count and label depends on the event type (an order or container id,
+ * a box or container count, a zone or station action).
+ */
+public final class EventRecord {
+    private long timeMillis;
+    private EventType type;
+    private String source;
+    private String thread;
+    private int id;
+    private int count;
+    private String label;
+
+    void set(long timeMillis, EventType type, String source, String thread, int id, int count, String label) {
+        this.timeMillis = timeMillis;
+        this.type = type;
+        this.source = source;
+        this.thread = thread;
+        this.id = id;
+        this.count = count;
+        this.label = label;
+    }
+
+    // Drops the references so a slot does not keep strings alive once written out
+    void clear() {
+        type = null;
+        source = null;
+        thread = null;
+        label = null;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
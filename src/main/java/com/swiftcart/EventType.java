@@ -0,0 +1,36 @@
+package com.swiftcart;
+
+/**
+ * EventType lists everything the stations report, each with the level it is logged at.
+ * An event carries its values in the fixed fields of an EventRecord; turning it into
+ * text is left to an EventFormatter on the writer thread.
+ */
+public enum EventType {
+    ORDER_CREATED(LogLevel.DEBUG),
+    ORDER_PROCESSED(LogLevel.DEBUG),
+    ORDER_REJECTED(LogLevel.DEBUG),
+    BATCH_READY(LogLevel.DEBUG),
+    CONTAINER_CREATED(LogLevel.INFO),
+    FINAL_CONTAINER_CREATED(LogLevel.INFO),
+    CONTAINER_CLOSED_EARLY(LogLevel.INFO),
+    CONTAINER_MOVING(LogLevel.INFO),
+    LOADER_BREAKDOWN(LogLevel.WARN),
+    CONTAINER_LOADING(LogLevel.INFO),
+    TRUCK_ARRIVED(LogLevel.INFO),
+    TRUCK_WAITING(LogLevel.DEBUG),
+    TRUCK_LOADED(LogLevel.INFO),
+    TRUCK_DEPARTED(LogLevel.INFO),
+    TRUCK_FORCE_DISPATCHED(LogLevel.INFO),
+    TRUCK_EMPTY(LogLevel.INFO),
+    STAGE_SCALED(LogLevel.INFO);
+
+    private final LogLevel level;
+
+    EventType(LogLevel level) {
+        this.level = level;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,55 @@
+package com.swiftcart;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ExecutionMode decides which threads run the stations, loaders and trucks.
+ * PLATFORM gives every task its own platform thread from a fixed pool sized to the task count.
+ * VIRTUAL starts one virtual thread per task, so there is no pool size to tune and a station
+ * parked in take() or on a semaphore does not hold on to an OS thread.
+ * Virtual threads need JDK 21 or newer; the executor is looked up at run time so the
+ * simulation still builds for Java 11.
+ */
+public enum ExecutionMode {
+    PLATFORM {
+        @Override
+        public ExecutorService newExecutor(int tasks) {
+            return Executors.newFixedThreadPool(tasks);
+        }
+    },
+    VIRTUAL {
+        @Override
+        public ExecutorService newExecutor(int tasks) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new UnsupportedOperationException("Virtual threads need JDK 21 or newer, running on " + System.getProperty("java.version"), e);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Could not create the virtual-thread executor", e);
+            }
+        }
+    };
+
+    /** Name of the system property used to choose the execution mode. */
+    public static final String PROPERTY = "swiftcart.threads";
+
+    /**
+     * Creates an executor that can run the given number of long-lived tasks at the same time.
+     */
+    public abstract ExecutorService newExecutor(int tasks);
+
+    /**
+     * Returns the mode for the given name: "platform" (the default) or "virtual".
+     */
+    public static ExecutionMode forName(String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("platform")) {
+            return PLATFORM;
+        }
+        if (name.equalsIgnoreCase("virtual")) {
+            return VIRTUAL;
+        }
+        throw new IllegalArgumentException("Unknown execution mode: " + name);
+    }
+}
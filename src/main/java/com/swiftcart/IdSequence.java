@@ -0,0 +1,67 @@
+package com.swiftcart;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IdSequence hands out the ids of one kind of item (containers, trucks) within one simulation run.
+ * Every run creates its own sequences and passes them to whatever creates the items, so two runs
+ * in the same JVM number their containers and trucks independently, from 1.
+ * Each thread reserves a contiguous block of ids (64 by default) with a single atomic add and then
+ * numbers its items from that block without touching shared state, so sorting areas, shards and
+ * dispatch schedulers creating items at once do not contend on one counter. Blocks never overlap,
+ * so ids are unique across all the threads and warehouses of a run; they are not dense, though,
+ * since a thread that stops leaves the rest of its block unused. A single thread still counts 1, 2, 3...
+ */
+public class IdSequence {
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final AtomicInteger reserved = new AtomicInteger(0);
+    private final int blockSize;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public IdSequence() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdSequence(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int next() {
+        Block block = blocks.get();
+        if (block.next > block.last) {
+            // The block is used up: reserve the next one after everything handed out so far
+            int last = reserved.addAndGet(blockSize);
+            if (last < blockSize) {
+                throw new IllegalStateException("Id sequence exhausted");
+            }
+            block.next = last - blockSize + 1;
+            block.last = last;
+        }
+        return block.next++;
+    }
+
+    /**
+     * Makes the sequence continue after the given id, e.g. after the last one a crashed run journaled.
+     * Must be called before any id is handed out.
+     */
+    public void resumeAfter(int lastId) {
+        reserved.accumulateAndGet(lastId, Math::max);
+    }
+
+    /**
+     * Returns the highest id reserved so far; every id handed out is at most this.
+     */
+    public int getReserved() {
+        return reserved.get();
+    }
+
+    // The ids one thread may still hand out, next to last inclusive; only that thread touches it
+    private static final class Block {
+        int next = 1;
+        int last = 0;
+    }
+}
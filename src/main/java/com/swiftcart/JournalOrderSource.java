@@ -0,0 +1,115 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * JournalOrderSource replays the orders created in a recorded OrderJournal, with their ids and zones.
+ * The journal is streamed through a FileChannel a block of records at a time rather than mapped or
+ * read whole, and reading stops at the first record that fails its checksum, like OrderJournal.read.
+ * Each order arrives after the recorded gap since the previous one divided by the speed factor, so a
+ * journal that spans a recovery replays as one continuous run.
+ */
+public class JournalOrderSource implements OrderSource {
+    private static final int RECORDS_PER_READ = 4096;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int firstOrderId;
+    private final double speed;
+    private final ByteBuffer block = ByteBuffer.allocate(RECORDS_PER_READ * OrderJournal.RECORD_SIZE);
+    private boolean exhausted;
+    private long previousTime = -1;
+    private double arrival;
+    private int totalOrders = -1;
+
+    public JournalOrderSource(Path file, int firstOrderId, double speed) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.firstOrderId = firstOrderId;
+        this.speed = speed;
+        readHeader(channel, file);
+        block.limit(0);
+    }
+
+    @Override
+    public synchronized boolean next(OrderArrival slot) throws IOException {
+        while (!exhausted) {
+            JournalRecord record = nextRecord(channel, block);
+            if (record == null) {
+                exhausted = true;
+                return false;
+            }
+            if (record.getType() != JournalRecordType.CREATED) {
+                continue;
+            }
+            if (previousTime >= 0 && speed != Double.POSITIVE_INFINITY) {
+                arrival += Math.max(0, record.getTimeMillis() - previousTime) / speed;
+            }
+            previousTime = record.getTimeMillis();
+            if (record.getOrderId() >= firstOrderId) {
+                slot.set(new Order(record.getOrderId(), record.getZone()), (long) arrival);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns the next valid record, or null at the end of the journal
+    private static JournalRecord nextRecord(FileChannel from, ByteBuffer records) throws IOException {
+        if (!records.hasRemaining()) {
+            records.clear();
+            while (records.hasRemaining() && from.read(records) >= 0) {
+                // Fill the whole block, a file channel may return less
+            }
+            records.flip();
+            records.limit(records.limit() - records.limit() % OrderJournal.RECORD_SIZE);
+        }
+        // decode() checks the checksum, so the end of the records is an empty or torn one
+        JournalRecord record = records.hasRemaining() ? OrderJournal.decode(records, records.position()) : null;
+        if (record == null) {
+            return null;
+        }
+        records.position(records.position() + OrderJournal.RECORD_SIZE);
+        return record;
+    }
+
+    /**
+     * Counts the CREATED records with a separate pass over the journal.
+     */
+    @Override
+    public synchronized int getTotalOrders() throws IOException {
+        if (totalOrders < 0) {
+            try (FileChannel counter = FileChannel.open(file, StandardOpenOption.READ)) {
+                readHeader(counter, file);
+                ByteBuffer records = ByteBuffer.allocate(block.capacity());
+                records.limit(0);
+                int count = 0;
+                JournalRecord record;
+                while ((record = nextRecord(counter, records)) != null) {
+                    if (record.getType() == JournalRecordType.CREATED) {
+                        count++;
+                    }
+                }
+                totalOrders = count;
+            }
+        }
+        return totalOrders;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(OrderJournal.HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Read the whole header
+        }
+        OrderJournal.checkHeader(header, file);
+    }
+}
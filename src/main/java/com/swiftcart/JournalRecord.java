@@ -0,0 +1,74 @@
+package com.swiftcart;
+
+/**
+ * JournalRecord is one decoded record of the OrderJournal.
+ * Depending on the type, ref is the container an order was sorted into, the container that was
+ * staged, the truck a container was loaded onto, or the truck that departed; for REJECTED it is
+ * the ordinal of the Stage that rejected the order. LOADED records carry the container id in
+ * place of the order id. Records without a zone have a null one.
+ * A CREATED record also has the order's priority and deadline; records of other types, and
+ * those of journals written before orders had priorities, have a null priority and NO_DEADLINE.
+ */
+public class JournalRecord {
+    private final JournalRecordType type;
+    private final long timeMillis;
+    private final int orderId;
+    private final int ref;
+    private final Zone zone;
+    private final OrderPriority priority;
+    private final long deadlineMillis;
+
+    public JournalRecord(JournalRecordType type, long timeMillis, int orderId, int ref, Zone zone) {
+        this(type, timeMillis, orderId, ref, zone, null, Order.NO_DEADLINE);
+    }
+
+    public JournalRecord(JournalRecordType type, long timeMillis, int orderId, int ref, Zone zone, OrderPriority priority,
+                         long deadlineMillis) {
+        this.type = type;
+        this.timeMillis = timeMillis;
+        this.orderId = orderId;
+        this.ref = ref;
+        this.zone = zone;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public JournalRecordType getType() {
+        return type;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public int getRef() {
+        return ref;
+    }
+
+    public Zone getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns the priority of a created order, or null if the record has none.
+     */
+    public OrderPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the deadline of a created order in the journal's clock milliseconds, or Order.NO_DEADLINE.
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    @Override
+    public String toString() {
+        return timeMillis + "\t" + type + "\t" + orderId + "\t" + ref + "\t" + (zone == null ? "-" : zone.getDisplayName());
+    }
+}
@@ -0,0 +1,59 @@
+package com.swiftcart;
+
+/**
+ * JournalRecordType lists the stage transitions written to the OrderJournal.
+ * The code is the byte stored in the record, so existing values must never change.
+ */
+public enum JournalRecordType {
+    CREATED(1),
+    PICKED(2),
+    PACKED(3),
+    LABELLED(4),
+    REJECTED(5),
+    BATCHED(6),
+    SORTED(7),
+    STAGED(8),
+    LOADED(9),
+    DEPARTED(10);
+
+    private static final JournalRecordType[] BY_CODE = new JournalRecordType[11];
+
+    static {
+        for (JournalRecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    JournalRecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the type for a stored code, or null if the code is unknown.
+     */
+    public static JournalRecordType forCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Returns the record written when an order leaves the given station stage.
+     */
+    static JournalRecordType leaving(Stage stage) {
+        switch (stage) {
+            case PICKING:
+                return PICKED;
+            case PACKING:
+                return PACKED;
+            case LABELLING:
+                return LABELLED;
+            default:
+                throw new IllegalArgumentException("No journal record for leaving " + stage);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JournalRecovery rebuilds the in-flight state of a crashed run from its OrderJournal.
+ * Replaying the records gives the last transition of every order and container: an order that
+ * was created, picked, packed or labelled goes back into the queue after that station, an order
+ * that had joined a regional batch goes back into a sorting area's batches, a container that was
+ * sorted waits for a loader again, and a container that was staged or loaded onto a truck that
+ * never departed waits for a truck again. Everything that was rejected or left on a truck is done.
+ * Because stations journal a transition before they hand the item on, every item is recovered
+ * exactly once: either it was still with the station that journaled it, or it is recovered past it.
+ * A recovered order gets back the priority and deadline of its CREATED record, and its intake time
+ * is set to when it was created, so its order-to-truck time covers the crash. When the new run's
+ * clock is behind the journal, as a discrete-event clock that starts again at zero is, both are
+ * moved so that the crash happened just now.
+ */
+public class JournalRecovery {
+    private final Map<JournalRecordType, List<Order>> queuedOrders = new EnumMap<>(JournalRecordType.class);
+    private final List<Order> batchedOrders = new ArrayList<>();
+    private final List<Container> unstagedContainers = new ArrayList<>();
+    private final List<Container> stagedContainers = new ArrayList<>();
+    private final long[] rejected = new long[Stage.COUNT];
+    // The CREATED record of every order, and every order put back together from the journal
+    private final Map<Integer, JournalRecord> created = new HashMap<>();
+    private final List<Order> rebuiltOrders = new ArrayList<>();
+    private long lastRecordMillis;
+    private boolean onClock;
+    private long sortedOrders;
+    private long containersSorted;
+    private long containersDeparted;
+    private int trucksDeparted;
+    private int lastOrderId;
+    private int lastContainerId;
+    private int lastTruckId;
+
+    private JournalRecovery(List<JournalRecord> records) {
+        Map<Integer, JournalRecord> lastByOrder = new LinkedHashMap<>();
+        Map<Integer, ContainerState> containers = new LinkedHashMap<>();
+        Set<Integer> departed = new HashSet<>();
+
+        for (JournalRecord record : records) {
+            lastRecordMillis = Math.max(lastRecordMillis, record.getTimeMillis());
+            switch (record.getType()) {
+                case CREATED:
+                    created.put(record.getOrderId(), record);
+                    lastByOrder.put(record.getOrderId(), record);
+                    lastOrderId = Math.max(lastOrderId, record.getOrderId());
+                    break;
+                case PICKED:
+                case PACKED:
+                case LABELLED:
+                case BATCHED:
+                    lastByOrder.put(record.getOrderId(), record);
+                    lastOrderId = Math.max(lastOrderId, record.getOrderId());
+                    break;
+                case REJECTED:
+                    lastByOrder.put(record.getOrderId(), record);
+                    rejected[record.getRef()]++;
+                    break;
+                case SORTED:
+                    lastByOrder.put(record.getOrderId(), record);
+                    containers.computeIfAbsent(record.getRef(), ContainerState::new).orders.add(record);
+                    lastContainerId = Math.max(lastContainerId, record.getRef());
+                    break;
+                case STAGED:
+                    containers.computeIfAbsent(record.getRef(), ContainerState::new).state = JournalRecordType.STAGED;
+                    break;
+                case LOADED:
+                    ContainerState loaded = containers.computeIfAbsent(record.getOrderId(), ContainerState::new);
+                    loaded.state = JournalRecordType.LOADED;
+                    loaded.truckId = record.getRef();
+                    lastTruckId = Math.max(lastTruckId, record.getRef());
+                    break;
+                case DEPARTED:
+                    departed.add(record.getRef());
+                    lastTruckId = Math.max(lastTruckId, record.getRef());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal record " + record.getType());
+            }
+        }
+
+        for (JournalRecord last : lastByOrder.values()) {
+            JournalRecordType type = last.getType();
+            if (type == JournalRecordType.SORTED) {
+                sortedOrders++;
+            } else if (type == JournalRecordType.BATCHED) {
+                batchedOrders.add(rebuild(last));
+            } else if (type != JournalRecordType.REJECTED) {
+                queuedOrders.computeIfAbsent(type, k -> new ArrayList<>()).add(rebuild(last));
+            }
+        }
+
+        for (ContainerState container : containers.values()) {
+            containersSorted++;
+            if (container.state == JournalRecordType.LOADED && departed.contains(container.truckId)) {
+                containersDeparted++;
+            } else if (container.state == JournalRecordType.SORTED) {
+                unstagedContainers.add(rebuild(container));
+            } else {
+                stagedContainers.add(rebuild(container));
+            }
+        }
+        trucksDeparted = departed.size();
+    }
+
+    private Order rebuild(JournalRecord last) {
+        Order order = new Order(last.getOrderId(), last.getZone());
+        JournalRecord record = created.get(last.getOrderId());
+        if (record != null && record.getPriority() != null) {
+            order.assignDeadline(record.getPriority(), record.getDeadlineMillis());
+        }
+        rebuiltOrders.add(order);
+        return order;
+    }
+
+    private Container rebuild(ContainerState container) {
+        List<Order> boxes = new ArrayList<>(container.orders.size());
+        for (JournalRecord record : container.orders) {
+            boxes.add(rebuild(record));
+        }
+        return new Container(container.id, boxes);
+    }
+
+    // Stamps the intake time of every rebuilt order on the new run's clock and moves the deadlines
+    // with it if that clock started again; an order without a CREATED record enters now
+    private void moveToClock(SimulationClock clock) {
+        if (onClock) {
+            return;
+        }
+        onClock = true;
+        long nowNanos = clock.nanoTime();
+        long nowMillis = clock.currentTimeMillis();
+        long shift = nowMillis >= lastRecordMillis ? 0 : nowMillis - lastRecordMillis;
+        for (Order order : rebuiltOrders) {
+            JournalRecord record = created.get(order.getId());
+            if (record == null) {
+                order.markEntered(Stage.INTAKE, nowNanos);
+                continue;
+            }
+            order.markEntered(Stage.INTAKE, nowNanos - TimeUnit.MILLISECONDS.toNanos(nowMillis - record.getTimeMillis() - shift));
+            if (order.getDeadlineMillis() != Order.NO_DEADLINE) {
+                order.assignDeadline(order.getPriority(), order.getDeadlineMillis() + shift);
+            }
+        }
+    }
+
+    /**
+     * Replays the journal at the given path.
+     */
+    public static JournalRecovery fromFile(Path file) throws IOException {
+        return new JournalRecovery(OrderJournal.read(file));
+    }
+
+    /**
+     * Puts the recovered orders and containers back into the queues they were waiting in,
+     * marking them as enqueued now on the given clock. Containers waiting for a loader are offered
+     * to the bounded sorting queue; any that do not fit go straight to the trucks.
+     * Must be called before the stations start, and the order and loading queues must have room for what is recovered.
+     */
+    public void restoreQueues(BlockingQueue<Order> intakeQueue, BlockingQueue<Order> pickingQueue, BlockingQueue<Order> packingQueue,
+                              BlockingQueue<Order> labellingQueue, BlockingQueue<Container> sortingQueue, BlockingQueue<Container> loadingQueue,
+                              SimulationClock clock) {
+        moveToClock(clock);
+        long now = clock.nanoTime();
+        restore(JournalRecordType.CREATED, intakeQueue, now);
+        restore(JournalRecordType.PICKED, pickingQueue, now);
+        restore(JournalRecordType.PACKED, packingQueue, now);
+        restore(JournalRecordType.LABELLED, labellingQueue, now);
+        for (Container container : unstagedContainers) {
+            container.markEnqueued(now);
+            stage(container, sortingQueue, loadingQueue);
+        }
+        for (Container container : stagedContainers) {
+            container.markEnqueued(now);
+            load(container, loadingQueue);
+        }
+    }
+
+    // Queues a recovered container for a loader, or straight for the trucks if the sorting queue is full
+    private static void stage(Container container, BlockingQueue<Container> sortingQueue, BlockingQueue<Container> loadingQueue) {
+        if (!sortingQueue.offer(container)) {
+            load(container, loadingQueue);
+        }
+    }
+
+    private static void load(Container container, BlockingQueue<Container> loadingQueue) {
+        if (!loadingQueue.offer(container)) {
+            throw new IllegalStateException("The recovered containers do not fit in the loading queue; raise -Dswiftcart.loading.queueCapacity");
+        }
+    }
+
+    private void restore(JournalRecordType state, BlockingQueue<Order> queue, long now) {
+        for (Order order : queuedOrders.getOrDefault(state, List.of())) {
+            order.markEnqueued(now);
+            if (!queue.offer(order)) {
+                throw new IllegalStateException("The recovered " + state + " orders do not fit in their queue; raise -Dswiftcart.queue.capacity");
+            }
+        }
+    }
+
+    /**
+     * Returns the orders that had joined a regional batch but were not yet sorted into a container.
+     * Their intake times and deadlines are on the new run's clock once restoreQueues has run.
+     */
+    public List<Order> getBatchedOrders() {
+        return batchedOrders;
+    }
+
+    /**
+     * Feeds the partial regional batches back into a sorting area's builder, as if the orders
+     * had just arrived. Any container this completes is journaled and queued like a recovered one.
+     * Returns the number of such containers.
+     */
+    public int restoreBatches(ContainerBuilder builder, OrderJournal journal, BlockingQueue<Container> sortingQueue,
+                              BlockingQueue<Container> loadingQueue, SimulationClock clock) {
+        moveToClock(clock);
+        long now = clock.nanoTime();
+        int completed = 0;
+        for (Order order : batchedOrders) {
+            order.markEntered(Stage.SORTING, now);
+            if (builder.add(order)) {
+                Container container = builder.pollContainer();
+                if (container != null) {
+                    journal.containerSorted(container);
+                    container.markEnqueued(now);
+                    stage(container, sortingQueue, loadingQueue);
+                    completed++;
+                }
+            }
+        }
+        return completed;
+    }
+
+    public long getRejected(Stage stage) {
+        return rejected[stage.ordinal()];
+    }
+
+    /**
+     * Returns how many orders were already sorted into containers.
+     */
+    public long getSortedOrders() {
+        return sortedOrders;
+    }
+
+    public long getContainersSorted() {
+        return containersSorted;
+    }
+
+    /**
+     * Returns how many containers already left on a truck.
+     */
+    public long getContainersDeparted() {
+        return containersDeparted;
+    }
+
+    public int getTrucksDeparted() {
+        return trucksDeparted;
+    }
+
+    /**
+     * Returns how many orders and containers are back in the pipeline.
+     */
+    public int getRecoveredOrders() {
+        int count = batchedOrders.size();
+        for (List<Order> orders : queuedOrders.values()) {
+            count += orders.size();
+        }
+        return count;
+    }
+
+    public int getRecoveredContainers() {
+        return unstagedContainers.size() + stagedContainers.size();
+    }
+
+    public int getLastOrderId() {
+        return lastOrderId;
+    }
+
+    public int getLastContainerId() {
+        return lastContainerId;
+    }
+
+    public int getLastTruckId() {
+        return lastTruckId;
+    }
+
+    /**
+     * The last known state of one container, with its orders in the order they were sorted.
+     */
+    private static final class ContainerState {
+        final int id;
+        final List<JournalRecord> orders = new ArrayList<>();
+        JournalRecordType state = JournalRecordType.SORTED;
+        int truckId;
+
+        ContainerState(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JournalTool class is the command line entry point for working with an OrderJournal.
+ * "dump" prints every record as tab-separated columns (time, type, order, ref, zone),
+ * "summary" counts the records by type and shows what a recovery would put back into the pipeline,
+ * and "replay" runs a new simulation with the orders of the journal, at a speed factor or "max".
+ * A replay is a simulation run with -Dswiftcart.source=journal:path, so it takes the other simulation
+ * options as usual; -Dswiftcart.journal records it to a new journal.
+ */
+public class JournalTool {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: JournalTool dump|summary <journal>");
+            System.err.println("       JournalTool replay <journal> [speed|max]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[1]);
+        switch (args[0]) {
+            case "dump":
+                for (JournalRecord record : OrderJournal.read(file)) {
+                    System.out.println(record);
+                }
+                break;
+            case "summary":
+                summary(file);
+                break;
+            case "replay":
+                System.setProperty(OrderSource.PROPERTY, "journal:" + args[1]);
+                if (args.length > 2) {
+                    System.setProperty("swiftcart.source.speed", args[2]);
+                }
+                SwiftCartSimulation.main(new String[0]);
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+        }
+    }
+
+    private static void summary(Path file) throws IOException {
+        List<JournalRecord> records = OrderJournal.read(file);
+        Map<JournalRecordType, Integer> counts = new EnumMap<>(JournalRecordType.class);
+        for (JournalRecord record : records) {
+            counts.merge(record.getType(), 1, Integer::sum);
+        }
+        System.out.printf("Records: %d%n", records.size());
+        for (Map.Entry<JournalRecordType, Integer> entry : counts.entrySet()) {
+            System.out.printf("  %-9s %d%n", entry.getKey(), entry.getValue());
+        }
+        JournalRecovery recovery = JournalRecovery.fromFile(file);
+        System.out.printf("Recoverable: %d orders, %d containers (last order %d, container %d, truck %d)%n",
+            recovery.getRecoveredOrders(), recovery.getRecoveredContainers(),
+            recovery.getLastOrderId(), recovery.getLastContainerId(), recovery.getLastTruckId());
+    }
+}
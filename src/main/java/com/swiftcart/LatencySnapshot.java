@@ -0,0 +1,59 @@
+package com.swiftcart;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LatencySnapshot is a point-in-time summary of a LatencyHistogram in milliseconds.
+ * It is what the metrics API and JMX hand out, so readers never touch the live histogram.
+ */
+public class LatencySnapshot {
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+
+    public LatencySnapshot(long count, double meanMillis, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    static LatencySnapshot of(LatencyHistogram nanos) {
+        return new LatencySnapshot(nanos.getCount(), nanos.getMean() / TimeUnit.MILLISECONDS.toNanos(1),
+            millis(nanos.getValueAtPercentile(50)), millis(nanos.getValueAtPercentile(99)),
+            millis(nanos.getValueAtPercentile(99.9)), millis(nanos.getMax()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getP999Millis() {
+        return p999Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+}
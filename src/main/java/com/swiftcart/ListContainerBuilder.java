@@ -0,0 +1,103 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ListContainerBuilder is the original batching of the sorting area.
+ * Every ready batch is copied into a new list, and every container into another new list.
+ * The regional batches are kept in an array indexed by the zone's ordinal.
+ */
+public class ListContainerBuilder implements ContainerBuilder {
+    private final List<Order>[] regionalBatches = newBatches();
+    private final List<List<Order>> readyBatches = new ArrayList<>();
+    private final IdSequence containerIds;
+    private final int batchSize;
+    private final int batchesPerContainer;
+    private Container completed;
+
+    public ListContainerBuilder(IdSequence containerIds, int batchSize, int batchesPerContainer) {
+        this.containerIds = containerIds;
+        this.batchSize = batchSize;
+        this.batchesPerContainer = batchesPerContainer;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public boolean add(Order order) {
+        List<Order> batch = regionalBatches[order.getRegionalZone().ordinal()];
+        batch.add(order);
+        if (batch.size() < batchSize) {
+            return false;
+        }
+        ready(batch);
+        return true;
+    }
+
+    @Override
+    public boolean closeBatch(Zone zone) {
+        List<Order> batch = regionalBatches[zone.ordinal()];
+        if (batch.isEmpty()) {
+            return false;
+        }
+        ready(batch);
+        return true;
+    }
+
+    @Override
+    public Container closeContainer() {
+        if (readyBatches.isEmpty()) {
+            return null;
+        }
+        return new Container(containerIds.next(), takeReadyBoxes());
+    }
+
+    private void ready(List<Order> batch) {
+        readyBatches.add(new ArrayList<>(batch));
+        batch.clear();
+        if (readyBatches.size() == batchesPerContainer) {
+            completed = new Container(containerIds.next(), takeReadyBoxes());
+        }
+    }
+
+    private List<Order> takeReadyBoxes() {
+        List<Order> containerBoxes = new ArrayList<>();
+        for (List<Order> readyBatch : readyBatches) {
+            containerBoxes.addAll(readyBatch);
+        }
+        readyBatches.clear();
+        return containerBoxes;
+    }
+
+    @Override
+    public Container pollContainer() {
+        Container container = completed;
+        completed = null;
+        return container;
+    }
+
+    @Override
+    public Container flush() {
+        for (List<Order> batch : regionalBatches) {
+            if (!batch.isEmpty()) {
+                readyBatches.add(new ArrayList<>(batch));
+                batch.clear();
+            }
+        }
+        List<Order> finalBoxes = takeReadyBoxes();
+        return finalBoxes.isEmpty() ? null : new Container(containerIds.next(), finalBoxes);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<Order>[] newBatches() {
+        List<Order>[] batches = new List[Zone.COUNT];
+        for (int i = 0; i < batches.length; i++) {
+            batches[i] = new ArrayList<>();
+        }
+        return batches;
+    }
+}
@@ -1,62 +1,78 @@
 package com.swiftcart;
 
-import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Loader class simulates a loader that moves containers from a sorting queue to a loading queue.
  * It implements Runnable to allow it to run in a separate thread.
  * The loader can handle multiple threads and uses semaphores to control access to the loading process.
- * It also simulates potential breakdowns with a 10% chance, causing the loader to sleep for 5 seconds.
- * The loader will print messages to indicate its status and actions taken.
+ * It also simulates potential breakdowns with the breakdown rate (10% by default), causing the loader to sleep
+ * for the breakdown time (5 seconds by default). Whether a loader breaks down while moving a container is
+ * drawn from the loading stage's RandomStream by container id, so it does not depend on which loader takes it.
+ * The loaders share a ShutdownCoordinator; the last one to finish tells the trucks that no more containers are coming.
+ * Service time covers the breakdowns and the wait for a loading bay, which is where loading time goes.
+ * The loader will log events to indicate its status and actions taken.
  */
 public class Loader implements Runnable {
     private final BlockingQueue<Container> sortingQueue;
     private final BlockingQueue<Container> loadingQueue;
     private final Semaphore loaderSemaphore;
     private final Semaphore loadingBaySemaphore;
-    private final Random random = new Random();
-    private static final AtomicInteger loadersFinished = new AtomicInteger(0);
-    private final int totalLoaders;
-    private final int totalTrucks;
+    private final SimulationClock clock;
+    private final RandomStream random;
+    private final double breakdownRate;
+    private final long breakdownMillis;
+    private final ShutdownCoordinator<Container> shutdown;
+    private final StageMetrics metrics;
+    private final OrderJournal journal;
+    private final EventLog log;
 
-    public Loader(BlockingQueue<Container> sortingQueue, BlockingQueue<Container> loadingQueue, Semaphore loaderSemaphore, Semaphore loadingBaySemaphore, int totalLoaders, int totalTrucks) {
+    public Loader(BlockingQueue<Container> sortingQueue, BlockingQueue<Container> loadingQueue, Semaphore loaderSemaphore, Semaphore loadingBaySemaphore,
+                  StageMetrics metrics, ShutdownCoordinator<Container> shutdown, OrderJournal journal, EventLog log, SimulationClock clock,
+                  RandomStream random, double breakdownRate, long breakdownMillis) {
         this.sortingQueue = sortingQueue;
         this.loadingQueue = loadingQueue;
         this.loaderSemaphore = loaderSemaphore;
         this.loadingBaySemaphore = loadingBaySemaphore;
-        this.totalLoaders = totalLoaders;
-        this.totalTrucks = totalTrucks;
+        this.shutdown = shutdown;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.random = random;
+        this.breakdownRate = breakdownRate;
+        this.breakdownMillis = breakdownMillis;
     }
 
     @Override
     public void run() {
+        String name = Thread.currentThread().getName();
         try {
             while (true) {
                 loaderSemaphore.acquire();
                 try {
                     Container container = sortingQueue.take();
                     if (container == Container.POISON_PILL) {
-                        if (loadersFinished.incrementAndGet() == totalLoaders) {
-                            for (int i = 0; i < totalTrucks; i++) {
-                                loadingQueue.put(Container.POISON_PILL);
-                            }
+                        if (shutdown.workerFinished(sortingQueue)) {
+                            loadingQueue.put(Container.POISON_PILL);
                         }
                         break;
                     }
+                    metrics.entered(container, clock.nanoTime());
 
-                    System.out.println(Thread.currentThread().getName() + ": Moving Container #" + container.getId() + " to Loading Bay (Thread: " + Thread.currentThread().getName() + ")");
+                    log.log(EventType.CONTAINER_MOVING, name, container.getId());
 
-                    if (random.nextDouble() < 0.1) {
-                        System.out.println(Thread.currentThread().getName() + ": Loader broke down! Sleeping for 5 seconds. (Thread: " + Thread.currentThread().getName() + ")");
-                        Thread.sleep(5000);
+                    if (random.nextDouble(container.getId()) < breakdownRate) {
+                        log.log(EventType.LOADER_BREAKDOWN, name, 0, (int) (breakdownMillis / 1000), null);
+                        clock.sleep(breakdownMillis);
                     }
 
                     loadingBaySemaphore.acquire();
                     try {
-                        System.out.println(Thread.currentThread().getName() + ": Loading Container #" + container.getId() + " onto a truck. (Thread: " + Thread.currentThread().getName() + ")");
+                        log.log(EventType.CONTAINER_LOADING, name, container.getId());
+                        metrics.finished(container, clock.nanoTime());
+                        journal.containerStaged(container);
                         loadingQueue.put(container);
                     } finally {
                         loadingBaySemaphore.release();
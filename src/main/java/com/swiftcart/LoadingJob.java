@@ -0,0 +1,24 @@
+package com.swiftcart;
+
+/**
+ * LoadingJob is one container handed to a loader together with the loading bay it is cleared to use.
+ * A static POISON_PILL constant is used to signal the end of processing.
+ */
+public class LoadingJob {
+    public static final LoadingJob POISON_PILL = new LoadingJob(null, -1);
+    private final Container container;
+    private final int bay;
+
+    public LoadingJob(Container container, int bay) {
+        this.container = container;
+        this.bay = bay;
+    }
+
+    public Container getContainer() {
+        return container;
+    }
+
+    public int getBay() {
+        return bay;
+    }
+}
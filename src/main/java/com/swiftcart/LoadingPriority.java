@@ -0,0 +1,45 @@
+package com.swiftcart;
+
+/**
+ * LoadingPriority decides which ready container the LoadingScheduler hands to the next loader.
+ * FIFO keeps the order the containers came off the sorting area in. ZONE sends full-zone
+ * containers (every box for one zone) first, then the others by how few boxes they have outside
+ * their main zone, so trucks loaded by zone get their containers sooner. Ties go to the container
+ * that has been ready longest.
+ */
+public enum LoadingPriority {
+    FIFO {
+        @Override
+        int rank(Container container) {
+            return 0;
+        }
+    },
+    ZONE {
+        @Override
+        int rank(Container container) {
+            Zone main = container.getMainZone();
+            int others = 0;
+            for (Order order : container.getOrders()) {
+                if (order.getRegionalZone() != main) {
+                    others++;
+                }
+            }
+            return others;
+        }
+    };
+
+    /**
+     * Returns the rank of a container; lower ranks are loaded first.
+     */
+    abstract int rank(Container container);
+
+    public static LoadingPriority forName(String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("fifo")) {
+            return FIFO;
+        }
+        if (name.equalsIgnoreCase("zone")) {
+            return ZONE;
+        }
+        throw new IllegalArgumentException("Unknown loading priority: " + name + " (expected fifo or zone)");
+    }
+}
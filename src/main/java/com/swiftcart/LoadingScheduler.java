@@ -0,0 +1,93 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * LoadingScheduler class hands the containers of the sorting area to the loaders, one loading bay at a time.
+ * It implements Runnable to allow it to run in a separate thread.
+ * Nothing is reserved up front: a bay is only claimed once a container is ready, and the container
+ * and its bay go out together as a LoadingJob on the job queue, where only loaders that are
+ * ready for work are waiting. A loader that has broken down is not taking jobs, so the work goes
+ * to the ones that are running, and an idle loader holds nothing anyone else needs.
+ * Bays come back through the free-bay queue when their container is on the loading queue.
+ * Ready containers wait in a priority queue ordered by the LoadingPriority; at most as many as
+ * the sorting queue holds are taken in, so the sorting area still feels back-pressure.
+ * It is experimental and off by default (-Dswiftcart.loading=scheduled turns it on): with the same
+ * loaders and bays it ships no more containers than the semaphore loaders, it only changes which
+ * containers wait through a breakdown.
+ */
+public class LoadingScheduler implements Runnable {
+    private final BlockingQueue<Container> sortingQueue;
+    private final BlockingQueue<LoadingJob> jobQueue;
+    private final BlockingQueue<Integer> freeBays;
+    private final LoadingPriority priority;
+    private final int readyLimit;
+    private final PriorityQueue<Ready> ready = new PriorityQueue<>();
+    private final List<Container> arrivals = new ArrayList<>();
+    private long sequence;
+
+    public LoadingScheduler(BlockingQueue<Container> sortingQueue, BlockingQueue<LoadingJob> jobQueue, BlockingQueue<Integer> freeBays,
+                            LoadingPriority priority, int readyLimit) {
+        this.sortingQueue = sortingQueue;
+        this.jobQueue = jobQueue;
+        this.freeBays = freeBays;
+        this.priority = priority;
+        this.readyLimit = readyLimit;
+    }
+
+    @Override
+    public void run() {
+        boolean poisoned = false;
+        try {
+            while (!poisoned || !ready.isEmpty()) {
+                if (ready.isEmpty()) {
+                    poisoned = accept(sortingQueue.take());
+                    continue;
+                }
+                // Claim a bay only now that a container is waiting for it
+                int bay = freeBays.take();
+                if (!poisoned && ready.size() < readyLimit) {
+                    sortingQueue.drainTo(arrivals, readyLimit - ready.size());
+                    for (Container container : arrivals) {
+                        poisoned |= accept(container);
+                    }
+                    arrivals.clear();
+                }
+                jobQueue.put(new LoadingJob(ready.poll().container, bay));
+            }
+            jobQueue.put(LoadingJob.POISON_PILL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Adds a container to the ready queue; returns true for the poison pill, which nothing follows
+    private boolean accept(Container container) {
+        if (container == Container.POISON_PILL) {
+            return true;
+        }
+        ready.add(new Ready(container, priority.rank(container), sequence++));
+        return false;
+    }
+
+    private static final class Ready implements Comparable<Ready> {
+        final Container container;
+        final int rank;
+        final long sequence;
+
+        Ready(Container container, int rank, long sequence) {
+            this.container = container;
+            this.rank = rank;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ready other) {
+            int byRank = Integer.compare(rank, other.rank);
+            return byRank != 0 ? byRank : Long.compare(sequence, other.sequence);
+        }
+    }
+}
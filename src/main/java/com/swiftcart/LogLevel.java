@@ -0,0 +1,31 @@
+package com.swiftcart;
+
+/**
+ * LogLevel decides which events the EventLog keeps.
+ * WARN is for trouble such as loader breakdowns, INFO for container and truck events,
+ * and DEBUG for the per-order events, which are by far the most frequent;
+ * INFO turns them off entirely, OFF turns off the log.
+ */
+public enum LogLevel {
+    OFF,
+    WARN,
+    INFO,
+    DEBUG;
+
+    /** Name of the system property used to choose the log level. */
+    public static final String PROPERTY = "swiftcart.log.level";
+
+    /**
+     * Returns the level for the given name, or DEBUG (everything, as the console always showed) if none is given.
+     */
+    public static LogLevel forName(String name) {
+        if (name == null || name.isEmpty()) {
+            return DEBUG;
+        }
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.swiftcart;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MpmcRingBuffer is a lock-free bounded queue for hops with several producers or consumers,
+ * such as the four PickingStation threads taking from intake and feeding packing.
+ * Every slot carries a sequence number that tells producers when the slot is free and
+ * consumers when it holds a published item (the classic bounded MPMC design by Dmitry Vyukov).
+ * Producers and consumers each claim a position with a single CAS, so there is no lock and
+ * no node allocation per item.
+ * The ring has at least two slots: with one, a published slot and a slot freed for the next lap
+ * carry the same sequence number, and a producer would overwrite an item nobody has taken yet.
+ */
+public class MpmcRingBuffer<E> extends RingBufferQueue<E> {
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new SpscRingBuffer.PaddedPosition();
+    private final AtomicLong tail = new SpscRingBuffer.PaddedPosition();
+
+    public MpmcRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity == 1 ? 2 : capacity, waitStrategy);
+        sequences = new AtomicLongArray(buffer.length);
+        for (int i = 0; i < buffer.length; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = e;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E e = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, position + buffer.length);
+                    return e;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        return (E) buffer[index];
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+}
@@ -0,0 +1,154 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * NdjsonOrderSource streams orders from a newline-delimited JSON file, one flat object per line:
+ * {"id": 1, "zone": "North", "at": 500}. The "at" arrival time in ms is optional and any other
+ * members are skipped. Zones must not contain escaped characters.
+ */
+public class NdjsonOrderSource extends DelimitedOrderSource {
+    private static final byte[] ID = {'i', 'd'};
+    private static final byte[] ZONE = {'z', 'o', 'n', 'e'};
+    private static final byte[] AT = {'a', 't'};
+
+    private byte[] line;
+    private int pos;
+    private int end;
+
+    public NdjsonOrderSource(Path file, int firstOrderId, double speed) throws IOException {
+        super(file, firstOrderId, speed);
+    }
+
+    @Override
+    protected boolean parseLine(byte[] line, int start, int end, long lineNumber) {
+        this.line = line;
+        this.pos = start;
+        this.end = end;
+        boolean hasId = false;
+        zone = null;
+        try {
+            expect('{');
+            skipSpaces();
+            if (pos < end && line[pos] == '}') {
+                throw new IllegalArgumentException("empty object");
+            }
+            while (true) {
+                skipSpaces();
+                int keyStart = pos + 1;
+                int keyEnd = skipString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                if (matches(keyStart, keyEnd, ID)) {
+                    orderId = (int) parseLong(line, pos, skipNumber());
+                    hasId = true;
+                } else if (matches(keyStart, keyEnd, AT)) {
+                    arrivalMillis = parseLong(line, pos, skipNumber());
+                } else if (matches(keyStart, keyEnd, ZONE)) {
+                    int zoneStart = pos + 1;
+                    int zoneEnd = skipString();
+                    zone = Zone.lookup(line, zoneStart, zoneEnd - zoneStart);
+                    if (zone == null) {
+                        throw malformed(lineNumber, "unknown zone");
+                    }
+                } else {
+                    skipValue();
+                }
+                skipSpaces();
+                if (pos < end && line[pos] == ',') {
+                    pos++;
+                    continue;
+                }
+                expect('}');
+                break;
+            }
+        } catch (IllegalArgumentException e) {
+            throw malformed(lineNumber, e.getMessage());
+        } finally {
+            this.line = null;
+        }
+        if (!hasId || zone == null) {
+            throw malformed(lineNumber, "an order needs an id and a zone");
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean isHeaderStart(byte first) {
+        return false;
+    }
+
+    private void expect(char c) {
+        if (pos >= end || line[pos] != c) {
+            throw new IllegalArgumentException("expected '" + c + "' at column " + pos);
+        }
+        pos++;
+    }
+
+    private void skipSpaces() {
+        while (pos < end && (line[pos] == ' ' || line[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    // Skips a string starting at the opening quote and returns the index of its closing quote
+    private int skipString() {
+        expect('"');
+        while (pos < end) {
+            byte b = line[pos];
+            if (b == '\\') {
+                pos += 2;
+            } else if (b == '"') {
+                return pos++;
+            } else {
+                pos++;
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    // Skips a number and returns the index just past it
+    private int skipNumber() {
+        while (pos < end && line[pos] != ',' && line[pos] != '}' && line[pos] != ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Skips any value, including nested objects and arrays
+    private void skipValue() {
+        int depth = 0;
+        while (pos < end) {
+            byte b = line[pos];
+            if (b == '"') {
+                skipString();
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+            } else if (b == ',' && depth == 0) {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private boolean matches(int start, int stop, byte[] key) {
+        if (stop - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (line[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,15 +2,26 @@ package com.swiftcart;
 
 /**
  * Order class represents an order in the SwiftCart system.
- * It contains an ID to uniquely identify each order and a regional zone for sorting.
+ * It contains an ID to uniquely identify each order and a regional Zone for sorting.
  * A static POISON_PILL constant is used to signal the end of processing.
+ * Each order carries the time it entered every stage, which the stage metrics use to
+ * measure queue wait and service time, and its priority and the deadline, in the simulation
+ * clock's milliseconds, by which it should have left on a truck.
  */
 public class Order {
-    public static final Order POISON_PILL = new Order(-1, "POISON");
+    public static final Order POISON_PILL = new Order(-1, null);
+    /** The deadline of an order that has none, such as the POISON_PILL; it sorts after every other. */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
     private final int id;
-    private final String regionalZone;
+    private final Zone regionalZone;
+    // Stage-entry timestamps, in SimulationClock.nanoTime(), indexed by Stage ordinal
+    private final long[] enteredAt = new long[Stage.COUNT];
+    // When the item was last handed to a queue, for measuring how long it waited there
+    private long enqueuedAt;
+    private OrderPriority priority = OrderPriority.STANDARD;
+    private long deadlineMillis = NO_DEADLINE;
 
-    public Order(int id, String regionalZone) {
+    public Order(int id, Zone regionalZone) {
         this.id = id;
         this.regionalZone = regionalZone;
     }
@@ -19,7 +30,42 @@ public class Order {
         return id;
     }
 
-    public String getRegionalZone() {
+    public Zone getRegionalZone() {
         return regionalZone;
     }
-}
\ No newline at end of file
+
+    public void markEntered(Stage stage, long nanos) {
+        enteredAt[stage.ordinal()] = nanos;
+    }
+
+    public long getEnteredAt(Stage stage) {
+        return enteredAt[stage.ordinal()];
+    }
+
+    public void markEnqueued(long nanos) {
+        enqueuedAt = nanos;
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    /**
+     * Sets the priority of the order and the SimulationClock.currentTimeMillis() by which it should be on a truck.
+     */
+    public void assignDeadline(OrderPriority priority, long deadlineMillis) {
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public OrderPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the deadline of the order in milliseconds of the simulation clock, or NO_DEADLINE.
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+}
@@ -0,0 +1,25 @@
+package com.swiftcart;
+
+/**
+ * OrderArrival is the slot an OrderSource fills with its next order.
+ * Every intake producer owns one and reuses it for every order, so reading a source
+ * allocates nothing but the Order itself.
+ * The arrival time is in milliseconds from the start of the source; 0 means "as soon as possible".
+ */
+public final class OrderArrival {
+    private Order order;
+    private long atMillis;
+
+    void set(Order order, long atMillis) {
+        this.order = order;
+        this.atMillis = atMillis;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public long getAtMillis() {
+        return atMillis;
+    }
+}
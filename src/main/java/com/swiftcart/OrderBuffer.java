@@ -0,0 +1,83 @@
+package com.swiftcart;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * OrderBuffer is a fixed-capacity list of orders backed by a preallocated Order[] array.
+ * Buffers taken from an OrderBufferPool go back to it with release() once their contents
+ * are no longer needed, so the sorting area can build containers without allocating.
+ */
+public final class OrderBuffer extends AbstractList<Order> implements RandomAccess {
+    private final Order[] slots;
+    private final OrderBufferPool pool;
+    private int size;
+
+    public OrderBuffer(int capacity) {
+        this(capacity, null);
+    }
+
+    OrderBuffer(int capacity, OrderBufferPool pool) {
+        this.slots = new Order[capacity];
+        this.pool = pool;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public boolean isFull() {
+        return size == slots.length;
+    }
+
+    @Override
+    public boolean add(Order order) {
+        if (size == slots.length) {
+            throw new IllegalStateException("OrderBuffer is full: " + slots.length);
+        }
+        slots[size++] = order;
+        return true;
+    }
+
+    /**
+     * Appends every order of another buffer with a single array copy.
+     */
+    public void addAll(OrderBuffer other) {
+        if (size + other.size > slots.length) {
+            throw new IllegalStateException("OrderBuffer is full: " + slots.length);
+        }
+        System.arraycopy(other.slots, 0, slots, size, other.size);
+        size += other.size;
+    }
+
+    @Override
+    public Order get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return slots[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Empties the buffer and returns it to the pool it came from, if any.
+     */
+    public void release() {
+        clear();
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.swiftcart;
+
+/**
+ * OrderBufferPool recycles OrderBuffers of one capacity.
+ * The free buffers sit in a lock-free MpmcRingBuffer, so sorting areas can acquire buffers
+ * while trucks release them without locking. Buffers are preallocated up front; if the pool
+ * runs dry a new buffer is allocated, and buffers returned to a full pool are dropped.
+ */
+public class OrderBufferPool {
+    private final int bufferCapacity;
+    private final MpmcRingBuffer<OrderBuffer> free;
+
+    public OrderBufferPool(int bufferCapacity, int preallocated, int maxPooled) {
+        this.bufferCapacity = bufferCapacity;
+        this.free = new MpmcRingBuffer<>(maxPooled, WaitStrategy.PARK);
+        for (int i = 0; i < preallocated; i++) {
+            free.offer(new OrderBuffer(bufferCapacity, this));
+        }
+    }
+
+    public OrderBuffer acquire() {
+        OrderBuffer buffer = free.poll();
+        return buffer != null ? buffer : new OrderBuffer(bufferCapacity, this);
+    }
+
+    void release(OrderBuffer buffer) {
+        free.offer(buffer);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
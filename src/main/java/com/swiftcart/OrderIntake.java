@@ -1,42 +1,78 @@
 package com.swiftcart;
 
-import java.util.Random;
+import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 
 /**
  * OrderIntake class simulates the intake of orders into the SwiftCart system.
  * It implements Runnable to allow it to run in a separate thread.
- * The OrderIntake generates 600 orders, each with a unique ID, and puts them into an intake queue.
- * After generating all orders, it sends POISON_PILL signals to stop processing.
+ * The OrderIntake takes orders from an OrderSource, waits until each one's arrival time and puts it into an intake queue.
+ * The intake queue is bounded, so a source is only read as fast as the pickers drain it.
+ * Every order is given its priority, drawn by order id from the run's RandomStream of priorities,
+ * and the deadline of that priority's SLA, counted from when it was created.
+ * Several intakes can read the same source in parallel; they share a ShutdownCoordinator and
+ * once the source is exhausted, the last one to finish sends a POISON_PILL to stop processing.
  */
 public class OrderIntake implements Runnable {
     private final BlockingQueue<Order> intakeQueue;
-    private final Random random = new Random();
+    private final OrderSource source;
+    private final long startMillis;
+    private final ShutdownCoordinator<Order> shutdown;
+    private final StageMetrics metrics;
+    private final PrioritySettings priority;
+    private final RandomStream priorityRandom;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
 
-    public OrderIntake(BlockingQueue<Order> intakeQueue) {
+    public OrderIntake(BlockingQueue<Order> intakeQueue, OrderSource source, long startMillis, ShutdownCoordinator<Order> shutdown,
+                       StageMetrics metrics, PrioritySettings priority, RandomStream priorityRandom, OrderJournal journal, EventLog log,
+                       SimulationClock clock) {
         this.intakeQueue = intakeQueue;
+        this.source = source;
+        this.startMillis = startMillis;
+        this.shutdown = shutdown;
+        this.metrics = metrics;
+        this.priority = priority;
+        this.priorityRandom = priorityRandom;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
     }
 
     @Override
     public void run() {
+        OrderArrival arrival = new OrderArrival();
         try {
-            for (int i = 1; i <= 600; i++) {
-                Order order = new Order(i, getRegionalZone());
-                intakeQueue.put(order);
-                System.out.println("OrderIntake: Created Order #" + order.getId() + " with zone " + order.getRegionalZone() + " (Thread: " + Thread.currentThread().getName() + ")");
-                Thread.sleep(500);
+            try {
+                while (source.next(arrival)) {
+                    long wait = startMillis + arrival.getAtMillis() - clock.currentTimeMillis();
+                    if (wait > 0) {
+                        clock.sleep(wait);
+                    }
+                    Order order = arrival.getOrder();
+                    // Intake service time is how long the put takes, i.e. how long the pickers hold intake back
+                    long created = clock.nanoTime();
+                    order.markEntered(Stage.INTAKE, created);
+                    order.markEnqueued(created);
+                    OrderPriority orderPriority = priorityRandom.nextDouble(order.getId()) < priority.getExpressShare()
+                        ? OrderPriority.EXPRESS : OrderPriority.STANDARD;
+                    order.assignDeadline(orderPriority, clock.currentTimeMillis() + priority.getSlaMillis(orderPriority));
+                    journal.orderCreated(order);
+                    intakeQueue.put(order);
+                    metrics.recordService(clock.nanoTime() - created);
+                    log.log(EventType.ORDER_CREATED, "OrderIntake", order.getId(), 0, order.getRegionalZone().getDisplayName());
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                // Stop taking orders, but still shut the pipeline down behind the ones already sent;
+                // the Simulation reports the failure once it has stopped
             }
-            // After creating all orders, send poison pills to the pickers
-            for (int i = 0; i < 4; i++) {
+            // Once every intake is done, poison the pickers; they hand the pill on to each other
+            if (shutdown.workerFinished()) {
                 intakeQueue.put(Order.POISON_PILL);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
-
-    private String getRegionalZone() {
-        String[] zones = {"North", "South", "East", "West", "Central"};
-        return zones[random.nextInt(zones.length)];
-    }
-}
\ No newline at end of file
+}
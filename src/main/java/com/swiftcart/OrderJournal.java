@@ -0,0 +1,445 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * OrderJournal is an append-only write-ahead journal of every stage transition in the pipeline,
+ * kept in a memory-mapped file so that a crashed run can be recovered (JournalRecovery) or a
+ * recorded run replayed (JournalTool).
+ * Stations write a transition before they hand the item on. Every record is 32 bytes:
+ * checksum, type, stage, priority, time, order id, a reference (container or truck id) and the zone
+ * in ASCII. A CREATED record keeps the order's priority, and its deadline as ms after the record's
+ * time in the reference, so a recovered order is scheduled as it was before the crash.
+ * A torn or unwritten record fails its checksum, which is where reading stops, and where a
+ * recovered run continues after zeroing the rest of the file.
+ * Appends only copy the record into the mapping under a short lock. A committer thread forces the
+ * mapping to disk every few milliseconds, so one force covers every record written since the last
+ * (group commit). In sync mode an append also waits for the commit that covers it.
+ * A run whose orders clearly need more records than the journal has room for is refused before
+ * it starts. If the journal fills up anyway, it stops recording and says so once; what it holds
+ * is then a valid journal of the run up to that point, like that of a crashed run.
+ */
+public class OrderJournal implements AutoCloseable {
+    /** Name of the system property giving the journal file; no journal is kept without it. */
+    public static final String PROPERTY = "swiftcart.journal";
+    /** With true, every append waits until the group commit covering it has reached the disk. */
+    public static final String SYNC_PROPERTY = "swiftcart.journal.sync";
+    /** Size of the mapped record area in megabytes (default 64, about two million records). */
+    public static final String CAPACITY_PROPERTY = "swiftcart.journal.capacityMb";
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 32;
+    private static final int MAGIC = 0x53434A31; // "SCJ1"
+    private static final int VERSION = 1;
+    // Created, picked, packed, labelled, batched and sorted; every container adds staged and loaded
+    private static final int RECORDS_PER_ORDER = 6;
+    private static final int RECORDS_PER_CONTAINER = 2;
+    private static final long COMMIT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    // Every zone encoded, indexed by ordinal, so neither writing nor reading a zone allocates
+    private static final long[] ZONE_BITS = new long[Zone.COUNT];
+    private static final OrderPriority[] PRIORITIES = OrderPriority.values();
+
+    static {
+        for (Zone zone : Zone.values()) {
+            String name = zone.getDisplayName();
+            long bits = 0;
+            for (int i = 0; i < Math.min(name.length(), 8); i++) {
+                bits |= (long) (name.charAt(i) & 0x7F) << (8 * i);
+            }
+            ZONE_BITS[zone.ordinal()] = bits;
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final SimulationClock clock;
+    private final boolean sync;
+
+    private final Object appendLock = new Object();
+    private long position;
+    private boolean full;
+    private final Object commitLock = new Object();
+    private long committed;
+    private long commits;
+    private final Thread committer;
+    private volatile boolean closed;
+
+    private OrderJournal(FileChannel channel, MappedByteBuffer buffer, long position, SimulationClock clock, boolean sync) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.position = position;
+        this.committed = position;
+        this.clock = clock;
+        this.sync = sync;
+        if (buffer == null) {
+            this.committer = null;
+        } else {
+            this.committer = new Thread(this::commitLoop, "journal-committer");
+            committer.setDaemon(true);
+            committer.start();
+        }
+    }
+
+    /**
+     * Opens the journal named by -Dswiftcart.journal, or a disabled journal if it is not set.
+     * With append the journal continues after its last valid record, as a recovered run does;
+     * otherwise the file is replaced.
+     */
+    public static OrderJournal fromSystemProperties(SimulationClock clock, boolean append) throws IOException {
+        String file = System.getProperty(PROPERTY);
+        if (file == null || file.isEmpty()) {
+            return disabled();
+        }
+        int capacityMb = Integer.getInteger(CAPACITY_PROPERTY, 64);
+        if (capacityMb < 1 || capacityMb > 2000) {
+            throw new IllegalArgumentException("Journal capacity must be between 1 and 2000 MB: " + capacityMb);
+        }
+        long capacity = capacityMb * 1024L * 1024L;
+        boolean sync = Boolean.getBoolean(SYNC_PROPERTY);
+        Path path = Path.of(file);
+        return append && Files.exists(path) ? append(path, capacity, clock, sync) : create(path, capacity, clock, sync);
+    }
+
+    /**
+     * Creates a new, empty journal of the given capacity, replacing any existing file.
+     */
+    public static OrderJournal create(Path file, long capacityBytes, SimulationClock clock, boolean sync) throws IOException {
+        Files.deleteIfExists(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacityBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.force();
+        return new OrderJournal(channel, buffer, HEADER_SIZE, clock, sync);
+    }
+
+    /**
+     * Opens an existing journal and continues appending after its last valid record. Everything
+     * after that record is zeroed first: a record torn in a crash can be followed by older records
+     * that did reach the disk, and those must not be read as part of the continued run.
+     */
+    public static OrderJournal append(Path file, long capacityBytes, SimulationClock clock, boolean sync) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), HEADER_SIZE + capacityBytes);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        checkHeader(buffer, file);
+        long end = HEADER_SIZE;
+        while (decode(buffer, end) != null) {
+            end += RECORD_SIZE;
+        }
+        clear(buffer, end);
+        return new OrderJournal(channel, buffer, end, clock, sync);
+    }
+
+    /**
+     * Returns a journal that records nothing.
+     */
+    public static OrderJournal disabled() {
+        return new OrderJournal(null, null, 0, null, false);
+    }
+
+    /**
+     * Reads every valid record of a journal file, in the order they were written.
+     */
+    public static List<JournalRecord> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, file);
+            List<JournalRecord> records = new ArrayList<>();
+            for (long offset = HEADER_SIZE; ; offset += RECORD_SIZE) {
+                JournalRecord record = decode(buffer, offset);
+                if (record == null) {
+                    return records;
+                }
+                records.add(record);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+
+    /**
+     * Records a new order with its priority and deadline, so they must be assigned first.
+     */
+    public void orderCreated(Order order) {
+        long deadline = order.getDeadlineMillis();
+        int deadlineIn = -1;
+        if (deadline != Order.NO_DEADLINE && buffer != null) {
+            deadlineIn = (int) Math.max(0, Math.min(Integer.MAX_VALUE, deadline - clock.currentTimeMillis()));
+        }
+        write(JournalRecordType.CREATED, 0, order.getPriority().ordinal() + 1, order.getId(), deadlineIn, order.getRegionalZone());
+    }
+
+    /**
+     * Records that an order passed one of the picking, packing or labelling stations.
+     */
+    public void orderPassed(Stage stage, Order order) {
+        write(JournalRecordType.leaving(stage), 0, 0, order.getId(), 0, order.getRegionalZone());
+    }
+
+    public void orderRejected(Stage stage, Order order) {
+        write(JournalRecordType.REJECTED, stage.ordinal(), 0, order.getId(), stage.ordinal(), order.getRegionalZone());
+    }
+
+    /**
+     * Records that an order joined a regional batch in the sorting area.
+     */
+    public void orderBatched(Order order) {
+        write(JournalRecordType.BATCHED, 0, 0, order.getId(), 0, order.getRegionalZone());
+    }
+
+    /**
+     * Records every order of a new container as sorted into it.
+     */
+    public void containerSorted(Container container) {
+        List<Order> orders = container.getOrders();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            write(JournalRecordType.SORTED, 0, 0, order.getId(), container.getId(), order.getRegionalZone());
+        }
+    }
+
+    /**
+     * Records that a loader put a container into the loading queue.
+     */
+    public void containerStaged(Container container) {
+        write(JournalRecordType.STAGED, 0, 0, 0, container.getId(), null);
+    }
+
+    public void containerLoaded(Container container, int truckId) {
+        write(JournalRecordType.LOADED, 0, 0, container.getId(), truckId, null);
+    }
+
+    public void truckDeparted(int truckId) {
+        write(JournalRecordType.DEPARTED, 0, 0, 0, truckId, null);
+    }
+
+    // Priority is the OrderPriority ordinal plus one, or 0 for records without one
+    private void write(JournalRecordType type, int stage, int priority, int orderId, int ref, Zone zone) {
+        if (buffer == null) {
+            return;
+        }
+        long time = clock.currentTimeMillis();
+        long zoneBits = zone == null ? 0 : ZONE_BITS[zone.ordinal()];
+        long end;
+        synchronized (appendLock) {
+            long offset = position;
+            if (offset + RECORD_SIZE > buffer.capacity()) {
+                // Failing here would stop one station and leave the rest of the pipeline waiting for it
+                if (!full) {
+                    full = true;
+                    System.err.println("OrderJournal: the journal is full at " + offset + " bytes, later transitions are not recorded;"
+                        + " raise -D" + CAPACITY_PROPERTY);
+                }
+                return;
+            }
+            int at = (int) offset;
+            buffer.put(at + 4, type.getCode());
+            buffer.put(at + 5, (byte) stage);
+            buffer.put(at + 6, (byte) priority);
+            buffer.putLong(at + 8, time);
+            buffer.putInt(at + 16, orderId);
+            buffer.putInt(at + 20, ref);
+            buffer.putLong(at + 24, zoneBits);
+            buffer.putInt(at, checksum(type.getCode(), (byte) stage, (byte) priority, time, orderId, ref, zoneBits));
+            position = offset + RECORD_SIZE;
+            end = position;
+        }
+        if (sync) {
+            awaitCommit(end);
+        }
+    }
+
+    private void awaitCommit(long end) {
+        synchronized (commitLock) {
+            boolean interrupted = false;
+            while (committed < end && !closed) {
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            commit();
+            LockSupport.parkNanos(COMMIT_INTERVAL_NANOS);
+        }
+    }
+
+    // Everything below the append position has been written completely, since appends happen under the lock
+    private void commit() {
+        long target;
+        synchronized (appendLock) {
+            target = position;
+        }
+        synchronized (commitLock) {
+            if (target <= committed) {
+                return;
+            }
+        }
+        buffer.force();
+        synchronized (commitLock) {
+            committed = target;
+            commits++;
+            commitLock.notifyAll();
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if the given number of orders, in containers of the given
+     * size, needs more records than the journal has room left for.
+     */
+    public void checkCapacity(long orders, int ordersPerContainer) {
+        if (buffer == null) {
+            return;
+        }
+        long containers = (orders + ordersPerContainer - 1) / ordersPerContainer;
+        long needed = orders * RECORDS_PER_ORDER + containers * RECORDS_PER_CONTAINER;
+        long room;
+        synchronized (appendLock) {
+            room = (buffer.capacity() - position) / RECORD_SIZE;
+        }
+        if (needed > room) {
+            long neededMb = (needed * RECORD_SIZE + (1 << 20) - 1) >> 20;
+            throw new IllegalArgumentException("The order journal has room for " + room + " more records, but " + orders
+                + " orders need about " + needed + ": set -D" + CAPACITY_PROPERTY + " to at least " + neededMb);
+        }
+    }
+
+    /**
+     * Returns true if the journal ran out of room and stopped recording.
+     */
+    public boolean isFull() {
+        synchronized (appendLock) {
+            return full;
+        }
+    }
+
+    /**
+     * Returns the number of records written by this journal instance and earlier runs.
+     */
+    public long getRecordCount() {
+        synchronized (appendLock) {
+            return buffer == null ? 0 : (position - HEADER_SIZE) / RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Returns how many group commits (forces to disk) this journal instance has made.
+     */
+    public long getCommitCount() {
+        synchronized (commitLock) {
+            return commits;
+        }
+    }
+
+    /**
+     * Commits every record written so far and closes the file.
+     */
+    @Override
+    public void close() {
+        if (buffer == null) {
+            return;
+        }
+        closed = true;
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        synchronized (commitLock) {
+            commitLock.notifyAll();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close the order journal", e);
+        }
+    }
+
+    // Zeroes the mapping from the offset to its end and forces it to disk
+    private static void clear(MappedByteBuffer buffer, long offset) {
+        ByteBuffer tail = buffer.duplicate();
+        tail.position((int) offset);
+        byte[] zeros = new byte[64 * 1024];
+        while (tail.hasRemaining()) {
+            tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+        }
+        buffer.force();
+    }
+
+    static void checkHeader(ByteBuffer buffer, Path file) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IllegalArgumentException("Not an order journal: " + file);
+        }
+    }
+
+    static JournalRecord decode(ByteBuffer buffer, long offset) {
+        if (offset + RECORD_SIZE > buffer.capacity()) {
+            return null;
+        }
+        int at = (int) offset;
+        byte code = buffer.get(at + 4);
+        byte stage = buffer.get(at + 5);
+        byte priority = buffer.get(at + 6);
+        long time = buffer.getLong(at + 8);
+        int orderId = buffer.getInt(at + 16);
+        int ref = buffer.getInt(at + 20);
+        long zoneBits = buffer.getLong(at + 24);
+        JournalRecordType type = JournalRecordType.forCode(code);
+        if (type == null || buffer.getInt(at) != checksum(code, stage, priority, time, orderId, ref, zoneBits)) {
+            return null;
+        }
+        if (type != JournalRecordType.CREATED || priority <= 0 || priority > PRIORITIES.length) {
+            return new JournalRecord(type, time, orderId, ref, decodeZone(zoneBits));
+        }
+        long deadline = ref < 0 ? Order.NO_DEADLINE : time + ref;
+        return new JournalRecord(type, time, orderId, ref, decodeZone(zoneBits), PRIORITIES[priority - 1], deadline);
+    }
+
+    // Never zero, so an unwritten (zeroed) record is always rejected. A priority of 0 leaves the
+    // hash as it was before records had one, so older journals still read
+    private static int checksum(byte type, byte stage, byte priority, long time, int orderId, int ref, long zoneBits) {
+        long hash = type * 31L + stage + ((long) priority << 16);
+        hash = hash * 0x9E3779B97F4A7C15L + time;
+        hash = hash * 0x9E3779B97F4A7C15L + orderId;
+        hash = hash * 0x9E3779B97F4A7C15L + ref;
+        hash = hash * 0x9E3779B97F4A7C15L + zoneBits;
+        int folded = (int) (hash ^ (hash >>> 32));
+        return folded == 0 ? 1 : folded;
+    }
+
+    // Zones are stored as up to 8 ASCII characters of their name packed into a long, so the
+    // file stays readable whatever the zone ordinals are; records without a zone store 0
+    private static Zone decodeZone(long bits) {
+        for (int i = 0; i < ZONE_BITS.length; i++) {
+            if (ZONE_BITS[i] == bits) {
+                return Zone.forCode((byte) i);
+            }
+        }
+        return null;
+    }
+}
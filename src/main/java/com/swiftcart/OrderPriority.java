@@ -0,0 +1,23 @@
+package com.swiftcart;
+
+/**
+ * OrderPriority is the service level an order was bought with. The OrderIntake gives every order
+ * the deadline of its priority, and with deadline scheduling the queues and the sorting area work
+ * on the orders closest to their deadline first.
+ */
+public enum OrderPriority {
+    /** Paid for fast delivery, with the short SLA. */
+    EXPRESS("express"),
+    /** Everything else, with the long SLA. */
+    STANDARD("standard");
+
+    private final String label;
+
+    OrderPriority(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
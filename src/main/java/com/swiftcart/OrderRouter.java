@@ -0,0 +1,169 @@
+package com.swiftcart;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OrderRouter is the intake queue of a multi-warehouse run.
+ * The OrderIntakes put into it as usual, and every order goes to the intake queue of its home
+ * warehouse under the RoutingPolicy. When the home queue holds more than the rebalance depth,
+ * the order goes to the warehouse with the shortest intake queue instead, as long as that one
+ * is under the rebalance depth itself. If every warehouse is that busy the order stays with its
+ * home warehouse and waits for room there, so a saturated run keeps its partitioning.
+ * A POISON_PILL is copied to every warehouse. Orders can only be taken from the warehouse queues.
+ */
+public class OrderRouter extends AbstractQueue<Order> implements BlockingQueue<Order> {
+    private final List<BlockingQueue<Order>> warehouseQueues;
+    private final RoutingPolicy policy;
+    private final int rebalanceDepth;
+    private final LongAdder[] routed;
+    private final LongAdder[] rebalancedIn;
+
+    /**
+     * Routes to the given warehouse intake queues. An order is moved off its home warehouse
+     * once that warehouse's intake queue holds more than rebalanceDepth orders.
+     */
+    public OrderRouter(List<BlockingQueue<Order>> warehouseQueues, RoutingPolicy policy, int rebalanceDepth) {
+        if (warehouseQueues.isEmpty()) {
+            throw new IllegalArgumentException("The router needs at least one warehouse");
+        }
+        this.warehouseQueues = List.copyOf(warehouseQueues);
+        this.policy = policy;
+        this.rebalanceDepth = rebalanceDepth;
+        this.routed = new LongAdder[warehouseQueues.size()];
+        this.rebalancedIn = new LongAdder[warehouseQueues.size()];
+        for (int i = 0; i < routed.length; i++) {
+            routed[i] = new LongAdder();
+            rebalancedIn[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void put(Order order) throws InterruptedException {
+        if (order == Order.POISON_PILL) {
+            for (BlockingQueue<Order> warehouseQueue : warehouseQueues) {
+                warehouseQueue.put(Order.POISON_PILL);
+            }
+            return;
+        }
+        warehouseQueues.get(route(order)).put(order);
+    }
+
+    @Override
+    public boolean offer(Order order) {
+        if (order == Order.POISON_PILL) {
+            throw new IllegalArgumentException("The poison pill must be put, not offered");
+        }
+        return warehouseQueues.get(route(order)).offer(order);
+    }
+
+    @Override
+    public boolean offer(Order order, long timeout, TimeUnit unit) throws InterruptedException {
+        if (order == Order.POISON_PILL) {
+            throw new IllegalArgumentException("The poison pill must be put, not offered");
+        }
+        return warehouseQueues.get(route(order)).offer(order, timeout, unit);
+    }
+
+    /**
+     * Returns how many orders were sent to the given warehouse, counting the rebalanced ones.
+     */
+    public long getRouted(int warehouse) {
+        return routed[warehouse].sum();
+    }
+
+    /**
+     * Returns how many orders the given warehouse took over from a busier one.
+     */
+    public long getRebalancedIn(int warehouse) {
+        return rebalancedIn[warehouse].sum();
+    }
+
+    public long getRebalanced() {
+        long rebalanced = 0;
+        for (LongAdder count : rebalancedIn) {
+            rebalanced += count.sum();
+        }
+        return rebalanced;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<Order> warehouseQueue : warehouseQueues) {
+            size += warehouseQueue.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int remaining = Integer.MAX_VALUE;
+        for (BlockingQueue<Order> warehouseQueue : warehouseQueues) {
+            remaining = Math.min(remaining, warehouseQueue.remainingCapacity());
+        }
+        return remaining;
+    }
+
+    @Override
+    public Order take() {
+        throw new UnsupportedOperationException("Take orders from the warehouse queues");
+    }
+
+    @Override
+    public Order poll(long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException("Take orders from the warehouse queues");
+    }
+
+    @Override
+    public Order poll() {
+        throw new UnsupportedOperationException("Take orders from the warehouse queues");
+    }
+
+    @Override
+    public Order peek() {
+        throw new UnsupportedOperationException("Take orders from the warehouse queues");
+    }
+
+    @Override
+    public int drainTo(Collection<? super Order> c) {
+        throw new UnsupportedOperationException("Take orders from the warehouse queues");
+    }
+
+    @Override
+    public int drainTo(Collection<? super Order> c, int maxElements) {
+        throw new UnsupportedOperationException("Take orders from the warehouse queues");
+    }
+
+    @Override
+    public Iterator<Order> iterator() {
+        throw new UnsupportedOperationException("Iterate the warehouse queues");
+    }
+
+    // Only the home queue's depth is read for most orders; the others are scanned once it is over the threshold
+    private int route(Order order) {
+        int home = policy.home(order, warehouseQueues.size());
+        int homeDepth = warehouseQueues.get(home).size();
+        int target = home;
+        if (homeDepth > rebalanceDepth) {
+            int shortest = rebalanceDepth + 1;
+            for (int i = 0; i < warehouseQueues.size(); i++) {
+                int depth = warehouseQueues.get(i).size();
+                if (depth < shortest) {
+                    shortest = depth;
+                    target = i;
+                }
+            }
+            if (target != home) {
+                rebalancedIn[target].increment();
+            }
+        }
+        routed[target].increment();
+        return target;
+    }
+}
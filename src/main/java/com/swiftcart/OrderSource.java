@@ -0,0 +1,82 @@
+package com.swiftcart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * OrderSource is where the OrderIntake gets its orders from.
+ * A source hands out orders one by one together with their arrival time, and the intake waits on
+ * the simulation clock until that time before it puts the order into the intake queue.
+ * Sources are read by every intake producer at once, so next() must be thread-safe; because
+ * the producers block on a bounded intake queue, a source is never read faster than the pipeline
+ * drains it, and reading even a very large file takes constant memory.
+ * The source is chosen with -Dswiftcart.source:
+ * synthetic (the default) generates orders, csv:path and ndjson:path stream a text file,
+ * and journal:path replays the orders created in an OrderJournal.
+ */
+public interface OrderSource extends Closeable {
+    /** Name of the system property that chooses the source. */
+    String PROPERTY = "swiftcart.source";
+
+    /**
+     * Fills the slot with the next order. Returns false once the source is exhausted.
+     */
+    boolean next(OrderArrival arrival) throws IOException;
+
+    /**
+     * Returns how many orders this run covers, counting any that a recovered run skips.
+     * The simulation sizes its containers and trucks from it.
+     */
+    int getTotalOrders() throws IOException;
+
+    /**
+     * Opens the source chosen in the config. Orders with ids below firstOrderId
+     * were already created by a crashed run and are skipped (1 reads everything).
+     * Arrival times in files and journals are divided by the source speed (default 1, or max);
+     * a synthetic source draws its arrivals and zones from the given generator.
+     */
+    static OrderSource open(SimulationConfig config, int firstOrderId, SplittableRandom random) throws IOException {
+        String spec = config.getSource();
+        double speed = config.getSourceSpeed();
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String path = colon < 0 ? null : spec.substring(colon + 1);
+        switch (kind.toLowerCase()) {
+            case "synthetic":
+                // A streaming run never runs out of orders; it drains when it is stopped
+                return new SyntheticOrderSource(firstOrderId, config.isStreaming() ? Integer.MAX_VALUE : config.getOrders(), ArrivalProcess.forSpec(config.getArrivals()),
+                    ZoneMix.forSpec(config.getZones()), random);
+            case "csv":
+                return new CsvOrderSource(Path.of(requirePath(spec, path)), firstOrderId, speed);
+            case "ndjson":
+                return new NdjsonOrderSource(Path.of(requirePath(spec, path)), firstOrderId, speed);
+            case "journal":
+                return new JournalOrderSource(Path.of(requirePath(spec, path)), firstOrderId, speed);
+            default:
+                throw new IllegalArgumentException("Unknown order source: " + spec);
+        }
+    }
+
+    /**
+     * Parses a speed factor for recorded arrival times: a positive number, or "max" for no gaps at all.
+     */
+    static double parseSpeed(String speed) {
+        if (speed == null) {
+            return 1.0;
+        }
+        double factor = "max".equalsIgnoreCase(speed) ? Double.POSITIVE_INFINITY : Double.parseDouble(speed);
+        if (!(factor > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        return factor;
+    }
+
+    private static String requirePath(String spec, String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Order source needs a file: " + spec);
+        }
+        return path;
+    }
+}
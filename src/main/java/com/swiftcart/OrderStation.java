@@ -0,0 +1,146 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * OrderStation is the common loop of the picking, packing and labelling stations.
+ * It takes orders from an input queue, rejects each one with the rejection rate (5% by default) and forwards
+ * the rest to an output queue until it receives a POISON_PILL.
+ * With a batch size above 1 the station drains up to that many orders in one call,
+ * processes them together and forwards the survivors with a single bulk put,
+ * so the queue synchronization is paid once per batch instead of once per order.
+ * A stage can run any number of these stations on the same queues; they share a
+ * ShutdownCoordinator so that the stage stops as a whole on one POISON_PILL.
+ * Every order's queue wait and service time is recorded in the stage's StageMetrics,
+ * and what happens to it is reported through the EventLog.
+ * Every order that passes or is rejected is written to the OrderJournal before it is forwarded.
+ * Whether an order is rejected is drawn from the stage's RandomStream by order id, so a run's
+ * rejections depend only on its seed, not on which station happens to take which order.
+ * An order takes the stage's service time on the simulation clock (none by default, the stations
+ * have always been instant). A station asked to retire stops before its next batch, unless it is
+ * the last one of its stage.
+ */
+public abstract class OrderStation implements Runnable {
+    protected final BlockingQueue<Order> inputQueue;
+    protected final BlockingQueue<Order> outputQueue;
+    private final StageMetrics metrics;
+    private final ShutdownCoordinator<Order> shutdown;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+    private final BatchSettings batchSettings;
+    private final String stationName;
+    private final String action;
+    private final RandomStream random;
+    private final double rejectionRate;
+    private final long serviceMillis;
+    private volatile boolean retiring;
+
+    protected OrderStation(String stationName, String action, BlockingQueue<Order> inputQueue, BlockingQueue<Order> outputQueue,
+                           StageMetrics metrics, ShutdownCoordinator<Order> shutdown, OrderJournal journal, EventLog log,
+                           SimulationClock clock, BatchSettings batchSettings, RandomStream random, double rejectionRate, long serviceMillis) {
+        this.stationName = stationName;
+        this.action = action;
+        this.inputQueue = inputQueue;
+        this.outputQueue = outputQueue;
+        this.metrics = metrics;
+        this.shutdown = shutdown;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.batchSettings = batchSettings;
+        this.random = random;
+        this.rejectionRate = rejectionRate;
+        this.serviceMillis = serviceMillis;
+    }
+
+    @Override
+    public void run() {
+        List<Order> batch = new ArrayList<>(batchSettings.getSize());
+        List<Order> survivors = new ArrayList<>(batchSettings.getSize());
+        try {
+            while (true) {
+                if (retiring) {
+                    if (shutdown.tryRetire()) {
+                        break;
+                    }
+                    retiring = false; // The last station of the stage stays for the pill
+                }
+                beforeBatch();
+                try {
+                    Batches.takeBatch(inputQueue, batch, batchSettings, Order.POISON_PILL, clock);
+                    boolean poisoned = false;
+                    int orders = 0;
+                    int rejected = 0;
+                    long entered = clock.nanoTime();
+                    for (Order order : batch) {
+                        if (order == Order.POISON_PILL) {
+                            poisoned = true;
+                            continue;
+                        }
+                        orders++;
+                        metrics.entered(order, entered);
+                        log.log(EventType.ORDER_PROCESSED, stationName, order.getId(), 0, action);
+                        if (random.nextDouble(order.getId()) < rejectionRate) {
+                            rejected++;
+                            journal.orderRejected(metrics.getStage(), order);
+                            log.log(EventType.ORDER_REJECTED, stationName, order.getId());
+                        } else {
+                            survivors.add(order);
+                        }
+                    }
+                    if (rejected > 0) {
+                        metrics.rejected(rejected, entered);
+                    }
+                    if (serviceMillis > 0 && orders > 0) {
+                        clock.sleep(serviceMillis * orders);
+                    }
+                    long finished = clock.nanoTime();
+                    for (Order order : survivors) {
+                        metrics.finished(order, finished);
+                        journal.orderPassed(metrics.getStage(), order);
+                    }
+                    Batches.putAll(outputQueue, survivors);
+                    if (poisoned) {
+                        if (shutdown.workerFinished(inputQueue)) {
+                            outputQueue.put(Order.POISON_PILL); // Last one poisons the next queue
+                        }
+                        break;
+                    }
+                } finally {
+                    batch.clear();
+                    survivors.clear();
+                    afterBatch();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks the station to stop before its next batch. A station blocked on an empty input queue
+     * stops once it has processed what it takes next.
+     */
+    public void retire() {
+        retiring = true;
+    }
+
+    public boolean isRetiring() {
+        return retiring;
+    }
+
+    /**
+     * Called before every batch is taken, e.g. to acquire a permit.
+     */
+    protected void beforeBatch() throws InterruptedException {
+    }
+
+    /**
+     * Called after every batch, also when the station is stopping.
+     */
+    protected void afterBatch() {
+    }
+}
@@ -0,0 +1,115 @@
+package com.swiftcart;
+
+/**
+ * PooledContainerBuilder batches boxes without allocating in steady state.
+ * Each zone keeps one fixed batch-sized OrderBuffer for its lifetime, in an array indexed by the
+ * zone's ordinal, and a ready batch is copied
+ * straight into the container-sized buffer of the container being filled, so there are no
+ * intermediate lists. Container buffers come from an OrderBufferPool and go back to it when
+ * the truck that carried the container releases it (Container.recycle()).
+ * The only allocation left per container is the Container object itself.
+ */
+public class PooledContainerBuilder implements ContainerBuilder {
+    private final OrderBufferPool containerPool;
+    private final IdSequence containerIds;
+    private final int batchSize;
+    private final int batchesPerContainer;
+    private final OrderBuffer[] regionalBatches = new OrderBuffer[Zone.COUNT];
+    private OrderBuffer current;
+    // Ready batches in the current container; closed batches may be short, so the boxes are not counted
+    private int readyBatches;
+    private Container completed;
+
+    /**
+     * The pool's buffers must hold batchSize * batchesPerContainer orders.
+     */
+    public PooledContainerBuilder(OrderBufferPool containerPool, IdSequence containerIds, int batchSize, int batchesPerContainer) {
+        this.containerPool = containerPool;
+        this.containerIds = containerIds;
+        this.batchSize = batchSize;
+        this.batchesPerContainer = batchesPerContainer;
+        this.current = containerPool.acquire();
+        for (int i = 0; i < regionalBatches.length; i++) {
+            regionalBatches[i] = new OrderBuffer(batchSize);
+        }
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public boolean add(Order order) {
+        OrderBuffer batch = regionalBatches[order.getRegionalZone().ordinal()];
+        batch.add(order);
+        if (!batch.isFull()) {
+            return false;
+        }
+        ready(batch);
+        return true;
+    }
+
+    @Override
+    public boolean closeBatch(Zone zone) {
+        OrderBuffer batch = regionalBatches[zone.ordinal()];
+        if (batch.size() == 0) {
+            return false;
+        }
+        ready(batch);
+        return true;
+    }
+
+    @Override
+    public Container closeContainer() {
+        if (readyBatches == 0) {
+            return null;
+        }
+        Container container = new Container(containerIds.next(), current);
+        current = containerPool.acquire();
+        readyBatches = 0;
+        return container;
+    }
+
+    private void ready(OrderBuffer batch) {
+        current.addAll(batch);
+        batch.clear();
+        if (++readyBatches == batchesPerContainer) {
+            completed = new Container(containerIds.next(), current);
+            current = containerPool.acquire();
+            readyBatches = 0;
+        }
+    }
+
+    @Override
+    public Container pollContainer() {
+        Container container = completed;
+        completed = null;
+        return container;
+    }
+
+    @Override
+    public Container flush() {
+        int total = current.size();
+        for (OrderBuffer batch : regionalBatches) {
+            total += batch.size();
+        }
+        if (total == 0) {
+            return null;
+        }
+        OrderBuffer finalBoxes = current;
+        if (total > current.capacity()) {
+            // Leftover ready batches plus every incomplete batch can exceed a container
+            finalBoxes = new OrderBuffer(total);
+            finalBoxes.addAll(current);
+            current.release();
+        }
+        for (OrderBuffer batch : regionalBatches) {
+            finalBoxes.addAll(batch);
+            batch.clear();
+        }
+        current = containerPool.acquire();
+        readyBatches = 0;
+        return new Container(containerIds.next(), finalBoxes);
+    }
+}
@@ -0,0 +1,102 @@
+package com.swiftcart;
+
+import java.util.Properties;
+
+/**
+ * PrioritySettings holds the service levels of the orders and how the pipeline schedules them:
+ * the share of express orders, the SLA of each priority (how long after it was created an order
+ * should leave on a truck), whether deadline scheduling is on, and how long before its deadline
+ * a box makes the sorting area close its batch early.
+ * Every order gets a priority and a deadline, so the report can show the order-to-truck time of
+ * each priority with first-in first-out queues too. With deadline scheduling off, which is the
+ * original behaviour, nothing but the report looks at them.
+ */
+public class PrioritySettings {
+    public static final long DEFAULT_EXPRESS_SLA_MILLIS = 60_000;
+    public static final long DEFAULT_STANDARD_SLA_MILLIS = 600_000;
+
+    private final boolean deadlineScheduling;
+    private final double expressShare;
+    private final long expressSlaMillis;
+    private final long standardSlaMillis;
+    private final long flushLeadMillis;
+
+    public PrioritySettings(boolean deadlineScheduling, double expressShare, long expressSlaMillis, long standardSlaMillis, long flushLeadMillis) {
+        if (expressShare < 0 || expressShare > 1) {
+            throw new IllegalArgumentException("The express share must be between 0 and 1: " + expressShare);
+        }
+        if (expressSlaMillis < 0 || standardSlaMillis < 0) {
+            throw new IllegalArgumentException("SLAs must not be negative: " + expressSlaMillis + ", " + standardSlaMillis);
+        }
+        if (flushLeadMillis < 0) {
+            throw new IllegalArgumentException("The flush lead must not be negative: " + flushLeadMillis);
+        }
+        this.deadlineScheduling = deadlineScheduling;
+        this.expressShare = expressShare;
+        this.expressSlaMillis = expressSlaMillis;
+        this.standardSlaMillis = standardSlaMillis;
+        this.flushLeadMillis = flushLeadMillis;
+    }
+
+    /**
+     * Returns true if the order queues hand out the most urgent order first and the sorting area
+     * closes batches whose boxes would otherwise miss their deadline.
+     */
+    public boolean isDeadlineScheduling() {
+        return deadlineScheduling;
+    }
+
+    /**
+     * Returns the fraction of the orders that are express.
+     */
+    public double getExpressShare() {
+        return expressShare;
+    }
+
+    /**
+     * Returns how long an order of the given priority may take from intake to its truck's departure.
+     */
+    public long getSlaMillis(OrderPriority priority) {
+        return priority == OrderPriority.EXPRESS ? expressSlaMillis : standardSlaMillis;
+    }
+
+    /**
+     * Returns how long before a box's deadline the sorting area ships its batch, full or not.
+     */
+    public long getFlushLeadMillis() {
+        return flushLeadMillis;
+    }
+
+    /**
+     * Returns the defaults: first-in first-out queues and every order standard.
+     */
+    public static PrioritySettings fifo() {
+        return new PrioritySettings(false, 0.0, DEFAULT_EXPRESS_SLA_MILLIS, DEFAULT_STANDARD_SLA_MILLIS, 0);
+    }
+
+    /**
+     * Reads swiftcart.priority=fifo|deadline (default fifo), swiftcart.priority.express=F (default 0),
+     * swiftcart.priority.expressSlaMillis=M (default 60000), swiftcart.priority.standardSlaMillis=M
+     * (default 600000) and swiftcart.priority.flushLeadMillis=M from the given properties. The flush
+     * lead defaults to the dispatch max dwell, the longest a container can then sit on its truck.
+     */
+    public static PrioritySettings fromProperties(Properties properties, DispatchSettings dispatch) {
+        return new PrioritySettings(
+            scheduling(properties.getProperty("swiftcart.priority", "fifo")),
+            Double.parseDouble(properties.getProperty("swiftcart.priority.express", "0")),
+            Long.parseLong(properties.getProperty("swiftcart.priority.expressSlaMillis", String.valueOf(DEFAULT_EXPRESS_SLA_MILLIS))),
+            Long.parseLong(properties.getProperty("swiftcart.priority.standardSlaMillis", String.valueOf(DEFAULT_STANDARD_SLA_MILLIS))),
+            Long.parseLong(properties.getProperty("swiftcart.priority.flushLeadMillis", String.valueOf(dispatch.getMaxDwellMillis()))));
+    }
+
+    // True for deadline scheduling
+    private static boolean scheduling(String scheduling) {
+        if (scheduling.equalsIgnoreCase("fifo")) {
+            return false;
+        }
+        if (scheduling.equalsIgnoreCase("deadline")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown scheduling: " + scheduling + " (expected fifo or deadline)");
+    }
+}
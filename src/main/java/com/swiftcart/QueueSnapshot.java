@@ -0,0 +1,41 @@
+package com.swiftcart;
+
+/**
+ * QueueSnapshot is the current depth of one queue between stations, together with
+ * the mean, p99 and maximum of the depths sampled so far.
+ */
+public class QueueSnapshot {
+    private final String queue;
+    private final int depth;
+    private final double meanDepth;
+    private final long p99Depth;
+    private final long maxDepth;
+
+    public QueueSnapshot(String queue, int depth, double meanDepth, long p99Depth, long maxDepth) {
+        this.queue = queue;
+        this.depth = depth;
+        this.meanDepth = meanDepth;
+        this.p99Depth = p99Depth;
+        this.maxDepth = maxDepth;
+    }
+
+    public String getQueue() {
+        return queue;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getMeanDepth() {
+        return meanDepth;
+    }
+
+    public long getP99Depth() {
+        return p99Depth;
+    }
+
+    public long getMaxDepth() {
+        return maxDepth;
+    }
+}
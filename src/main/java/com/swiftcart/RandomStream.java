@@ -0,0 +1,66 @@
+package com.swiftcart;
+
+import java.util.SplittableRandom;
+
+/**
+ * RandomStream draws the random decisions of one kind (the rejections of a stage, the breakdowns
+ * of the loaders) from the run's master seed. It is counter-based: the draw for a counter, such as
+ * an order or container id, is a SplitMix64 hash of the seed, the stream and that counter, so it
+ * holds no state, needs no synchronisation, and gives the same answer whichever worker asks and
+ * whenever it does. Two runs with the same seed therefore reject the same orders and break down
+ * on the same containers, however their threads happen to be scheduled and however many workers
+ * each stage has. Stream 0 is kept for the order source, which draws its orders one after another
+ * from a SplittableRandom on the same key, and the stream after the stages' for the order priorities.
+ */
+public final class RandomStream {
+    static final int SOURCE = 0;
+    static final int PRIORITIES = Stage.COUNT + 1;
+    // The odd increment of SplitMix64, the same one SplittableRandom steps by
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private final long key;
+
+    public RandomStream(long seed, int stream) {
+        this.key = mix64(seed ^ mix64(stream * GOLDEN_GAMMA + GOLDEN_GAMMA));
+    }
+
+    /**
+     * Returns the stream of a stage's decisions.
+     */
+    public static RandomStream forStage(long seed, Stage stage) {
+        return new RandomStream(seed, stage.ordinal() + 1);
+    }
+
+    /**
+     * Returns the stream that decides which orders are express, by order id.
+     */
+    public static RandomStream forPriorities(long seed) {
+        return new RandomStream(seed, PRIORITIES);
+    }
+
+    /**
+     * Returns the generator of the order source, for draws that follow one another.
+     */
+    public static SplittableRandom forSource(long seed) {
+        return new RandomStream(seed, SOURCE).toSplittableRandom();
+    }
+
+    /**
+     * Returns a uniform double in [0, 1) that depends only on the seed, the stream and the counter.
+     */
+    public double nextDouble(long counter) {
+        return (mix64(key + counter * GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT;
+    }
+
+    public SplittableRandom toSplittableRandom() {
+        return new SplittableRandom(key);
+    }
+
+    // The SplitMix64 finaliser
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
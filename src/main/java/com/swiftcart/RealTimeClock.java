@@ -0,0 +1,57 @@
+package com.swiftcart;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * RealTimeClock keeps the original behaviour of the simulation.
+ * Time is the wall clock, sleeps really sleep, and queues are the standard
+ * LinkedBlockingQueue (unbounded) and ArrayBlockingQueue (bounded), or a DeadlineQueue.
+ */
+public class RealTimeClock implements SimulationClock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    @Override
+    public <E> BlockingQueue<E> newQueue(int capacity) {
+        if (capacity == Integer.MAX_VALUE) {
+            return new LinkedBlockingQueue<>();
+        }
+        return new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public BlockingQueue<Order> newDeadlineQueue(int capacity) {
+        return new DeadlineQueue(capacity, this);
+    }
+
+    @Override
+    public Semaphore newSemaphore(int permits) {
+        return new Semaphore(permits);
+    }
+
+    @Override
+    public Runnable participant(Runnable task) {
+        return task;
+    }
+
+    @Override
+    public void start() {
+        // Real time starts by itself.
+    }
+}
@@ -0,0 +1,136 @@
+package com.swiftcart;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RingBufferQueue is the common base of the lock-free ring buffers.
+ * Subclasses provide the non-blocking offer/poll/peek/size on a preallocated array;
+ * the blocking operations of BlockingQueue are built here on top of them using a WaitStrategy,
+ * so the ring buffers can be handed to the stations in place of a LinkedBlockingQueue.
+ * Iteration is not supported, as is usual for lock-free queues.
+ */
+abstract class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, BulkQueue<E> {
+    protected final Object[] buffer;
+    protected final int mask;
+    private final WaitStrategy waitStrategy;
+
+    RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Returns the real capacity, which is the requested one rounded up to a power of two.
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        int idle = 0;
+        while (!offer(e)) {
+            idle = waitStrategy.idle(idle);
+            checkInterrupt();
+        }
+    }
+
+    @Override
+    public void putAll(List<? extends E> items) throws InterruptedException {
+        for (E item : items) {
+            put(item);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idle = 0;
+        while (!offer(e)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            idle = waitStrategy.idle(idle);
+            checkInterrupt();
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        int idle = 0;
+        while ((e = poll()) == null) {
+            idle = waitStrategy.idle(idle);
+            checkInterrupt();
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        int idle = 0;
+        while ((e = poll()) == null) {
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            idle = waitStrategy.idle(idle);
+            checkInterrupt();
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return buffer.length - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException("Ring buffers cannot be iterated");
+    }
+
+    // Waits once on behalf of a subclass that blocks on its own terms.
+    final int idle(int counter) throws InterruptedException {
+        int next = waitStrategy.idle(counter);
+        checkInterrupt();
+        return next;
+    }
+
+    private static void checkInterrupt() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
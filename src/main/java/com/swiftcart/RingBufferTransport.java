@@ -0,0 +1,27 @@
+package com.swiftcart;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * RingBufferTransport connects the stations with preallocated lock-free ring buffers.
+ * Hops with one producer and one consumer get an SpscRingBuffer, every other hop an MpmcRingBuffer.
+ * Ring buffers are always bounded: unbounded hops get UNBOUNDED_CAPACITY slots, and every
+ * capacity is rounded up to a power of two.
+ */
+public class RingBufferTransport implements Transport {
+    static final int UNBOUNDED_CAPACITY = 1024;
+    private final WaitStrategy waitStrategy;
+
+    public RingBufferTransport(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public <E> BlockingQueue<E> newQueue(int capacity, int producers, int consumers) {
+        int slots = capacity == Integer.MAX_VALUE ? UNBOUNDED_CAPACITY : capacity;
+        if (producers == 1 && consumers == 1) {
+            return new SpscRingBuffer<>(slots, waitStrategy);
+        }
+        return new MpmcRingBuffer<>(slots, waitStrategy);
+    }
+}
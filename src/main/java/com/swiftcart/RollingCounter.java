@@ -0,0 +1,66 @@
+package com.swiftcart;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RollingCounter counts events in one-second buckets of the simulation clock, so that the
+ * totals of the last 1, 10 or 60 seconds can be read at any time while the run goes on.
+ * It keeps a ring of 64 buckets, more than the longest window and the second in progress, and
+ * reuses them as time moves on, so it takes the same memory however long the run lasts.
+ * Every bucket is one long: the second it belongs to in the high 32 bits and its count in the
+ * low 32 bits. A writer that finds a bucket still holding an older second replaces it with the
+ * new second and its own count in the same compare-and-set, so adding is lock-free and no count
+ * is lost to a bucket being reset under it. A bucket saturates at 2^32 - 1 per second.
+ */
+public class RollingCounter {
+    /** The longest window that can be read, in seconds. */
+    public static final int MAX_WINDOW_SECONDS = 60;
+
+    private static final int BUCKETS = 64;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long COUNT_MASK = 0xffff_ffffL;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Adds the amount to the second of the given clock.nanoTime() timestamp.
+     */
+    public void add(long nanos, long amount) {
+        long second = Math.floorDiv(nanos, NANOS_PER_SECOND);
+        int index = (int) Math.floorMod(second, (long) BUCKETS);
+        long stamp = second << 32;
+        while (true) {
+            long bucket = buckets.get(index);
+            long count = bucket & COUNT_MASK;
+            if ((bucket & ~COUNT_MASK) != stamp) {
+                if (count != 0 && (int) ((bucket >>> 32) - second) > 0) {
+                    // Another writer has already moved the bucket on to a later second, 64 seconds after this one
+                    return;
+                }
+                count = 0;
+            }
+            if (buckets.compareAndSet(index, bucket, stamp | Math.min(count + amount, COUNT_MASK))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the total of the last given number of complete seconds before the second of the
+     * given timestamp; the second in progress is not counted, since it has not ended yet.
+     */
+    public long sum(long nanos, int seconds) {
+        if (seconds < 1 || seconds > MAX_WINDOW_SECONDS) {
+            throw new IllegalArgumentException("Windows are 1 to " + MAX_WINDOW_SECONDS + " seconds: " + seconds);
+        }
+        long current = Math.floorDiv(nanos, NANOS_PER_SECOND);
+        long total = 0;
+        for (long second = current - seconds; second < current; second++) {
+            long bucket = buckets.get((int) Math.floorMod(second, (long) BUCKETS));
+            if ((bucket & ~COUNT_MASK) == second << 32) {
+                total += bucket & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+}
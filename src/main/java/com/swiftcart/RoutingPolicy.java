@@ -0,0 +1,39 @@
+package com.swiftcart;
+
+/**
+ * RoutingPolicy decides which warehouse an order belongs to when several warehouses share one intake.
+ * BY_ZONE gives every regional zone a home warehouse, round robin by zone, so each facility
+ * ships to its own regions and fills its containers from fewer zones.
+ * BY_HASH spreads the orders by a hash of their id, which keeps the warehouses evenly loaded
+ * whatever the zone mix is.
+ */
+public enum RoutingPolicy {
+    BY_ZONE {
+        @Override
+        int home(Order order, int warehouses) {
+            return order.getRegionalZone().ordinal() % warehouses;
+        }
+    },
+    BY_HASH {
+        @Override
+        int home(Order order, int warehouses) {
+            // Fibonacci hashing, so runs of ids from a recorded file do not line up with the warehouse count
+            return Math.floorMod(Integer.rotateLeft(order.getId() * 0x9E3779B9, 16), warehouses);
+        }
+    };
+
+    /**
+     * Returns the index of the order's home warehouse, from 0 to warehouses - 1.
+     */
+    abstract int home(Order order, int warehouses);
+
+    public static RoutingPolicy forName(String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("hash")) {
+            return BY_HASH;
+        }
+        if (name.equalsIgnoreCase("zone")) {
+            return BY_ZONE;
+        }
+        throw new IllegalArgumentException("Unknown routing policy: " + name + " (expected hash or zone)");
+    }
+}
@@ -0,0 +1,83 @@
+package com.swiftcart;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ScheduledLoader class simulates a loader that takes its work from the LoadingScheduler.
+ * It implements Runnable to allow it to run in a separate thread.
+ * Each job is a container together with the loading bay it has been cleared for; the loader
+ * moves the container through that bay onto the loading queue and hands the bay back.
+ * It also simulates potential breakdowns with the breakdown rate per job (10% by default), causing the loader to
+ * sleep for the breakdown time (5 seconds by default).
+ * A breakdown happens between jobs, so the loader is simply not taking work while it is repaired and
+ * the containers go to the loaders that are running, instead of waiting in a broken loader's hands.
+ * This is a change from the semaphore Loader, which breaks down after taking a container and before
+ * staging it: there the breakdown delays that container and counts in the stage's service time,
+ * here it delays only the loader's next job and the service time leaves it out. Loading throughput
+ * is the same for the same number of loaders, which is why the LoadingScheduler is experimental and
+ * the semaphore loaders stay the default.
+ * Whether a loader breaks down after a job is drawn from the loading stage's RandomStream by the id
+ * of the container it has just loaded, so a run's breakdowns do not depend on which loader takes which job.
+ * The loaders share a ShutdownCoordinator; the last one to finish tells the trucks that no more containers are coming.
+ * The loader will log events to indicate its status and actions taken.
+ */
+public class ScheduledLoader implements Runnable {
+    private final BlockingQueue<LoadingJob> jobQueue;
+    private final BlockingQueue<Integer> freeBays;
+    private final BlockingQueue<Container> loadingQueue;
+    private final SimulationClock clock;
+    private final RandomStream random;
+    private final double breakdownRate;
+    private final long breakdownMillis;
+    private final ShutdownCoordinator<LoadingJob> shutdown;
+    private final StageMetrics metrics;
+    private final OrderJournal journal;
+    private final EventLog log;
+
+    public ScheduledLoader(BlockingQueue<LoadingJob> jobQueue, BlockingQueue<Integer> freeBays, BlockingQueue<Container> loadingQueue,
+                           StageMetrics metrics, ShutdownCoordinator<LoadingJob> shutdown, OrderJournal journal, EventLog log, SimulationClock clock,
+                           RandomStream random, double breakdownRate, long breakdownMillis) {
+        this.jobQueue = jobQueue;
+        this.freeBays = freeBays;
+        this.loadingQueue = loadingQueue;
+        this.shutdown = shutdown;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.random = random;
+        this.breakdownRate = breakdownRate;
+        this.breakdownMillis = breakdownMillis;
+    }
+
+    @Override
+    public void run() {
+        String name = Thread.currentThread().getName();
+        try {
+            while (true) {
+                LoadingJob job = jobQueue.take();
+                if (job == LoadingJob.POISON_PILL) {
+                    if (shutdown.workerFinished(jobQueue)) {
+                        loadingQueue.put(Container.POISON_PILL);
+                    }
+                    break;
+                }
+                Container container = job.getContainer();
+                metrics.entered(container, clock.nanoTime());
+                log.log(EventType.CONTAINER_MOVING, name, container.getId());
+                log.log(EventType.CONTAINER_LOADING, name, container.getId());
+                metrics.finished(container, clock.nanoTime());
+                journal.containerStaged(container);
+                loadingQueue.put(container);
+                freeBays.put(job.getBay());
+
+                if (random.nextDouble(container.getId()) < breakdownRate) {
+                    log.log(EventType.LOADER_BREAKDOWN, name, 0, (int) (breakdownMillis / 1000), null);
+                    clock.sleep(breakdownMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
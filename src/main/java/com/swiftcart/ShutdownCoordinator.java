@@ -0,0 +1,86 @@
+package com.swiftcart;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShutdownCoordinator lets the workers of one stage shut down together on a single POISON_PILL.
+ * Each stage receives exactly one pill from the stage before it, whatever its worker count.
+ * A worker that takes the pill hands it back to its input queue for the siblings that are still
+ * running; the last worker of the stage keeps it and passes one pill on to the next stage.
+ * Stages whose workers each get a pill of their own (the sorting shards) just report that they finished.
+ * Workers can join and retire while the stage runs, as long as one is always left to take the pill:
+ * a worker only retires if it is not the last, and none joins once the last one has finished.
+ * Every run creates its own coordinators, so nothing is shared between stages or between runs.
+ */
+public class ShutdownCoordinator<T> {
+    private final T poisonPill;
+    private final AtomicInteger active;
+
+    public ShutdownCoordinator(int workers, T poisonPill) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("A stage needs at least one worker: " + workers);
+        }
+        this.poisonPill = poisonPill;
+        this.active = new AtomicInteger(workers);
+    }
+
+    /**
+     * Called by a worker that has taken the poison pill from its input queue.
+     * Returns true if it was the last worker of the stage and must poison the next stage.
+     */
+    public boolean workerFinished(BlockingQueue<T> inputQueue) throws InterruptedException {
+        if (active.decrementAndGet() == 0) {
+            return true;
+        }
+        inputQueue.put(poisonPill);
+        return false;
+    }
+
+    /**
+     * Called by a worker that received a poison pill of its own.
+     * Returns true if it was the last worker of the stage and must poison the next stage.
+     */
+    public boolean workerFinished() {
+        return active.decrementAndGet() == 0;
+    }
+
+    /**
+     * Adds a worker to a running stage. Returns false if the stage has already shut down,
+     * in which case the worker must not be started.
+     */
+    public boolean tryJoin() {
+        while (true) {
+            int workers = active.get();
+            if (workers == 0) {
+                return false;
+            }
+            if (active.compareAndSet(workers, workers + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Called by a worker that wants to stop without a pill. Returns false if it is the last
+     * worker of the stage, which has to stay to take the pill.
+     */
+    public boolean tryRetire() {
+        while (true) {
+            int workers = active.get();
+            if (workers <= 1) {
+                return false;
+            }
+            if (active.compareAndSet(workers, workers - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns how many workers have neither finished nor retired.
+     */
+    public int getWorkers() {
+        return active.get();
+    }
+}
@@ -0,0 +1,210 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulation class runs one instance of the simulation from a SimulationConfig: it opens the
+ * order source, builds the warehouses and, when there are several, the OrderRouter in front of
+ * them, runs the intakes until every warehouse has shut down and returns the SimulationResult.
+ * A run keeps all of its state to itself, down to the container and truck id sequences and the
+ * random streams, so any number of runs can share a JVM without affecting each other. Every random
+ * decision of the run is derived from one master seed, the configured one or a drawn one.
+ * A streaming run takes orders until it is asked to drain, by drain() or after its configured
+ * duration, and reports its sliding windows through a StreamingReporter in the meantime; then the
+ * intakes stop, the poison pills go through the pipeline behind the last orders and the run ends
+ * like any other.
+ * If the order source fails, the intakes stop and the pipeline shuts down behind the orders
+ * already taken, and then the run throws the source's exception instead of returning a result.
+ */
+public class Simulation {
+    private final SimulationConfig config;
+    private final SimulationClock clock;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private volatile boolean draining;
+    // The first exception the order source threw, if any
+    private volatile Exception sourceFailure;
+
+    public Simulation(SimulationConfig config, SimulationClock clock, OrderJournal journal, EventLog log) {
+        this.config = config;
+        this.clock = clock;
+        this.journal = journal;
+        this.log = log;
+    }
+
+    /**
+     * Runs the simulation to the end. If recovery is not null, the run carries on from a crashed
+     * one: orders it already created are skipped and what it had in flight goes into the first warehouse.
+     * With registerMBeans the metrics are visible over JMX while the run lasts.
+     * Throws the IOException or IllegalArgumentException of an order source that failed during the run.
+     */
+    public SimulationResult run(JournalRecovery recovery, boolean registerMBeans) throws IOException, InterruptedException {
+        // Without a configured seed the run draws one, and reports it so that the run can be repeated
+        long seed = config.getSeed() != null ? config.getSeed() : new SplittableRandom().nextLong();
+        IdSequence containerIds = new IdSequence();
+        IdSequence truckIds = new IdSequence();
+        if (recovery != null) {
+            containerIds.resumeAfter(recovery.getLastContainerId());
+            truckIds.resumeAfter(recovery.getLastTruckId());
+        }
+        Transport transport = Transport.forName(config.getTransport(), clock);
+
+        // Orders the crashed run already created are not created again
+        OrderSource source = new DrainableSource(OrderSource.open(config, recovery != null ? recovery.getLastOrderId() + 1 : 1,
+            RandomStream.forSource(seed)));
+        int totalOrders = source.getTotalOrders();
+        if (!config.isStreaming()) {
+            journal.checkCapacity(totalOrders - (recovery != null ? recovery.getLastOrderId() : 0), config.getOrdersPerContainer());
+        }
+
+        // Every warehouse has its own queues, metrics and executor
+        int warehouseCount = config.getWarehouses();
+        List<Warehouse> warehouses = new ArrayList<>(warehouseCount);
+        for (int number = 1; number <= warehouseCount; number++) {
+            warehouses.add(new Warehouse(number, totalOrders, config, containerIds, truckIds, seed, clock, transport, journal, log));
+        }
+
+        // Orders go straight into the only warehouse, or through a router that partitions them over several
+        BlockingQueue<Order> intakeQueue;
+        OrderRouter router = null;
+        SimulationMetrics metrics;
+        if (warehouseCount == 1) {
+            intakeQueue = warehouses.get(0).getIntakeQueue();
+            metrics = warehouses.get(0).getMetrics();
+        } else {
+            List<BlockingQueue<Order>> warehouseQueues = new ArrayList<>(warehouseCount);
+            for (Warehouse warehouse : warehouses) {
+                warehouseQueues.add(warehouse.getIntakeQueue());
+            }
+            router = new OrderRouter(warehouseQueues, config.getRoutingPolicy(), (int) (config.getOrderQueueCapacity() * config.getRebalance()));
+            intakeQueue = router;
+            // The intakes report here, and the warehouses are added to it once they have finished
+            metrics = new SimulationMetrics();
+        }
+
+        // Put everything the crashed run had in flight back where it was, in the first warehouse, and carry its counts over
+        for (Warehouse warehouse : warehouses) {
+            String mbeanName = null;
+            if (registerMBeans) {
+                mbeanName = warehouseCount == 1 ? SimulationMetrics.OBJECT_NAME : SimulationMetrics.OBJECT_NAME + ",warehouse=" + warehouse.getNumber();
+            }
+            warehouse.start(warehouse.getNumber() == 1 ? recovery : null, mbeanName);
+        }
+
+        long startTime = clock.currentTimeMillis();
+        int totalIntakes = config.getIntakes();
+        ExecutorService intakeExecutor = config.getExecutionMode().newExecutor(totalIntakes + (config.isStreaming() ? 1 : 0));
+        ShutdownCoordinator<Order> intakeShutdown = new ShutdownCoordinator<>(totalIntakes, Order.POISON_PILL);
+        for (int i = 0; i < totalIntakes; i++) {
+            intakeExecutor.submit(clock.participant(new OrderIntake(intakeQueue, source, startTime, intakeShutdown, metrics.stage(Stage.INTAKE),
+                config.getPriority(), RandomStream.forPriorities(seed), journal, log, clock)));
+        }
+        if (config.isStreaming()) {
+            intakeExecutor.submit(clock.participant(new StreamingReporter(this, warehouses, config.getStreamingReportMillis(),
+                config.getStreamingDurationMillis(), Channels.newChannel(System.out), clock)));
+        }
+
+        // Every station is in place, let time run
+        clock.start();
+
+        // Shutdown the intakes and then every warehouse gracefully
+        intakeExecutor.shutdown();
+        try {
+            // A streaming run takes as long as it is left to run
+            if (!intakeExecutor.awaitTermination(config.isStreaming() ? Long.MAX_VALUE : 10, TimeUnit.MINUTES)) {
+                System.err.println("Intake did not terminate in the specified time.");
+                intakeExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            intakeExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        for (Warehouse warehouse : warehouses) {
+            warehouse.awaitTermination();
+            if (registerMBeans) {
+                warehouse.unregisterMBean();
+            }
+        }
+        source.close();
+        Exception failure = sourceFailure;
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw (IllegalArgumentException) failure;
+        }
+        long endTime = clock.currentTimeMillis();
+        if (config.isStreaming()) {
+            // The run had no set number of orders, so it covers those the intakes created
+            totalOrders = (int) metrics.stage(Stage.INTAKE).getProcessed();
+        }
+
+        if (warehouseCount > 1) {
+            for (Warehouse warehouse : warehouses) {
+                metrics.add(warehouse.getMetrics(), "w" + warehouse.getNumber() + ".");
+            }
+        }
+        return new SimulationResult(metrics, warehouses, router, totalOrders, seed, endTime - startTime);
+    }
+
+    /**
+     * Asks the run to drain: the intakes take no more orders from the source, and the stations
+     * finish the orders already in the pipeline and shut down. Can be called from any thread.
+     */
+    public void drain() {
+        draining = true;
+    }
+
+    /**
+     * Returns true once the run has been asked to drain or its source has run out of orders.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    // Ends the source early once the run is draining, and marks the run draining once the source ends
+    // by itself; a failure of the source is kept for run() to throw and drains the run too
+    private final class DrainableSource implements OrderSource {
+        private final OrderSource source;
+
+        DrainableSource(OrderSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean next(OrderArrival arrival) throws IOException {
+            if (draining) {
+                return false;
+            }
+            try {
+                if (!source.next(arrival)) {
+                    draining = true;
+                    return false;
+                }
+                return true;
+            } catch (IOException | IllegalArgumentException e) {
+                if (sourceFailure == null) {
+                    sourceFailure = e;
+                }
+                draining = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int getTotalOrders() throws IOException {
+            return source.getTotalOrders();
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.swiftcart;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * SimulationClock is the source of time for every station in the SwiftCart simulation.
+ * Stations read the current time and wait through the clock instead of calling
+ * System.currentTimeMillis() and Thread.sleep() directly, so the same pipeline can run
+ * either in real time or on a virtual, discrete-event timeline.
+ * The queues and semaphores shared between stations are also created by the clock, because the
+ * discrete-event engine needs to know when every station is idle before it moves time forward.
+ */
+public interface SimulationClock {
+
+    /** Name of the system property used to choose the clock mode. */
+    String MODE_PROPERTY = "swiftcart.clock";
+
+    /**
+     * Returns the current simulation time in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Returns a nanosecond timestamp for measuring intervals, like System.nanoTime().
+     * Only differences between two timestamps are meaningful.
+     */
+    long nanoTime();
+
+    /**
+     * Blocks the calling station for the given amount of simulation time.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Creates a queue for handing items between stations.
+     * Integer.MAX_VALUE stands for an unbounded queue.
+     */
+    <E> BlockingQueue<E> newQueue(int capacity);
+
+    /**
+     * Creates a queue of orders that hands out the order closest to its deadline first, for deadline scheduling.
+     */
+    BlockingQueue<Order> newDeadlineQueue(int capacity);
+
+    /**
+     * Creates a semaphore for limiting how many stations use a resource at once.
+     * Like the queues, it must come from the clock so that waiting for a permit counts as idle.
+     */
+    Semaphore newSemaphore(int permits);
+
+    /**
+     * Wraps a station so that the clock can track it while it runs.
+     * Every task submitted to the executor must go through this method.
+     */
+    Runnable participant(Runnable task);
+
+    /**
+     * Called once all stations have been submitted. The discrete-event clock holds time
+     * still until this point so that no station races ahead while the pipeline is being built.
+     */
+    void start();
+
+    /**
+     * Creates the clock for the given mode name: "realtime" (the default) or "discrete".
+     */
+    static SimulationClock forMode(String mode) {
+        if (mode == null || mode.isEmpty() || mode.equalsIgnoreCase("realtime")) {
+            return new RealTimeClock();
+        }
+        if (mode.equalsIgnoreCase("discrete")) {
+            return new DiscreteEventClock();
+        }
+        throw new IllegalArgumentException("Unknown clock mode: " + mode);
+    }
+}
@@ -0,0 +1,523 @@
+package com.swiftcart;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * SimulationConfig holds every setting of one simulation run: the clock, transport and threads,
+ * the order source, the engine and the worker count and concurrency limit of every stage, the batching and
+ * container geometry, the rejection and breakdown rates, the queue capacities, the truck fleet,
+ * the order priorities and their scheduling, the worker autoscaling, the warehouses, streaming and the master seed.
+ * A config is read from a set of properties, normally the system properties, so every setting
+ * has a -Dswiftcart.* name and a sweep can vary any of them by overriding that property.
+ * Settings left out keep the values of the original simulation.
+ */
+public class SimulationConfig {
+    private final String clockMode;
+    private final String transport;
+    private final ExecutionMode executionMode;
+    private final String source;
+    private final double sourceSpeed;
+    private final int orders;
+    private final String arrivals;
+    private final String zones;
+    private final Long seed;
+    private final boolean streaming;
+    private final long streamingReportMillis;
+    private final long streamingDurationMillis;
+
+    private final boolean workStealing;
+    private final int stealingWorkers;
+    private final int intakes;
+    private final int pickers;
+    private final int packers;
+    private final int labellers;
+    private final int sorters;
+    private final int loaders;
+    private final int pickingPermits;
+    private final int loaderPermits;
+    private final int loadingBays;
+    private final int[] minWorkers = new int[Stage.COUNT];
+    private final int[] maxWorkers = new int[Stage.COUNT];
+    private final long[] serviceMillis = new long[Stage.COUNT];
+
+    private final BatchSettings pickingBatch;
+    private final BatchSettings packingBatch;
+    private final BatchSettings labellingBatch;
+    private final BatchSettings sortingBatch;
+    private final int sortingShards;
+    private final boolean pooledSorting;
+    private final int regionalBatchSize;
+    private final int batchesPerContainer;
+    private final boolean scheduledLoading;
+    private final LoadingPriority loadingPriority;
+
+    private final double rejectionRate;
+    private final double breakdownRate;
+    private final long breakdownMillis;
+    private final int orderQueueCapacity;
+    private final int sortingQueueCapacity;
+    private final int loadingQueueCapacity;
+    private final DispatchSettings dispatch;
+    private final PrioritySettings priority;
+
+    private final boolean autoscale;
+    private final long autoscaleIntervalMillis;
+    private final long autoscaleTargetWaitMillis;
+    private final double autoscaleHighWater;
+
+    private final int warehouses;
+    private final RoutingPolicy routingPolicy;
+    private final double rebalance;
+
+    private SimulationConfig(Properties properties) {
+        clockMode = properties.getProperty(SimulationClock.MODE_PROPERTY);
+        transport = properties.getProperty(Transport.PROPERTY);
+        executionMode = ExecutionMode.forName(properties.getProperty(ExecutionMode.PROPERTY));
+        if (executionMode == ExecutionMode.VIRTUAL && "ring-spin".equalsIgnoreCase(transport)) {
+            // A spinning virtual thread never unmounts, so spinning consumers can starve the producers they wait for
+            throw new IllegalArgumentException("The ring-spin transport cannot run on virtual threads");
+        }
+        source = properties.getProperty(OrderSource.PROPERTY, "synthetic");
+        sourceSpeed = OrderSource.parseSpeed(properties.getProperty("swiftcart.source.speed"));
+        orders = integer(properties, "swiftcart.source.orders", 600, 0);
+        arrivals = properties.getProperty("swiftcart.source.arrivals");
+        zones = properties.getProperty("swiftcart.source.zones");
+        String seedValue = properties.getProperty("swiftcart.seed", properties.getProperty("swiftcart.source.seed"));
+        seed = seedValue == null ? null : Long.valueOf(seedValue);
+        streaming = Boolean.parseBoolean(properties.getProperty("swiftcart.streaming"));
+        streamingReportMillis = integer(properties, "swiftcart.streaming.reportMillis", 1000, 1);
+        streamingDurationMillis = Long.parseLong(properties.getProperty("swiftcart.streaming.durationMillis", "0"));
+        if (streamingDurationMillis < 0) {
+            throw new IllegalArgumentException("Streaming duration must not be negative: " + streamingDurationMillis);
+        }
+
+        intakes = workers(properties, "intake", 1);
+        pickers = workers(properties, "picking", 4);
+        packers = workers(properties, "packing", 1);
+        labellers = workers(properties, "labelling", 1);
+        sorters = workers(properties, "sorting", 1);
+        loaders = workers(properties, "loading", 3);
+        workStealing = engine(properties.getProperty("swiftcart.engine", "stations"));
+        stealingWorkers = integer(properties, "swiftcart.engine.workers", pickers + packers + labellers, 1);
+        pickingPermits = integer(properties, "swiftcart.picking.permits", 4, 1);
+        loaderPermits = integer(properties, "swiftcart.loading.permits", 3, 1);
+        loadingBays = integer(properties, "swiftcart.loading.bays", 2, 1);
+
+        pickingBatch = BatchSettings.fromProperties(properties, "picking");
+        packingBatch = BatchSettings.fromProperties(properties, "packing");
+        labellingBatch = BatchSettings.fromProperties(properties, "labelling");
+        sortingBatch = BatchSettings.fromProperties(properties, "sorting");
+        sortingShards = integer(properties, "swiftcart.sorting.shards", 0, 0);
+        pooledSorting = Boolean.parseBoolean(properties.getProperty("swiftcart.sorting.pooled"));
+        regionalBatchSize = integer(properties, "swiftcart.sorting.batchSize", ContainerBuilder.DEFAULT_BATCH_SIZE, 1);
+        batchesPerContainer = integer(properties, "swiftcart.sorting.batchesPerContainer", ContainerBuilder.DEFAULT_BATCHES_PER_CONTAINER, 1);
+        scheduledLoading = loadingMode(properties.getProperty("swiftcart.loading", "semaphore"));
+        loadingPriority = LoadingPriority.forName(properties.getProperty("swiftcart.loading.priority"));
+
+        rejectionRate = rate(properties, "swiftcart.rejectionRate", 0.05);
+        breakdownRate = rate(properties, "swiftcart.loading.breakdownRate", 0.1);
+        breakdownMillis = Long.parseLong(properties.getProperty("swiftcart.loading.breakdownMillis", "5000"));
+        if (breakdownMillis < 0) {
+            throw new IllegalArgumentException("Breakdown time must not be negative: " + breakdownMillis);
+        }
+        orderQueueCapacity = integer(properties, "swiftcart.queue.capacity", 1024, 1);
+        sortingQueueCapacity = integer(properties, "swiftcart.sorting.queueCapacity", 10, 1);
+        dispatch = DispatchSettings.fromProperties(properties, loadingBays);
+        // By default the loaders can get one full load of every open truck ahead of the trucks
+        loadingQueueCapacity = integer(properties, "swiftcart.loading.queueCapacity",
+            dispatch.getOpenTrucks() * dispatch.getTruckCapacity(), 1);
+        priority = PrioritySettings.fromProperties(properties, dispatch);
+        if (priority.isDeadlineScheduling() && sortingShards > 0) {
+            throw new IllegalArgumentException("Deadline scheduling flushes the batches of the sorting areas; sorting shards keep theirs until they are full");
+        }
+
+        autoscale = Boolean.parseBoolean(properties.getProperty("swiftcart.autoscale"));
+        autoscaleIntervalMillis = integer(properties, "swiftcart.autoscale.intervalMillis", 1000, 1);
+        autoscaleTargetWaitMillis = integer(properties, "swiftcart.autoscale.targetWaitMillis", 2000, 1);
+        autoscaleHighWater = rate(properties, "swiftcart.autoscale.highWater", 0.5);
+        if (autoscale && workStealing) {
+            throw new IllegalArgumentException("The work-stealing engine has no stations to autoscale; every worker already takes any stage");
+        }
+        scalable(properties, Stage.PICKING, pickers);
+        scalable(properties, Stage.PACKING, packers);
+        scalable(properties, Stage.LABELLING, labellers);
+
+        warehouses = integer(properties, "swiftcart.warehouses", 1, 1);
+        routingPolicy = RoutingPolicy.forName(properties.getProperty("swiftcart.router"));
+        rebalance = Double.parseDouble(properties.getProperty("swiftcart.router.rebalance", "0.75"));
+        if (!(rebalance > 0)) {
+            throw new IllegalArgumentException("The rebalance threshold must be positive: " + rebalance);
+        }
+    }
+
+    /**
+     * Reads the config from the system properties.
+     */
+    public static SimulationConfig fromSystemProperties() {
+        return fromProperties(System.getProperties());
+    }
+
+    /**
+     * Reads the config from the given properties; anything not set there has its default.
+     */
+    public static SimulationConfig fromProperties(Properties properties) {
+        return new SimulationConfig(properties);
+    }
+
+    /**
+     * Returns the clock mode, realtime or discrete, or null for the default.
+     */
+    public String getClockMode() {
+        return clockMode;
+    }
+
+    /**
+     * Returns the transport name, or null for the default.
+     */
+    public String getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns whether the stations run on a fixed pool of platform threads or on one virtual thread each (JDK 21 or newer).
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Returns the order source: synthetic, csv:path, ndjson:path or journal:path.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public double getSourceSpeed() {
+        return sourceSpeed;
+    }
+
+    /**
+     * Returns how many orders a synthetic source generates; a streaming run ignores it.
+     */
+    public int getOrders() {
+        return orders;
+    }
+
+    public String getArrivals() {
+        return arrivals;
+    }
+
+    public String getZones() {
+        return zones;
+    }
+
+    /**
+     * Returns the master seed every random decision of the run is derived from, or null for a random one.
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns true for a streaming run: a synthetic source sends orders without end, the sliding
+     * windows are reported as the run goes, and the pipeline only drains when it is asked to stop.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Returns how often a streaming run reports its windows, in milliseconds of the simulation clock.
+     */
+    public long getStreamingReportMillis() {
+        return streamingReportMillis;
+    }
+
+    /**
+     * Returns after how long a streaming run drains by itself, in milliseconds of the simulation
+     * clock, or 0 to run until it is stopped.
+     */
+    public long getStreamingDurationMillis() {
+        return streamingDurationMillis;
+    }
+
+    /**
+     * Returns true if picking, packing and labelling run on a WorkStealingPipeline rather than on stations.
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Returns how many workers the work-stealing engine has; by default as many as the order stations.
+     */
+    public int getStealingWorkers() {
+        return stealingWorkers;
+    }
+
+    /**
+     * Returns how many intakes read the order source in parallel.
+     */
+    public int getIntakes() {
+        return intakes;
+    }
+
+    public int getPickers() {
+        return pickers;
+    }
+
+    public int getPackers() {
+        return packers;
+    }
+
+    public int getLabellers() {
+        return labellers;
+    }
+
+    public int getSorters() {
+        return sorters;
+    }
+
+    public int getLoaders() {
+        return loaders;
+    }
+
+    /**
+     * Returns how many pickers may pick at once.
+     */
+    public int getPickingPermits() {
+        return pickingPermits;
+    }
+
+    /**
+     * Returns how many semaphore loaders may work at once.
+     */
+    public int getLoaderPermits() {
+        return loaderPermits;
+    }
+
+    public int getLoadingBays() {
+        return loadingBays;
+    }
+
+    public BatchSettings getPickingBatch() {
+        return pickingBatch;
+    }
+
+    public BatchSettings getPackingBatch() {
+        return packingBatch;
+    }
+
+    public BatchSettings getLabellingBatch() {
+        return labellingBatch;
+    }
+
+    public BatchSettings getSortingBatch() {
+        return sortingBatch;
+    }
+
+    /**
+     * Returns the number of SortingShards, each owning a share of the regional zones and feeding one
+     * ContainerAssembler, or 0 for a single SortingArea per sorter.
+     */
+    public int getSortingShards() {
+        return sortingShards;
+    }
+
+    /**
+     * Returns true if containers are built in pooled, fixed-size order buffers that the trucks hand back on departure.
+     */
+    public boolean isPooledSorting() {
+        return pooledSorting;
+    }
+
+    /**
+     * Returns how many boxes of one zone make a batch in the sorting area.
+     */
+    public int getRegionalBatchSize() {
+        return regionalBatchSize;
+    }
+
+    public int getBatchesPerContainer() {
+        return batchesPerContainer;
+    }
+
+    public int getOrdersPerContainer() {
+        return regionalBatchSize * batchesPerContainer;
+    }
+
+    /**
+     * Returns true for the experimental LoadingScheduler, false for the semaphore loaders (the default).
+     */
+    public boolean isScheduledLoading() {
+        return scheduledLoading;
+    }
+
+    public LoadingPriority getLoadingPriority() {
+        return loadingPriority;
+    }
+
+    /**
+     * Returns the chance that the picking, packing or labelling station rejects an order.
+     */
+    public double getRejectionRate() {
+        return rejectionRate;
+    }
+
+    /**
+     * Returns the chance that a loader breaks down, per container.
+     */
+    public double getBreakdownRate() {
+        return breakdownRate;
+    }
+
+    public long getBreakdownMillis() {
+        return breakdownMillis;
+    }
+
+    /**
+     * Returns the capacity of every order queue, which keeps even a very large source in constant memory.
+     */
+    public int getOrderQueueCapacity() {
+        return orderQueueCapacity;
+    }
+
+    public int getSortingQueueCapacity() {
+        return sortingQueueCapacity;
+    }
+
+    /**
+     * Returns the capacity of the queue from the loaders to the trucks.
+     */
+    public int getLoadingQueueCapacity() {
+        return loadingQueueCapacity;
+    }
+
+    public DispatchSettings getDispatch() {
+        return dispatch;
+    }
+
+    public PrioritySettings getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns true if a WorkerAutoscaler adds and retires picking, packing and labelling workers during the run.
+     */
+    public boolean isAutoscale() {
+        return autoscale;
+    }
+
+    public long getAutoscaleIntervalMillis() {
+        return autoscaleIntervalMillis;
+    }
+
+    public long getAutoscaleTargetWaitMillis() {
+        return autoscaleTargetWaitMillis;
+    }
+
+    public double getAutoscaleHighWater() {
+        return autoscaleHighWater;
+    }
+
+    /**
+     * Returns the fewest workers the autoscaler leaves an order stage; the stage's worker count without autoscaling.
+     */
+    public int getMinWorkers(Stage stage) {
+        return minWorkers[stage.ordinal()];
+    }
+
+    /**
+     * Returns the most workers the autoscaler gives an order stage; the stage's worker count without autoscaling.
+     */
+    public int getMaxWorkers(Stage stage) {
+        return maxWorkers[stage.ordinal()];
+    }
+
+    /**
+     * Returns how long an order stage works on one order, in milliseconds of the simulation clock.
+     */
+    public long getServiceMillis(Stage stage) {
+        return serviceMillis[stage.ordinal()];
+    }
+
+    /**
+     * Returns how many independent warehouses, each with its own queues, metrics and executor, share one intake.
+     */
+    public int getWarehouses() {
+        return warehouses;
+    }
+
+    public RoutingPolicy getRoutingPolicy() {
+        return routingPolicy;
+    }
+
+    /**
+     * Returns the fill of its intake queue, as a fraction of the capacity, above which a
+     * warehouse's orders are rebalanced to another one.
+     */
+    public double getRebalance() {
+        return rebalance;
+    }
+
+    // Reads -Dswiftcart.loading=scheduled|semaphore; true for the experimental LoadingScheduler, false for the semaphore loaders (the default)
+    private static boolean loadingMode(String mode) {
+        if (mode.equalsIgnoreCase("scheduled")) {
+            return true;
+        }
+        if (mode.equalsIgnoreCase("semaphore")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown loading mode: " + mode + " (expected scheduled or semaphore)");
+    }
+
+    // Reads -Dswiftcart.engine=stations|stealing; true for the WorkStealingPipeline
+    private static boolean engine(String engine) {
+        if (engine.equalsIgnoreCase("stations")) {
+            return false;
+        }
+        if (engine.equalsIgnoreCase("stealing")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown engine: " + engine + " (expected stations or stealing)");
+    }
+
+    // Reads the worker count of a stage from swiftcart.workers.<stage>
+    private static int workers(Properties properties, String stage, int defaultCount) {
+        int count = Integer.parseInt(properties.getProperty("swiftcart.workers." + stage, String.valueOf(defaultCount)));
+        if (count < 1) {
+            throw new IllegalArgumentException("Stage " + stage + " needs at least one worker: " + count);
+        }
+        return count;
+    }
+
+    // Reads the limits and service time of an order stage: swiftcart.workers.<stage>.min|max and swiftcart.service.<stage>
+    private void scalable(Properties properties, Stage stage, int workers) {
+        String name = stage.name().toLowerCase(Locale.ROOT);
+        int ordinal = stage.ordinal();
+        minWorkers[ordinal] = autoscale ? integer(properties, "swiftcart.workers." + name + ".min", 1, 1) : workers;
+        maxWorkers[ordinal] = autoscale ? integer(properties, "swiftcart.workers." + name + ".max", Math.max(workers, 8), 1) : workers;
+        if (minWorkers[ordinal] > workers || maxWorkers[ordinal] < workers) {
+            throw new IllegalArgumentException("Stage " + name + " needs min <= workers <= max: "
+                + minWorkers[ordinal] + ", " + workers + ", " + maxWorkers[ordinal]);
+        }
+        serviceMillis[ordinal] = integer(properties, "swiftcart.service." + name, 0, 0);
+    }
+
+    private static int integer(Properties properties, String name, int defaultValue, int minimum) {
+        int value = Integer.parseInt(properties.getProperty(name, String.valueOf(defaultValue)));
+        if (value < minimum) {
+            throw new IllegalArgumentException(name + " must be at least " + minimum + ": " + value);
+        }
+        return value;
+    }
+
+    private static double rate(Properties properties, String name, double defaultValue) {
+        double value = Double.parseDouble(properties.getProperty(name, String.valueOf(defaultValue)));
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+        }
+        return value;
+    }
+}
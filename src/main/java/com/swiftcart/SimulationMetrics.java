@@ -0,0 +1,245 @@
+package com.swiftcart;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * SimulationMetrics is the metrics surface of one simulation run.
+ * It holds a StageMetrics for every Stage, the run-wide counters (as LongAdders, which stay
+ * cheap when many workers bump them at once), the DispatchMetrics of the truck fleet and the
+ * depth samples of the queues between stations.
+ * Everything can be read while the run is in progress, through this class or over JMX, including
+ * the throughput, rejection rate and truck wait of the last 1, 10 and 60 seconds of the clock.
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+    public static final String OBJECT_NAME = "com.swiftcart:type=SimulationMetrics";
+    /** The sliding windows reported, in seconds. */
+    static final int[] WINDOW_SECONDS = {1, 10, 60};
+
+    private final Map<Stage, StageMetrics> stages = new EnumMap<>(Stage.class);
+    private final LongAdder boxesPacked = new LongAdder();
+    private final LongAdder containersShipped = new LongAdder();
+    private final LongAdder trucksDispatched = new LongAdder();
+    private final DispatchMetrics dispatch = new DispatchMetrics(trucksDispatched);
+    private final Map<String, BlockingQueue<?>> queues = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> queueDepths = new LinkedHashMap<>();
+    private final SimulationClock clock;
+    private ScheduledExecutorService sampler;
+    private ObjectName objectName;
+
+    public SimulationMetrics() {
+        this(new RealTimeClock());
+    }
+
+    /**
+     * Creates the metrics of a run on the given clock, whose time the windows are read at.
+     */
+    public SimulationMetrics(SimulationClock clock) {
+        this.clock = clock;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageMetrics(stage));
+        }
+    }
+
+    public StageMetrics stage(Stage stage) {
+        return stages.get(stage);
+    }
+
+    public LongAdder boxesPackedCounter() {
+        return boxesPacked;
+    }
+
+    public LongAdder containersShippedCounter() {
+        return containersShipped;
+    }
+
+    public LongAdder trucksDispatchedCounter() {
+        return trucksDispatched;
+    }
+
+    public DispatchMetrics dispatch() {
+        return dispatch;
+    }
+
+    /**
+     * Adds a queue to the depth sampling. Queues must be registered before sampling starts.
+     */
+    public synchronized void registerQueue(String name, BlockingQueue<?> queue) {
+        if (sampler != null) {
+            throw new IllegalStateException("Queues must be registered before sampling starts");
+        }
+        queues.put(name, queue);
+        queueDepths.put(name, new LatencyHistogram());
+    }
+
+    /**
+     * Samples the depth of every registered queue on a daemon thread at the given real-time period.
+     */
+    public synchronized void startSampling(long periodMillis) {
+        sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sampleQueues, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopSampling() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    void sampleQueues() {
+        for (Map.Entry<String, BlockingQueue<?>> entry : queues.entrySet()) {
+            queueDepths.get(entry.getKey()).record(entry.getValue().size());
+        }
+    }
+
+    /**
+     * Adds the stages, counters and truck departures of another run to this one, and its queues
+     * under the given name prefix. Used to total the warehouses of a multi-warehouse run once they
+     * have finished; the queues added this way are reported but not sampled by this object.
+     */
+    public synchronized void add(SimulationMetrics other, String queuePrefix) {
+        for (Stage stage : Stage.values()) {
+            stages.get(stage).add(other.stage(stage));
+        }
+        boxesPacked.add(other.boxesPacked.sum());
+        containersShipped.add(other.containersShipped.sum());
+        trucksDispatched.add(other.trucksDispatched.sum());
+        dispatch.add(other.dispatch);
+        synchronized (other) {
+            for (Map.Entry<String, BlockingQueue<?>> entry : other.queues.entrySet()) {
+                queues.put(queuePrefix + entry.getKey(), entry.getValue());
+                queueDepths.put(queuePrefix + entry.getKey(), other.queueDepths.get(entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Returns what happened in the given number of complete seconds before the clock.nanoTime()
+     * timestamp: orders completed by labelling, orders rejected by any stage, trucks departed and their waits.
+     */
+    public WindowSnapshot window(long now, int seconds) {
+        long rejected = 0;
+        for (StageMetrics stage : stages.values()) {
+            rejected += stage.getRejectedWindow().sum(now, seconds);
+        }
+        return new WindowSnapshot(seconds, stages.get(Stage.LABELLING).getProcessedWindow().sum(now, seconds), rejected,
+            dispatch.getDeparturesWindow().sum(now, seconds), dispatch.getTruckWaitWindow().sum(now, seconds));
+    }
+
+    /**
+     * Registers this object with the platform MBean server under OBJECT_NAME.
+     */
+    public void registerMBean() throws JMException {
+        registerMBean(OBJECT_NAME);
+    }
+
+    /**
+     * Registers this object with the platform MBean server under the given object name,
+     * such as OBJECT_NAME with a warehouse key when several runs share the JVM.
+     */
+    public void registerMBean(String mbeanName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(mbeanName);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+        objectName = name;
+    }
+
+    public void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public long getOrdersRejected() {
+        long rejected = 0;
+        for (StageMetrics stage : stages.values()) {
+            rejected += stage.getRejected();
+        }
+        return rejected;
+    }
+
+    @Override
+    public long getOrdersFailed() {
+        long failed = 0;
+        for (StageMetrics stage : stages.values()) {
+            failed += stage.getFailed();
+        }
+        return failed;
+    }
+
+    @Override
+    public long getBoxesPacked() {
+        return boxesPacked.sum();
+    }
+
+    @Override
+    public long getContainersShipped() {
+        return containersShipped.sum();
+    }
+
+    @Override
+    public long getTrucksDispatched() {
+        return trucksDispatched.sum();
+    }
+
+    @Override
+    public long getContainersDispatched() {
+        return dispatch.getContainersDispatched();
+    }
+
+    @Override
+    public double getTruckUtilisation() {
+        return dispatch.getUtilisation();
+    }
+
+    @Override
+    public List<StageSnapshot> getStages() {
+        List<StageSnapshot> snapshots = new ArrayList<>(stages.size());
+        for (StageMetrics stage : stages.values()) {
+            snapshots.add(stage.snapshot());
+        }
+        return snapshots;
+    }
+
+    @Override
+    public List<WindowSnapshot> getWindows() {
+        long now = clock.nanoTime();
+        List<WindowSnapshot> windows = new ArrayList<>(WINDOW_SECONDS.length);
+        for (int seconds : WINDOW_SECONDS) {
+            windows.add(window(now, seconds));
+        }
+        return windows;
+    }
+
+    @Override
+    public List<QueueSnapshot> getQueues() {
+        List<QueueSnapshot> snapshots = new ArrayList<>(queues.size());
+        for (Map.Entry<String, BlockingQueue<?>> entry : queues.entrySet()) {
+            LatencyHistogram depths = queueDepths.get(entry.getKey());
+            snapshots.add(new QueueSnapshot(entry.getKey(), entry.getValue().size(), depths.getMean(),
+                depths.getValueAtPercentile(99), depths.getMax()));
+        }
+        return snapshots;
+    }
+}
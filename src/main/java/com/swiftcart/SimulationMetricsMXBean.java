@@ -0,0 +1,34 @@
+package com.swiftcart;
+
+import java.util.List;
+
+/**
+ * SimulationMetricsMXBean is the JMX view of a running simulation, registered as
+ * com.swiftcart:type=SimulationMetrics, or with a warehouse=N key per warehouse when there are several.
+ * Every read is a fresh snapshot, so jconsole or any JMX client can watch the stages while the run is in progress.
+ */
+public interface SimulationMetricsMXBean {
+
+    long getOrdersRejected();
+
+    /** Orders whose processing threw; they are counted among the rejected ones too. */
+    long getOrdersFailed();
+
+    long getBoxesPacked();
+
+    long getContainersShipped();
+
+    long getTrucksDispatched();
+
+    long getContainersDispatched();
+
+    /** Mean fill of the trucks that have left, as a fraction of their capacity. */
+    double getTruckUtilisation();
+
+    List<StageSnapshot> getStages();
+
+    /** Throughput, rejection rate and truck wait over the last 1, 10 and 60 seconds. */
+    List<WindowSnapshot> getWindows();
+
+    List<QueueSnapshot> getQueues();
+}
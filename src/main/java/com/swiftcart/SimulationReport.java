@@ -0,0 +1,166 @@
+package com.swiftcart;
+
+/**
+ * SimulationReport renders the end-of-run statistics of a SimulationResult into a TextBuffer.
+ * Everything it shows is kept up to date while the run is in progress: counters, histograms
+ * (truck wait, container dwell, order to truck, per-stage latency, queue depths) and the minimum
+ * truck wait are all aggregated as events happen, so rendering reads a fixed number of values and
+ * histogram buckets and costs the same however many orders, containers and trucks the run had.
+ * Nothing is rendered until the report is asked for, and the numbers are written into the
+ * buffer without building strings.
+ */
+public class SimulationReport {
+    private static final String NEWLINE = System.lineSeparator();
+    private static final int RULE_WIDTH = 60;
+
+    private final SimulationConfig config;
+    private final SimulationResult result;
+    private final OrderJournal journal;
+
+    public SimulationReport(SimulationConfig config, SimulationResult result, OrderJournal journal) {
+        this.config = config;
+        this.result = result;
+        this.journal = journal;
+    }
+
+    /**
+     * Appends the whole report to the buffer.
+     */
+    public void render(TextBuffer out) {
+        SimulationMetrics metrics = result.getMetrics();
+        int totalOrders = result.getTotalOrders();
+        long ordersRejected = metrics.getOrdersRejected();
+        long boxesPacked = metrics.getBoxesPacked();
+        long trucksDispatched = metrics.getTrucksDispatched();
+        long totalTimeSeconds = result.getDurationMillis() / 1000;
+
+        out.append(NEWLINE).repeat('=', RULE_WIDTH).append(NEWLINE);
+        out.append("         SWIFTCART SIMULATION RESULTS").append(NEWLINE);
+        out.repeat('=', RULE_WIDTH).append(NEWLINE);
+        out.append("Simulation Duration: ").append(totalTimeSeconds / 60.0, 2).append(" minutes").append(NEWLINE);
+        out.append("Seed: ").append(result.getSeed()).append(NEWLINE);
+        out.append("Total Orders Processed: ").append(boxesPacked + ordersRejected).append(NEWLINE);
+        out.append("Orders Rejected: ").append(ordersRejected).append(" (").append((ordersRejected * 100.0) / totalOrders, 1).append("%)").append(NEWLINE);
+        long ordersFailed = metrics.getOrdersFailed();
+        if (ordersFailed > 0) {
+            out.append("Orders Failed: ").append(ordersFailed).append(" (counted as rejected)").append(NEWLINE);
+        }
+        out.append("Boxes Packed: ").append(boxesPacked).append(NEWLINE);
+        out.append("Containers Created: ").append(metrics.getContainersShipped()).append(NEWLINE);
+        out.append("Trucks Dispatched: ").append(trucksDispatched).append(NEWLINE);
+
+        DispatchMetrics dispatchMetrics = metrics.dispatch();
+        LatencyHistogram truckWait = dispatchMetrics.getTruckWait();
+        if (trucksDispatched > 0 && truckWait.getCount() > 0) {
+            out.append("Truck Wait Times - Max: ").append(truckWait.getMax() / 1000.0, 2)
+                .append(" seconds, Min: ").append(dispatchMetrics.getMinTruckWait() / 1000.0, 2)
+                .append(" seconds, Average: ").append(truckWait.getMean() / 1000.0, 2).append(" seconds").append(NEWLINE);
+        }
+        if (dispatchMetrics.getContainersDispatched() > 0) {
+            LatencyHistogram dwell = metrics.stage(Stage.TRUCK).getServiceTime();
+            out.append("Truck Utilisation: ").append(dispatchMetrics.getUtilisation() * 100, 1).append("% (")
+                .append(dispatchMetrics.getContainersDispatched()).append(" containers; departures - full: ")
+                .append(dispatchMetrics.getDepartures(DepartureReason.FULL)).append(", max dwell: ")
+                .append(dispatchMetrics.getDepartures(DepartureReason.MAX_DWELL)).append(", early: ")
+                .append(dispatchMetrics.getDepartures(DepartureReason.EARLY)).append(", shutdown: ")
+                .append(dispatchMetrics.getDepartures(DepartureReason.SHUTDOWN)).append(')').append(NEWLINE);
+            out.append("Container Dwell on Truck - p50: ").append(seconds(dwell.getValueAtPercentile(50)), 2)
+                .append(" seconds, p99: ").append(seconds(dwell.getValueAtPercentile(99)), 2)
+                .append(" seconds, Max: ").append(seconds(dwell.getMax()), 2).append(" seconds").append(NEWLINE);
+        }
+        LatencyHistogram orderToTruck = dispatchMetrics.getOrderToTruck();
+        if (orderToTruck.getCount() > 0) {
+            out.append("Order to Truck - p50: ").append(seconds(orderToTruck.getValueAtPercentile(50)), 2)
+                .append(" seconds, p99: ").append(seconds(orderToTruck.getValueAtPercentile(99)), 2)
+                .append(" seconds, Max: ").append(seconds(orderToTruck.getMax()), 2).append(" seconds").append(NEWLINE);
+            for (OrderPriority priority : OrderPriority.values()) {
+                LatencyHistogram times = dispatchMetrics.getOrderToTruck(priority);
+                if (times.getCount() > 0) {
+                    out.append("  ").append(priority.getLabel()).append(": ").append(times.getCount()).append(" orders, p99: ")
+                        .append(seconds(times.getValueAtPercentile(99)), 2).append(" seconds, past deadline: ")
+                        .append(dispatchMetrics.getDeadlinesMissed(priority)).append(NEWLINE);
+                }
+            }
+        }
+
+        if (totalTimeSeconds > 0) {
+            out.append("Order Processing Rate: ").append((boxesPacked * 60.0) / totalTimeSeconds, 1).append(" orders/minute").append(NEWLINE);
+        }
+
+        OrderRouter router = result.getRouter();
+        if (router != null) {
+            out.append(NEWLINE).append("--- Warehouses (").append(router.getRebalanced()).append(" orders rebalanced) ---").append(NEWLINE);
+            for (Warehouse warehouse : result.getWarehouses()) {
+                SimulationMetrics warehouseMetrics = warehouse.getMetrics();
+                int index = warehouse.getNumber() - 1;
+                out.append("Warehouse ").append(warehouse.getNumber()).append(": ").append(router.getRouted(index))
+                    .append(" orders routed (").append(router.getRebalancedIn(index)).append(" rebalanced in), ")
+                    .append(warehouseMetrics.getBoxesPacked()).append(" boxes packed, ")
+                    .append(warehouseMetrics.getContainersShipped()).append(" containers, ")
+                    .append(warehouseMetrics.getTrucksDispatched()).append(" trucks").append(NEWLINE);
+            }
+        }
+
+        int[] queuedOrders = result.getQueuedOrders();
+        out.append(NEWLINE).append("--- Final System Status ---").append(NEWLINE);
+        out.append("Orders in queues: Intake: ").append(queuedOrders[0]).append(", Picking: ").append(queuedOrders[1])
+            .append(", Packing: ").append(queuedOrders[2]).append(", Labelling: ").append(queuedOrders[3]).append(NEWLINE);
+        out.append("Containers awaiting dispatch: ").append(result.getContainersAwaitingDispatch()).append(NEWLINE);
+        if (journal.isEnabled()) {
+            out.append("Journal: ").append(journal.getRecordCount()).append(" records, ")
+                .append(journal.getCommitCount()).append(" group commits");
+            if (journal.isFull()) {
+                out.append(", full before the run ended");
+            }
+            out.append(NEWLINE);
+        }
+
+        out.append(NEWLINE).append("--- Stage Latency (ms): queue wait | service time ---").append(NEWLINE);
+        out.appendLeft("Stage", 10).append(' ').appendRight("Items", 6).append(" |");
+        latencyHeader(out);
+        out.append(" |");
+        latencyHeader(out);
+        out.append(NEWLINE);
+        for (StageSnapshot stage : metrics.getStages()) {
+            out.appendLeft(stage.getStage(), 10).append(' ').appendRight(stage.getProcessed(), 6).append(" |");
+            latencies(out, stage.getQueueWait());
+            out.append(" |");
+            latencies(out, stage.getServiceTime());
+            out.append(NEWLINE);
+        }
+        out.append(NEWLINE).append("--- Queue Depth (sampled) ---").append(NEWLINE);
+        for (QueueSnapshot queue : metrics.getQueues()) {
+            out.appendLeft(queue.getQueue(), 12).append(" mean: ").append(queue.getMeanDepth(), 1)
+                .append(", p99: ").append(queue.getP99Depth()).append(", max: ").append(queue.getMaxDepth()).append(NEWLINE);
+        }
+        if (config.isAutoscale()) {
+            out.append(NEWLINE).append("--- Autoscaling ---").append(NEWLINE);
+            for (Warehouse warehouse : result.getWarehouses()) {
+                for (StationPool pool : warehouse.getStationPools()) {
+                    out.append("Warehouse ").append(warehouse.getNumber()).append(' ').appendLeft(pool.getStage().name(), 10)
+                        .append(" workers: ").append(pool.getInitialWorkers()).append(" at start, ")
+                        .append(pool.getPeakWorkers()).append(" at peak (min ").append(pool.getMinWorkers())
+                        .append(", max ").append(pool.getMaxWorkers()).append("), scaled up: ").append(pool.getScaledUp())
+                        .append(", down: ").append(pool.getScaledDown()).append(NEWLINE);
+                }
+            }
+        }
+        out.repeat('=', RULE_WIDTH).append(NEWLINE);
+    }
+
+    private static void latencyHeader(TextBuffer out) {
+        out.append(' ').appendRight("p50", 10).append(' ').appendRight("p99", 10)
+            .append(' ').appendRight("p99.9", 10).append(' ').appendRight("max", 10);
+    }
+
+    private static void latencies(TextBuffer out, LatencySnapshot latency) {
+        out.append(' ').appendRight(latency.getP50Millis(), 3, 10)
+            .append(' ').appendRight(latency.getP99Millis(), 3, 10)
+            .append(' ').appendRight(latency.getP999Millis(), 3, 10)
+            .append(' ').appendRight(latency.getMaxMillis(), 3, 10);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.swiftcart;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SimulationResult is what a finished Simulation leaves behind: the metrics of the whole run,
+ * the warehouses with their own metrics and final queue contents, the router if there was one,
+ * the seed it ran with, and how long the run took on its clock.
+ */
+public class SimulationResult {
+    private final SimulationMetrics metrics;
+    private final List<Warehouse> warehouses;
+    private final OrderRouter router;
+    private final int totalOrders;
+    private final long seed;
+    private final long durationMillis;
+
+    SimulationResult(SimulationMetrics metrics, List<Warehouse> warehouses, OrderRouter router, int totalOrders, long seed, long durationMillis) {
+        this.metrics = metrics;
+        this.warehouses = Collections.unmodifiableList(warehouses);
+        this.router = router;
+        this.totalOrders = totalOrders;
+        this.seed = seed;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Returns the metrics of the run, with every warehouse added in.
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<Warehouse> getWarehouses() {
+        return warehouses;
+    }
+
+    /**
+     * Returns the router that partitioned the orders, or null if there was only one warehouse.
+     */
+    public OrderRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Returns how many orders the run covered, counting any that a recovered run skipped.
+     */
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+
+    /**
+     * Returns the master seed of the run, the configured one or the one it drew; running again with
+     * -Dswiftcart.seed set to it rejects the same orders and breaks down on the same containers.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns how long the run took, in milliseconds of simulated time on a discrete-event clock.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns how many orders were left in the queues in front of each order station, from intake
+     * to labelling, over all warehouses.
+     */
+    public int[] getQueuedOrders() {
+        int[] queuedOrders = new int[4];
+        for (Warehouse warehouse : warehouses) {
+            int[] queued = warehouse.getQueuedOrders();
+            for (int i = 0; i < queuedOrders.length; i++) {
+                queuedOrders[i] += queued[i];
+            }
+        }
+        return queuedOrders;
+    }
+
+    public int getContainersAwaitingDispatch() {
+        int containers = 0;
+        for (Warehouse warehouse : warehouses) {
+            containers += warehouse.getContainersAwaitingDispatch();
+        }
+        return containers;
+    }
+}
@@ -2,88 +2,172 @@
 package com.swiftcart;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * SortingArea class simulates a sorting area that processes orders from a labelling queue.
  * It implements Runnable to allow it to run in a separate thread.
- * The sorting area takes orders from a labelling queue and puts them into a sorting queue.
+ * The sorting area takes orders from a labelling queue, gathers them into regional batches
+ * with a ContainerBuilder and puts the full containers into a sorting queue.
+ * Several sorting areas can share the labelling queue; the last one to finish poisons the sorting queue.
+ * With deadline scheduling a batch whose earliest box is within the flush lead of its deadline
+ * is shipped at once, full or not.
  */
 public class SortingArea implements Runnable {
     private final BlockingQueue<Order> labellingQueue;
     private final BlockingQueue<Container> sortingQueue;
-    private final AtomicInteger containersShipped;
-    private final AtomicInteger boxesPacked;
+    private final LongAdder containersShipped;
+    private final LongAdder boxesPacked;
+    private final StageMetrics metrics;
+    private final ShutdownCoordinator<Order> shutdown;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+    private final BatchSettings batchSettings;
+    private final ContainerBuilder containerBuilder;
+    private final boolean deadlineScheduling;
+    private final long flushLeadMillis;
+    // Earliest deadline of each zone's incomplete batch, indexed by the zone's ordinal, and of the ready batches
+    private final long[] batchDeadlines = new long[Zone.COUNT];
+    private long readyDeadline = Order.NO_DEADLINE;
 
-    public SortingArea(BlockingQueue<Order> labellingQueue, BlockingQueue<Container> sortingQueue, AtomicInteger containersShipped, AtomicInteger boxesPacked) {
+    public SortingArea(BlockingQueue<Order> labellingQueue, BlockingQueue<Container> sortingQueue, LongAdder containersShipped, LongAdder boxesPacked,
+                       StageMetrics metrics, ShutdownCoordinator<Order> shutdown, OrderJournal journal, EventLog log,
+                       SimulationClock clock, BatchSettings batchSettings, ContainerBuilder containerBuilder, PrioritySettings priority) {
         this.labellingQueue = labellingQueue;
         this.sortingQueue = sortingQueue;
         this.containersShipped = containersShipped;
         this.boxesPacked = boxesPacked;
+        this.metrics = metrics;
+        this.shutdown = shutdown;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.batchSettings = batchSettings;
+        this.containerBuilder = containerBuilder;
+        this.deadlineScheduling = priority.isDeadlineScheduling();
+        this.flushLeadMillis = priority.getFlushLeadMillis();
+        Arrays.fill(batchDeadlines, Order.NO_DEADLINE);
     }
 
     @Override
     public void run() {
-        Map<String, List<Order>> regionalBatches = new HashMap<>();
-        List<List<Order>> readyBatches = new ArrayList<>();
+        List<Order> orders = new ArrayList<>(batchSettings.getSize());
+        List<Container> completed = new ArrayList<>();
 
         try {
             while (true) {
-                Order order = labellingQueue.take();
+                long flushAt = nextFlush();
+                if (flushAt == Long.MAX_VALUE) {
+                    Batches.takeBatch(labellingQueue, orders, batchSettings, Order.POISON_PILL, clock);
+                } else {
+                    Batches.pollBatch(labellingQueue, orders, batchSettings, Order.POISON_PILL, clock,
+                        Math.max(0, flushAt - clock.currentTimeMillis()));
+                }
+                boolean poisoned = false;
+                long entered = clock.nanoTime();
 
-                if (order == Order.POISON_PILL) {
-                    // Process remaining orders
-                    for (List<Order> batch : regionalBatches.values()) {
-                        if (!batch.isEmpty()) {
-                            readyBatches.add(new ArrayList<>(batch));
-                        }
+                for (Order order : orders) {
+                    if (order == Order.POISON_PILL) {
+                        poisoned = true;
+                        continue;
                     }
-                    if (!readyBatches.isEmpty()) {
-                        List<Order> finalBoxes = new ArrayList<>();
-                        for (List<Order> batch : readyBatches) {
-                            finalBoxes.addAll(batch);
-                        }
-                        if (!finalBoxes.isEmpty()) {
-                            Container container = new Container(finalBoxes);
-                            System.out.println("SortingArea: Created final Container #" + container.getId() + " with " + finalBoxes.size() + " boxes. (Thread: " + Thread.currentThread().getName() + ")");
-                            sortingQueue.put(container);
-                            containersShipped.incrementAndGet();
-                        }
-                    }
-                    for (int i = 0; i < 3; i++) {
-                        sortingQueue.put(Container.POISON_PILL);
+
+                    boxesPacked.increment();
+                    metrics.entered(order, entered);
+                    journal.orderBatched(order);
+                    int zone = order.getRegionalZone().ordinal();
+                    batchDeadlines[zone] = Math.min(batchDeadlines[zone], order.getDeadlineMillis());
+                    if (containerBuilder.add(order)) {
+                        log.log(EventType.BATCH_READY, "SortingArea", 0, containerBuilder.getBatchSize(), order.getRegionalZone().getDisplayName());
+                        batchReady(zone, EventType.CONTAINER_CREATED, completed);
                     }
-                    break;
+                }
+                orders.clear();
+                if (deadlineScheduling) {
+                    closeDueBatches(completed);
                 }
 
-                boxesPacked.incrementAndGet();
-                regionalBatches.computeIfAbsent(order.getRegionalZone(), k -> new ArrayList<>()).add(order);
-
-                List<Order> batch = regionalBatches.get(order.getRegionalZone());
-                if (batch.size() == 6) {
-                    readyBatches.add(new ArrayList<>(batch));
-                    System.out.println("SortingArea: Batch of 6 for zone " + order.getRegionalZone() + " is ready. (Thread: " + Thread.currentThread().getName() + ")");
-                    batch.clear();
+                if (!completed.isEmpty()) {
+                    Batches.putAll(sortingQueue, completed);
+                    containersShipped.add(completed.size());
+                    completed.clear();
+                }
 
-                    if (readyBatches.size() == 5) {
-                        List<Order> containerBoxes = new ArrayList<>();
-                        for (List<Order> readyBatch : readyBatches) {
-                            containerBoxes.addAll(readyBatch);
-                        }
-                        Container container = new Container(containerBoxes);
-                        System.out.println("SortingArea: Created Container #" + container.getId() + " with 30 boxes from 5 batches. (Thread: " + Thread.currentThread().getName() + ")");
+                if (poisoned) {
+                    // Process remaining orders
+                    Container container = containerBuilder.flush();
+                    if (container != null) {
+                        log.log(EventType.FINAL_CONTAINER_CREATED, "SortingArea", container.getId(), container.getOrders().size(), null);
+                        journal.containerSorted(container);
+                        metrics.packed(container, clock.nanoTime());
                         sortingQueue.put(container);
-                        containersShipped.incrementAndGet();
-                        readyBatches.clear();
+                        containersShipped.increment();
+                    }
+                    if (shutdown.workerFinished(labellingQueue)) {
+                        sortingQueue.put(Container.POISON_PILL);
                     }
+                    break;
                 }
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
+
+    // When the next batch is due to be closed early, or Long.MAX_VALUE if none will be
+    private long nextFlush() {
+        if (!deadlineScheduling) {
+            return Long.MAX_VALUE;
+        }
+        long earliest = readyDeadline;
+        for (long deadline : batchDeadlines) {
+            earliest = Math.min(earliest, deadline);
+        }
+        return earliest == Order.NO_DEADLINE ? Long.MAX_VALUE : earliest - flushLeadMillis;
+    }
+
+    // Closes every batch with a box within the flush lead of its deadline, and ships the container they are in
+    private void closeDueBatches(List<Container> completed) {
+        long due = clock.currentTimeMillis() + flushLeadMillis;
+        for (Zone zone : Zone.values()) {
+            int index = zone.ordinal();
+            if (batchDeadlines[index] > due) {
+                continue;
+            }
+            if (containerBuilder.closeBatch(zone)) {
+                batchReady(index, EventType.CONTAINER_CLOSED_EARLY, completed);
+            } else {
+                batchDeadlines[index] = Order.NO_DEADLINE;
+            }
+        }
+        if (readyDeadline <= due) {
+            Container container = containerBuilder.closeContainer();
+            if (container != null) {
+                ship(container, EventType.CONTAINER_CLOSED_EARLY, completed);
+            }
+            readyDeadline = Order.NO_DEADLINE;
+        }
+    }
+
+    // A zone's batch has joined the ready batches, and may have completed a container
+    private void batchReady(int zone, EventType containerEvent, List<Container> completed) {
+        readyDeadline = Math.min(readyDeadline, batchDeadlines[zone]);
+        batchDeadlines[zone] = Order.NO_DEADLINE;
+        Container container = containerBuilder.pollContainer();
+        if (container != null) {
+            ship(container, containerEvent, completed);
+            readyDeadline = Order.NO_DEADLINE;
+        }
+    }
+
+    private void ship(Container container, EventType event, List<Container> completed) {
+        log.log(event, "SortingArea", container.getId(), container.getOrders().size(), null);
+        journal.containerSorted(container);
+        metrics.packed(container, clock.nanoTime());
+        completed.add(container);
+    }
 }
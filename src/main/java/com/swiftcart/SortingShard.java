@@ -0,0 +1,108 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SortingShard class sorts the orders of the regional zones it owns in sharded sorting mode.
+ * It implements Runnable to allow it to run in a separate thread.
+ * Each shard has its own input queue and its own regional batches, indexed by the zone's ordinal,
+ * so shards never share state.
+ * Every full batch (6 boxes by default) is sent to the ContainerAssembler; on shutdown the shard flushes its
+ * incomplete batches too, and the last shard to finish poisons the assembler.
+ */
+public class SortingShard implements Runnable {
+    private final int shardId;
+    private final String name;
+    private final BlockingQueue<Order> shardQueue;
+    private final BlockingQueue<ZoneBatch> batchQueue;
+    private final LongAdder boxesPacked;
+    private final StageMetrics metrics;
+    private final ShutdownCoordinator<Order> shutdown;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+    private final BatchSettings batchSettings;
+    private final int batchSize;
+
+    public SortingShard(int shardId, BlockingQueue<Order> shardQueue, BlockingQueue<ZoneBatch> batchQueue, LongAdder boxesPacked,
+                        StageMetrics metrics, ShutdownCoordinator<Order> shutdown, OrderJournal journal, EventLog log, SimulationClock clock,
+                        BatchSettings batchSettings, int batchSize) {
+        this.shardId = shardId;
+        this.name = "SortingShard-" + shardId;
+        this.shardQueue = shardQueue;
+        this.batchQueue = batchQueue;
+        this.boxesPacked = boxesPacked;
+        this.metrics = metrics;
+        this.shutdown = shutdown;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.batchSettings = batchSettings;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Order>[] regionalBatches = new List[Zone.COUNT];
+        for (int i = 0; i < regionalBatches.length; i++) {
+            regionalBatches[i] = new ArrayList<>(batchSize);
+        }
+        List<Order> orders = new ArrayList<>(batchSettings.getSize());
+        List<ZoneBatch> ready = new ArrayList<>();
+
+        try {
+            while (true) {
+                Batches.takeBatch(shardQueue, orders, batchSettings, Order.POISON_PILL, clock);
+                boolean poisoned = false;
+                int boxes = 0;
+                long entered = clock.nanoTime();
+
+                for (Order order : orders) {
+                    if (order == Order.POISON_PILL) {
+                        poisoned = true;
+                        continue;
+                    }
+                    boxes++;
+                    metrics.entered(order, entered);
+                    journal.orderBatched(order);
+                    List<Order> batch = regionalBatches[order.getRegionalZone().ordinal()];
+                    batch.add(order);
+                    if (batch.size() == batchSize) {
+                        ready.add(new ZoneBatch(order.getRegionalZone(), new ArrayList<>(batch), true));
+                        log.log(EventType.BATCH_READY, name, 0, batch.size(), order.getRegionalZone().getDisplayName());
+                        batch.clear();
+                    }
+                }
+                orders.clear();
+                if (boxes > 0) {
+                    boxesPacked.add(boxes);
+                }
+
+                if (poisoned) {
+                    // Hand over the incomplete batches for the final container
+                    for (Zone zone : Zone.values()) {
+                        List<Order> batch = regionalBatches[zone.ordinal()];
+                        if (!batch.isEmpty()) {
+                            ready.add(new ZoneBatch(zone, new ArrayList<>(batch), false));
+                        }
+                    }
+                }
+                Batches.putAll(batchQueue, ready);
+                ready.clear();
+
+                if (poisoned) {
+                    if (shutdown.workerFinished()) {
+                        batchQueue.put(ZoneBatch.POISON_PILL);
+                    }
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.swiftcart;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SpscRingBuffer is a lock-free single-producer/single-consumer queue on a preallocated array.
+ * It is meant for the 1:1 hops between stations (packing to labelling, labelling to sorting).
+ * Only the producer moves the tail and only the consumer moves the head, so each side
+ * publishes its position with an ordered store and never needs a CAS. Each side also
+ * caches the other side's position and only re-reads it when the buffer looks full or empty.
+ * A bulk put writes as many items as fit and publishes them with a single tail update.
+ * Using it with more than one producer or more than one consumer corrupts the queue.
+ */
+public class SpscRingBuffer<E> extends RingBufferQueue<E> {
+    private final AtomicLong head = new PaddedPosition();
+    private final AtomicLong tail = new PaddedPosition();
+    // Owned by the producer
+    private long cachedHead;
+    // Owned by the consumer
+    private long cachedTail;
+
+    public SpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long currentTail = tail.get();
+        if (currentTail - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (currentTail - cachedHead >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) currentTail & mask] = e;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    @Override
+    public void putAll(List<? extends E> items) throws InterruptedException {
+        int written = 0;
+        int idle = 0;
+        while (written < items.size()) {
+            long currentTail = tail.get();
+            long free = buffer.length - (currentTail - cachedHead);
+            if (free <= 0) {
+                cachedHead = head.get();
+                free = buffer.length - (currentTail - cachedHead);
+                if (free <= 0) {
+                    idle = idle(idle);
+                    continue;
+                }
+            }
+            int count = (int) Math.min(free, items.size() - written);
+            for (int i = 0; i < count; i++) {
+                E e = items.get(written + i);
+                if (e == null) {
+                    throw new NullPointerException();
+                }
+                buffer[(int) (currentTail + i) & mask] = e;
+            }
+            tail.lazySet(currentTail + count);
+            written += count;
+            idle = 0;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head.get();
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.get();
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) currentHead & mask;
+        E e = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(currentHead + 1);
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long currentHead = head.get();
+        if (currentHead >= tail.get()) {
+            return null;
+        }
+        return (E) buffer[(int) currentHead & mask];
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * An AtomicLong padded to its own cache line, so the producer and consumer positions
+     * do not invalidate each other.
+     */
+    @SuppressWarnings("unused")
+    static final class PaddedPosition extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -0,0 +1,17 @@
+package com.swiftcart;
+
+/**
+ * Stage names the steps of the SwiftCart pipeline in the order an order goes through them.
+ * Metrics and the stage-entry timestamps carried by Order and Container are kept per stage.
+ */
+public enum Stage {
+    INTAKE,
+    PICKING,
+    PACKING,
+    LABELLING,
+    SORTING,
+    LOADING,
+    TRUCK;
+
+    static final int COUNT = values().length;
+}
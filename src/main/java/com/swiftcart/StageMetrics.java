@@ -0,0 +1,158 @@
+package com.swiftcart;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StageMetrics collects the measurements of one pipeline stage, shared by all of its workers.
+ * Queue wait is the time from an item being handed to the stage's input queue until a worker
+ * takes it; service time is the time from then until the item is handed on to the next stage.
+ * Both are recorded in nanoseconds of the simulation clock, so discrete runs report simulated time.
+ * The items processed and rejected are also counted per second in RollingCounters, for the
+ * sliding windows of a streaming run. An order that fails with an exception in a stage is
+ * rejected there, and counted as failed as well.
+ */
+public class StageMetrics {
+    private final Stage stage;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final RollingCounter processedWindow = new RollingCounter();
+    private final RollingCounter rejectedWindow = new RollingCounter();
+
+    public StageMetrics(Stage stage) {
+        this.stage = stage;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * Records the queue wait of an order as a worker takes it, and stamps its entry to this stage.
+     */
+    public void entered(Order order, long now) {
+        queueWait.record(now - order.getEnqueuedAt());
+        order.markEntered(stage, now);
+    }
+
+    /**
+     * Records the service time of an order about to be handed to the next stage, and stamps the hand-off.
+     * Must be called before the order is put into the next queue.
+     */
+    public void finished(Order order, long now) {
+        serviceTime.record(now - order.getEnteredAt(stage));
+        processed.increment();
+        processedWindow.add(now, 1);
+        order.markEnqueued(now);
+    }
+
+    public void entered(Container container, long now) {
+        queueWait.record(now - container.getEnqueuedAt());
+        container.markEntered(stage, now);
+    }
+
+    public void finished(Container container, long now) {
+        serviceTime.record(now - container.getEnteredAt(stage));
+        processed.increment();
+        processedWindow.add(now, 1);
+        container.markEnqueued(now);
+    }
+
+    /**
+     * Records the service time of every box in a new container and stamps the container's hand-off.
+     * Used by the sorting stage, where boxes enter one by one and leave together.
+     */
+    public void packed(Container container, long now) {
+        List<Order> orders = container.getOrders();
+        for (int i = 0; i < orders.size(); i++) {
+            serviceTime.record(now - orders.get(i).getEnteredAt(stage));
+        }
+        processed.add(orders.size());
+        processedWindow.add(now, orders.size());
+        container.markEnqueued(now);
+    }
+
+    /**
+     * Records one service time that was measured by the caller.
+     */
+    public void recordService(long nanos) {
+        serviceTime.record(nanos);
+        processed.increment();
+    }
+
+    /**
+     * Counts rejections carried over from a crashed run; they are not part of any window.
+     */
+    public void rejected(int count) {
+        rejected.add(count);
+    }
+
+    /**
+     * Records rejections that happened at the given clock.nanoTime() timestamp.
+     */
+    public void rejected(int count, long now) {
+        rejected.add(count);
+        rejectedWindow.add(now, count);
+    }
+
+    /**
+     * Records an order whose processing threw at the given clock.nanoTime() timestamp, as a rejection.
+     */
+    public void failed(long now) {
+        failed.increment();
+        rejected(1, now);
+    }
+
+    /**
+     * Adds the measurements of the same stage in another run or warehouse to this one.
+     */
+    public void add(StageMetrics other) {
+        queueWait.add(other.queueWait);
+        serviceTime.add(other.serviceTime);
+        processed.add(other.processed.sum());
+        rejected.add(other.rejected.sum());
+        failed.add(other.failed.sum());
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the rejections that were failures; they are included in getRejected().
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the items processed per second; recordService() does not count towards it.
+     */
+    public RollingCounter getProcessedWindow() {
+        return processedWindow;
+    }
+
+    public RollingCounter getRejectedWindow() {
+        return rejectedWindow;
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    public StageSnapshot snapshot() {
+        return new StageSnapshot(stage.name(), processed.sum(), rejected.sum(),
+            LatencySnapshot.of(queueWait), LatencySnapshot.of(serviceTime));
+    }
+}
@@ -0,0 +1,40 @@
+package com.swiftcart;
+
+/**
+ * StageSnapshot is a point-in-time copy of the metrics of one pipeline stage.
+ */
+public class StageSnapshot {
+    private final String stage;
+    private final long processed;
+    private final long rejected;
+    private final LatencySnapshot queueWait;
+    private final LatencySnapshot serviceTime;
+
+    public StageSnapshot(String stage, long processed, long rejected, LatencySnapshot queueWait, LatencySnapshot serviceTime) {
+        this.stage = stage;
+        this.processed = processed;
+        this.rejected = rejected;
+        this.queueWait = queueWait;
+        this.serviceTime = serviceTime;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public LatencySnapshot getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencySnapshot getServiceTime() {
+        return serviceTime;
+    }
+}
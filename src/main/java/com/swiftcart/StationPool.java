@@ -0,0 +1,167 @@
+package com.swiftcart;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * StationPool runs the workers of one order stage (picking, packing or labelling) on its input
+ * and output queue, and lets the WorkerAutoscaler add and retire workers while the stage runs,
+ * within the stage's minimum and maximum. The workers share the stage's ShutdownCoordinator,
+ * so the stage still stops as a whole on one POISON_PILL however many workers it has by then.
+ * New workers are made by the given factory and run on the pool's executor, which needs a thread
+ * for each of the maximum number of workers and must not be shut down before the stage has finished.
+ */
+public class StationPool {
+    private final Stage stage;
+    private final BlockingQueue<Order> inputQueue;
+    private final BlockingQueue<Order> outputQueue;
+    private final StageMetrics metrics;
+    private final int initialWorkers;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final Function<ShutdownCoordinator<Order>, OrderStation> factory;
+    private final ExecutorService executor;
+    private final SimulationClock clock;
+    private final ShutdownCoordinator<Order> shutdown;
+    private final List<OrderStation> stations = new CopyOnWriteArrayList<>();
+    private final AtomicInteger peakWorkers = new AtomicInteger();
+    private final AtomicInteger scaledUp = new AtomicInteger();
+    private final AtomicInteger scaledDown = new AtomicInteger();
+
+    public StationPool(Stage stage, BlockingQueue<Order> inputQueue, BlockingQueue<Order> outputQueue, StageMetrics metrics, int initialWorkers,
+                       int minWorkers, int maxWorkers, Function<ShutdownCoordinator<Order>, OrderStation> factory, ExecutorService executor,
+                       SimulationClock clock) {
+        if (minWorkers < 1 || initialWorkers < minWorkers || maxWorkers < initialWorkers) {
+            throw new IllegalArgumentException("Stage " + stage + " needs 1 <= min <= workers <= max: "
+                + minWorkers + ", " + initialWorkers + ", " + maxWorkers);
+        }
+        this.stage = stage;
+        this.inputQueue = inputQueue;
+        this.outputQueue = outputQueue;
+        this.metrics = metrics;
+        this.initialWorkers = initialWorkers;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.factory = factory;
+        this.executor = executor;
+        this.clock = clock;
+        this.shutdown = new ShutdownCoordinator<>(initialWorkers, Order.POISON_PILL);
+    }
+
+    /**
+     * Starts the initial workers.
+     */
+    public void start() {
+        for (int i = 0; i < initialWorkers; i++) {
+            launch();
+        }
+    }
+
+    /**
+     * Starts one more worker. Returns false at the maximum, or if the stage has already shut down.
+     * A retiring worker keeps its place until it has finished its batch, so the pool never runs
+     * more than the maximum number of stations and an executor of that many threads always has room.
+     */
+    public boolean addWorker() {
+        if (stations.size() >= maxWorkers || !shutdown.tryJoin()) {
+            return false;
+        }
+        launch();
+        scaledUp.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Asks one worker to stop after its current batch. Returns false at the minimum.
+     */
+    public boolean retireWorker() {
+        if (getWorkers() <= minWorkers) {
+            return false;
+        }
+        for (OrderStation station : stations) {
+            if (!station.isRetiring()) {
+                station.retire();
+                scaledDown.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void launch() {
+        OrderStation station = factory.apply(shutdown);
+        stations.add(station);
+        peakWorkers.accumulateAndGet(stations.size(), Math::max);
+        executor.submit(clock.participant(() -> {
+            try {
+                station.run();
+            } finally {
+                stations.remove(station);
+            }
+        }));
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public BlockingQueue<Order> getInputQueue() {
+        return inputQueue;
+    }
+
+    public BlockingQueue<Order> getOutputQueue() {
+        return outputQueue;
+    }
+
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns how many workers are running and not retiring.
+     */
+    public int getWorkers() {
+        int workers = 0;
+        for (OrderStation station : stations) {
+            if (!station.isRetiring()) {
+                workers++;
+            }
+        }
+        return workers;
+    }
+
+    public int getInitialWorkers() {
+        return initialWorkers;
+    }
+
+    public int getMinWorkers() {
+        return minWorkers;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    public int getPeakWorkers() {
+        return peakWorkers.get();
+    }
+
+    public int getScaledUp() {
+        return scaledUp.get();
+    }
+
+    public int getScaledDown() {
+        return scaledDown.get();
+    }
+
+    /**
+     * Returns true once the last worker has taken the pill and the stage has shut down.
+     */
+    public boolean isFinished() {
+        return shutdown.getWorkers() == 0;
+    }
+}
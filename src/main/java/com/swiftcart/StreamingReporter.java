@@ -0,0 +1,71 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * StreamingReporter reports a streaming run while it goes on. Every report interval of the
+ * simulation clock it writes one line with the throughput, rejection rate and mean truck wait of
+ * the last 1, 10 and 60 seconds, totalled over the warehouses, which it reads from their
+ * RollingCounters without stopping the stations. The line is rendered into a reused TextBuffer.
+ * Once the run has lasted its configured duration the reporter asks it to drain; it stops as
+ * soon as the run is draining, whoever asked for it.
+ */
+public class StreamingReporter implements Runnable {
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final Simulation simulation;
+    private final List<Warehouse> warehouses;
+    private final long reportMillis;
+    private final long durationMillis;
+    private final WritableByteChannel output;
+    private final SimulationClock clock;
+    private final TextBuffer text = new TextBuffer(512);
+
+    public StreamingReporter(Simulation simulation, List<Warehouse> warehouses, long reportMillis, long durationMillis,
+                             WritableByteChannel output, SimulationClock clock) {
+        this.simulation = simulation;
+        this.warehouses = warehouses;
+        this.reportMillis = reportMillis;
+        this.durationMillis = durationMillis;
+        this.output = output;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run() {
+        long startMillis = clock.currentTimeMillis();
+        try {
+            while (!simulation.isDraining()) {
+                clock.sleep(reportMillis);
+                long elapsed = clock.currentTimeMillis() - startMillis;
+                report(elapsed, clock.nanoTime());
+                if (durationMillis > 0 && elapsed >= durationMillis) {
+                    simulation.drain();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write the streaming report: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(long elapsedMillis, long now) throws IOException {
+        text.append('[').appendRight(elapsedMillis / 1000.0, 1, 9).append(" s]");
+        for (int seconds : SimulationMetrics.WINDOW_SECONDS) {
+            WindowSnapshot window = null;
+            for (Warehouse warehouse : warehouses) {
+                WindowSnapshot own = warehouse.getMetrics().window(now, seconds);
+                window = window == null ? own : window.plus(own);
+            }
+            text.append(seconds == SimulationMetrics.WINDOW_SECONDS[0] ? " " : " | ").appendRight(seconds, 2).append("s: ")
+                .appendRight(window.getThroughput(), 1, 7).append(" orders/s, ")
+                .appendRight(window.getRejectionRate() * 100, 1, 5).append("% rejected, truck wait ")
+                .appendRight(window.getMeanTruckWaitMillis() / 1000.0, 2, 6).append(" s");
+        }
+        text.append(NEWLINE);
+        text.writeTo(output);
+    }
+}
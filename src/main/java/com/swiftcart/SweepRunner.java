@@ -0,0 +1,172 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * SweepRunner class is the command line entry point for capacity planning: it runs the simulation
+ * for every combination of a set of settings and writes one CSV row of throughput and latency per run.
+ * Each argument is an axis, a setting without its "swiftcart." prefix and the values to try, e.g.
+ * workers.picking=2,4,8 truck.capacity=12,18; every other -Dswiftcart.* option applies to all runs.
+ * Each combination runs -Dswiftcart.sweep.replicas=R times (default 1). Replica r of every combination
+ * is seeded with -Dswiftcart.seed plus r, so all combinations see the same orders, rejections and breakdowns, and their
+ * differences come from the settings alone.
+ * Runs use the discrete-event clock, keep no event log, journal or MBean, and share no state, so
+ * -Dswiftcart.sweep.parallelism=N of them (default one per processor) run at once on a ForkJoinPool.
+ * The table goes to -Dswiftcart.sweep.out=path, or to standard output.
+ */
+public class SweepRunner {
+    private static final String PREFIX = "swiftcart.";
+    private static final Stage[] WAIT_COLUMNS = {Stage.PICKING, Stage.PACKING, Stage.LABELLING, Stage.SORTING, Stage.LOADING};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: SweepRunner setting=value1,value2,... [setting=value1,...]");
+            System.exit(2);
+        }
+        List<String> names = new ArrayList<>();
+        List<String[]> values = new ArrayList<>();
+        for (String axis : args) {
+            int equals = axis.indexOf('=');
+            if (equals <= 0 || equals == axis.length() - 1) {
+                throw new IllegalArgumentException("An axis is setting=value1,value2,...: " + axis);
+            }
+            String name = axis.substring(0, equals);
+            names.add(name.startsWith(PREFIX) ? name.substring(PREFIX.length()) : name);
+            values.add(axis.substring(equals + 1).split(","));
+        }
+        int replicas = Integer.getInteger("swiftcart.sweep.replicas", 1);
+        int parallelism = Integer.getInteger("swiftcart.sweep.parallelism", Runtime.getRuntime().availableProcessors());
+        if (replicas < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("A sweep needs at least one replica and one parallel run");
+        }
+        long baseSeed = Long.getLong("swiftcart.seed", 1L);
+
+        // Every combination of the axes, each replica of it a run of its own
+        List<Run> runs = new ArrayList<>();
+        int combinations = 1;
+        for (String[] axisValues : values) {
+            combinations = Math.multiplyExact(combinations, axisValues.length);
+        }
+        for (int combination = 0; combination < combinations; combination++) {
+            String[] point = new String[names.size()];
+            int rest = combination;
+            for (int axis = names.size() - 1; axis >= 0; axis--) {
+                String[] axisValues = values.get(axis);
+                point[axis] = axisValues[rest % axisValues.length].trim();
+                rest /= axisValues.length;
+            }
+            for (int replica = 0; replica < replicas; replica++) {
+                runs.add(new Run(point, replica, baseSeed + replica));
+            }
+        }
+
+        System.err.printf("Sweeping %d runs (%d combinations x %d replicas), %d at a time%n", runs.size(), combinations, replicas, parallelism);
+        long wallStart = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<String> rows;
+        try {
+            rows = pool.submit(() -> runs.parallelStream().map(run -> run.execute(names)).collect(Collectors.toList())).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A run of the sweep failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        System.err.printf("Sweep finished in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart));
+
+        String out = System.getProperty("swiftcart.sweep.out");
+        try (PrintStream table = out != null ? new PrintStream(Files.newOutputStream(Path.of(out)), false, "UTF-8") : null) {
+            PrintStream target = table != null ? table : System.out;
+            target.println(header(names));
+            for (String row : rows) {
+                target.println(row);
+            }
+        }
+    }
+
+    private static String header(List<String> names) {
+        StringBuilder header = new StringBuilder();
+        for (String name : names) {
+            header.append(name).append(',');
+        }
+        header.append("replica,seed,orders,boxes,rejected,containers,trucks,minutes,boxesPerMinute,truckUtilisation");
+        for (Stage stage : WAIT_COLUMNS) {
+            header.append(',').append(stage.name().toLowerCase(Locale.ROOT)).append("WaitP99Ms");
+        }
+        return header.append(",truckDwellP99Ms,truckWaitMeanMs,wallMs").toString();
+    }
+
+    /**
+     * One run of the sweep: a point of the grid, which replica of it this is, and its seed.
+     */
+    private static final class Run {
+        private final String[] point;
+        private final int replica;
+        private final long seed;
+
+        Run(String[] point, int replica, long seed) {
+            this.point = point;
+            this.replica = replica;
+            this.seed = seed;
+        }
+
+        String execute(List<String> names) {
+            Properties properties = new Properties();
+            properties.putAll(System.getProperties());
+            properties.setProperty(SimulationClock.MODE_PROPERTY, "discrete");
+            for (int axis = 0; axis < point.length; axis++) {
+                properties.setProperty(PREFIX + names.get(axis), point[axis]);
+            }
+            properties.setProperty("swiftcart.seed", String.valueOf(seed));
+            SimulationConfig config = SimulationConfig.fromProperties(properties);
+
+            long wallStart = System.nanoTime();
+            SimulationResult result;
+            try {
+                SimulationClock clock = SimulationClock.forMode(config.getClockMode());
+                result = new Simulation(config, clock, OrderJournal.disabled(), EventLog.disabled()).run(null, false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running " + Arrays.toString(point), e);
+            }
+            long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart);
+
+            SimulationMetrics metrics = result.getMetrics();
+            double minutes = result.getDurationMillis() / 60_000.0;
+            StringBuilder row = new StringBuilder();
+            for (String value : point) {
+                row.append(value).append(',');
+            }
+            row.append(replica).append(',').append(seed).append(',').append(result.getTotalOrders()).append(',')
+                .append(metrics.getBoxesPacked()).append(',').append(metrics.getOrdersRejected()).append(',')
+                .append(metrics.getContainersShipped()).append(',').append(metrics.getTrucksDispatched()).append(',')
+                .append(format(minutes)).append(',').append(format(minutes > 0 ? metrics.getBoxesPacked() / minutes : 0)).append(',')
+                .append(format(metrics.getTruckUtilisation()));
+            for (Stage stage : WAIT_COLUMNS) {
+                row.append(',').append(format(metrics.stage(stage).snapshot().getQueueWait().getP99Millis()));
+            }
+            row.append(',').append(format(metrics.stage(Stage.TRUCK).snapshot().getServiceTime().getP99Millis()))
+                .append(',').append(format(metrics.dispatch().getTruckWait().getMean()))
+                .append(',').append(wallMillis);
+            return row.toString();
+        }
+
+        private static String format(double value) {
+            return String.format(Locale.ROOT, "%.3f", value);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.swiftcart;
+
+import java.util.SplittableRandom;
+
+/**
+ * SyntheticOrderSource generates orders with consecutive ids, arrival times from an ArrivalProcess
+ * and zones from a ZoneMix. The defaults are the original intake: 600 orders, one every 500 ms,
+ * spread evenly over the five zones.
+ * Configured with -Dswiftcart.source.orders=N, -Dswiftcart.source.arrivals, -Dswiftcart.source.zones
+ * and -Dswiftcart.seed (a random seed if unset).
+ */
+public class SyntheticOrderSource implements OrderSource {
+    private final int lastOrderId;
+    private final ArrivalProcess arrivals;
+    private final ZoneMix zones;
+    private final SplittableRandom random;
+    private int nextOrderId;
+
+    public SyntheticOrderSource(int firstOrderId, int lastOrderId, ArrivalProcess arrivals, ZoneMix zones, SplittableRandom random) {
+        this.nextOrderId = firstOrderId;
+        this.lastOrderId = lastOrderId;
+        this.arrivals = arrivals;
+        this.zones = zones;
+        this.random = random;
+    }
+
+    @Override
+    public synchronized boolean next(OrderArrival arrival) {
+        if (nextOrderId > lastOrderId) {
+            return false;
+        }
+        arrival.set(new Order(nextOrderId++, zones.pick(random)), arrivals.next(random));
+        return true;
+    }
+
+    @Override
+    public int getTotalOrders() {
+        return lastOrderId;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,233 @@
+package com.swiftcart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TextBuffer renders text straight into a reusable ByteBuffer as UTF-8, for the event log and the
+ * final report. Numbers are written digit by digit, so appending an int, a long or a double with
+ * a fixed number of decimals creates no String, and the buffer is written to a channel and cleared
+ * for reuse. It only grows when a single render does not fit, which a buffer sized for one batch
+ * of output never needs to.
+ * A TextBuffer is not thread-safe; each writer keeps its own.
+ */
+public final class TextBuffer {
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+    private static final byte[] SPACES = "                                        ".getBytes(StandardCharsets.US_ASCII);
+
+    private ByteBuffer buffer;
+    // Digits of the number being appended, least significant first
+    private final byte[] digits = new byte[20];
+
+    public TextBuffer(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Returns how many bytes have been rendered since the buffer was last written out.
+     */
+    public int length() {
+        return buffer.position();
+    }
+
+    public void clear() {
+        buffer.clear();
+    }
+
+    public TextBuffer append(CharSequence text) {
+        if (text == null) {
+            return append("null");
+        }
+        int length = text.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else {
+                i = appendNonAscii(text, i, c);
+            }
+        }
+        return this;
+    }
+
+    public TextBuffer append(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            buffer.put((byte) c);
+            return this;
+        }
+        return append(String.valueOf(c));
+    }
+
+    public TextBuffer append(long value) {
+        ensure(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                // Its negation does not fit in a long
+                buffer.put((byte) '9');
+                value = -223_372_036_854_775_808L;
+            }
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the value rounded half up to the given number of decimals (0 to 6), like %.Nf.
+     */
+    public TextBuffer append(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.toString(value));
+        }
+        if (value < 0 && Math.round(-value * POWERS_OF_TEN[decimals]) > 0) {
+            append('-');
+        }
+        long scaled = Math.round(Math.abs(value) * POWERS_OF_TEN[decimals]);
+        append(scaled / POWERS_OF_TEN[decimals]);
+        if (decimals > 0) {
+            append('.');
+            long fraction = scaled % POWERS_OF_TEN[decimals];
+            for (int i = decimals - 1; i > 0 && fraction < POWERS_OF_TEN[i]; i--) {
+                append('0');
+            }
+            append(fraction);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the text padded with spaces to the given width, on the right like %-Ns.
+     */
+    public TextBuffer appendLeft(CharSequence text, int width) {
+        int start = buffer.position();
+        append(text);
+        return pad(width - (buffer.position() - start));
+    }
+
+    /**
+     * Appends the text padded with spaces to the given width, on the left like %Ns.
+     */
+    public TextBuffer appendRight(CharSequence text, int width) {
+        int start = buffer.position();
+        append(text);
+        return alignRight(start, width);
+    }
+
+    /**
+     * Appends the value padded with spaces to the given width, on the left like %Nd.
+     */
+    public TextBuffer appendRight(long value, int width) {
+        int start = buffer.position();
+        append(value);
+        return alignRight(start, width);
+    }
+
+    /**
+     * Appends the value with the given decimals padded with spaces to the given width, like %N.Mf.
+     */
+    public TextBuffer appendRight(double value, int decimals, int width) {
+        int start = buffer.position();
+        append(value, decimals);
+        return alignRight(start, width);
+    }
+
+    /**
+     * Appends count copies of the character.
+     */
+    public TextBuffer repeat(char c, int count) {
+        for (int i = 0; i < count; i++) {
+            append(c);
+        }
+        return this;
+    }
+
+    /**
+     * Writes everything rendered so far to the channel and clears the buffer.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer.array(), buffer.arrayOffset(), buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    private TextBuffer pad(int spaces) {
+        while (spaces > 0) {
+            int chunk = Math.min(spaces, SPACES.length);
+            ensure(chunk);
+            buffer.put(SPACES, 0, chunk);
+            spaces -= chunk;
+        }
+        return this;
+    }
+
+    // Moves what was appended since start to the right of a field of the given width
+    private TextBuffer alignRight(int start, int width) {
+        int end = buffer.position();
+        int spaces = width - (end - start);
+        if (spaces <= 0) {
+            return this;
+        }
+        ensure(spaces);
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        System.arraycopy(array, offset + start, array, offset + start + spaces, end - start);
+        for (int i = 0; i < spaces; i++) {
+            array[offset + start + i] = ' ';
+        }
+        buffer.position(end + spaces);
+        return this;
+    }
+
+    // Encodes one character outside ASCII, with its low surrogate if it has one; returns the index of the last char used
+    private int appendNonAscii(CharSequence text, int index, char c) {
+        // Room for this character and, as ASCII, the rest of the text
+        ensure(4 + text.length() - index);
+        int codePoint = c;
+        if (Character.isHighSurrogate(c) && index + 1 < text.length() && Character.isLowSurrogate(text.charAt(index + 1))) {
+            codePoint = Character.toCodePoint(c, text.charAt(++index));
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?');
+            return index;
+        }
+        if (codePoint < 0x800) {
+            buffer.put((byte) (0xc0 | (codePoint >> 6)));
+        } else if (codePoint < 0x10000) {
+            buffer.put((byte) (0xe0 | (codePoint >> 12)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+        } else {
+            buffer.put((byte) (0xf0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+        }
+        buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        return index;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.swiftcart;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Transport creates the queues that connect the stations.
+ * SwiftCartSimulation asks for every hop through a Transport instead of creating the queues itself,
+ * telling it how many threads put into and take from the hop so that the transport can pick
+ * a queue made for that shape.
+ */
+public interface Transport {
+
+    /** Name of the system property used to choose the transport. */
+    String PROPERTY = "swiftcart.transport";
+
+    /**
+     * Creates the queue for one hop. Integer.MAX_VALUE stands for an unbounded queue.
+     */
+    <E> BlockingQueue<E> newQueue(int capacity, int producers, int consumers);
+
+    /**
+     * Creates the transport for the given name:
+     * "blocking" (the default) keeps the clock's blocking queues, while "ring-spin",
+     * "ring-yield" and "ring-park" use lock-free ring buffers with the matching wait strategy.
+     */
+    static Transport forName(String name, SimulationClock clock) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("blocking")) {
+            return new BlockingQueueTransport(clock);
+        }
+        if (clock instanceof DiscreteEventClock) {
+            throw new IllegalArgumentException("The " + name + " transport polls in real time and cannot run on the discrete-event clock");
+        }
+        switch (name.toLowerCase()) {
+            case "ring-spin":
+                return new RingBufferTransport(WaitStrategy.BUSY_SPIN);
+            case "ring-yield":
+                return new RingBufferTransport(WaitStrategy.YIELD);
+            case "ring-park":
+                return new RingBufferTransport(WaitStrategy.PARK);
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + name);
+        }
+    }
+}
@@ -2,79 +2,139 @@ package com.swiftcart;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Truck class simulates a truck that loads containers from a loading queue
- * and dispatches them once full or when the process is complete.
- * It implements Runnable to allow it to run in a separate thread.
- * The truck can hold up to 18 containers and will wait for containers to be available.
- * It also tracks the time taken to load the first container and the total wait time.
- * The truck will print messages to indicate its status and actions taken.
- * The truck uses a CountDownLatch to signal when it has finished loading containers,
- * allowing the main program to wait for all trucks to finish before proceeding.
+ * Truck class simulates a truck standing at a loading bay while the DispatchScheduler loads it.
+ * The truck can hold up to its capacity of containers, 18 by default. It arrives when it is created, and departs when the
+ * scheduler sends it off: full, at its max-dwell deadline, early, or at the end of the run.
+ * It tracks the time from its arrival to its first container and when that container was loaded,
+ * which is where the max-dwell deadline counts from.
+ * The truck will log events to indicate its status and actions taken.
+ * Every container records how long it waited for the truck and how long it sat on it before departure,
+ * and every order on board its time from intake to the departure.
+ * Loading and departure are written to the OrderJournal, so a recovered run knows which containers have left.
  */
-
-
-public class Truck implements Runnable {
-    private static int idCounter = 0;
+public class Truck {
+    public static final int DEFAULT_CAPACITY = 18;
     private final int id;
-    private final BlockingQueue<Container> loadingQueue;
-    private final CountDownLatch latch;
-    private final AtomicInteger trucksDispatched;
-    private final List<Container> containers = new ArrayList<>();
-    private long startTime;
+    private final int capacity;
+    private final String name;
+    private final String capacityLabel;
+    private final StageMetrics metrics;
+    private final DispatchMetrics dispatchMetrics;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+    private final List<Container> containers;
+    private final long startTime;
     private long firstContainerTime = -1;
+    private long departedAt;
+    private Zone zone;
 
-    public Truck(BlockingQueue<Container> loadingQueue, CountDownLatch latch, AtomicInteger trucksDispatched) {
-        this.id = ++idCounter;
-        this.loadingQueue = loadingQueue;
-        this.latch = latch;
-        this.trucksDispatched = trucksDispatched;
-        this.startTime = System.currentTimeMillis();
+    public Truck(int id, int capacity, StageMetrics metrics, DispatchMetrics dispatchMetrics, OrderJournal journal, EventLog log,
+                 SimulationClock clock) {
+        this.id = id;
+        this.capacity = capacity;
+        this.containers = new ArrayList<>(capacity);
+        this.name = "Truck-" + id;
+        this.capacityLabel = String.valueOf(capacity);
+        this.metrics = metrics;
+        this.dispatchMetrics = dispatchMetrics;
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+        this.startTime = clock.currentTimeMillis();
+        log.log(EventType.TRUCK_ARRIVED, name);
+        log.log(EventType.TRUCK_WAITING, name);
     }
-    // The run method is where the truck's loading process takes place.
-    // It continuously checks the loading queue for containers until it has loaded 18 containers or the queue is empty.
-    // It also handles the case where it receives a POISON_PILL to stop processing.
-    @Override
-    public void run() {
-        System.out.println("Truck-" + id + ": Arrived at loading bay. (Thread: " + Thread.currentThread().getName() + ")");
-        try {
-            while (containers.size() < 18) {
-                System.out.println("Truck-" + id + ": Waiting for a container. (Thread: " + Thread.currentThread().getName() + ")");
-                Container container = loadingQueue.take();
-                if (container == Container.POISON_PILL) {
-                    break;
-                }
-                if (firstContainerTime == -1) {
-                    firstContainerTime = System.currentTimeMillis();
-                }
-                containers.add(container);
-                System.out.println("Truck-" + id + ": Loaded Container #" + container.getId() + ". Total: " + containers.size() + "/18 (Thread: " + Thread.currentThread().getName() + ")");
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } finally {
-             if (containers.size() == 18) {
-                System.out.println("Truck-" + id + ": Full. Departing. (Thread: " + Thread.currentThread().getName() + ")");
-                trucksDispatched.incrementAndGet();
-            } else if (containers.size() > 0) {
-                 System.out.println("Truck-" + id + ": Force dispatched with " + containers.size() + " containers. (Thread: " + Thread.currentThread().getName() + ")");
-                 trucksDispatched.incrementAndGet();
-            } else {
-                System.out.println("Truck-" + id + ": Shutting down empty. (Thread: " + Thread.currentThread().getName() + ")");
+
+    public void load(Container container) {
+        long now = clock.currentTimeMillis();
+        if (firstContainerTime == -1) {
+            firstContainerTime = now;
+            zone = container.getMainZone();
+        }
+        metrics.entered(container, clock.nanoTime());
+        journal.containerLoaded(container, id);
+        containers.add(container);
+        log.log(EventType.TRUCK_LOADED, name, container.getId(), containers.size(), capacityLabel);
+    }
+
+    /**
+     * Sends the truck off and returns how many containers left with it.
+     * Each container's truck service time is how long it sat on the truck before departure.
+     */
+    public int depart(DepartureReason reason) {
+        long departed = clock.nanoTime();
+        departedAt = departed;
+        if (!containers.isEmpty()) {
+            journal.truckDeparted(id);
+        }
+        long departedMillis = clock.currentTimeMillis();
+        for (Container container : containers) {
+            metrics.recordService(departed - container.getEnteredAt(Stage.TRUCK));
+            List<Order> orders = container.getOrders();
+            for (int i = 0; i < orders.size(); i++) {
+                dispatchMetrics.orderDeparted(orders.get(i), departed, departedMillis);
             }
-            latch.countDown();
         }
+        if (containers.isEmpty()) {
+            log.log(EventType.TRUCK_EMPTY, name);
+        } else if (reason == DepartureReason.FULL) {
+            log.log(EventType.TRUCK_DEPARTED, name);
+        } else {
+            log.log(EventType.TRUCK_FORCE_DISPATCHED, name, 0, containers.size(), reason.getLabel());
+        }
+        // The containers have left with the truck, so pooled buffers can be reused
+        for (Container container : containers) {
+            container.recycle();
+        }
+        int loaded = containers.size();
+        containers.clear();
+        return loaded;
+    }
+
+    public int getId() {
+        return id;
     }
-    // Getters for truck ID and the number of containers loaded
-    // These methods allow other parts of the program to access the truck's ID and the number of containers it has loaded.
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return containers.size();
+    }
+
+    public boolean isFull() {
+        return containers.size() >= capacity;
+    }
+
+    /**
+     * Returns the main zone of the first container loaded, or null while the truck is empty.
+     */
+    public Zone getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns when the first container was loaded, or -1 while the truck is empty.
+     */
+    public long getFirstContainerTime() {
+        return firstContainerTime;
+    }
+
+    /**
+     * Returns the clock.nanoTime() timestamp of the departure, once the truck has left.
+     */
+    public long getDepartedAt() {
+        return departedAt;
+    }
+
     public long getWaitTime() {
         if (firstContainerTime == -1) {
             return 0;
         }
         return firstContainerTime - startTime;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package com.swiftcart;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VirtualTimeQueue is the BlockingQueue used between stations when the simulation runs on a
+ * DiscreteEventClock. Blocking operations park on the clock rather than on a lock of their own,
+ * so the clock always knows whether a station is waiting for work or still busy.
+ * Timeouts are measured in simulated time.
+ * The items are kept first in first out, or in the buckets of an unbounded DeadlineQueue for
+ * deadline scheduling; either way only under the clock's lock.
+ */
+class VirtualTimeQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, BulkQueue<E> {
+    private final DiscreteEventClock clock;
+    private final Object lock;
+    private final int capacity;
+    private final Queue<E> items;
+    private final ArrayDeque<DiscreteEventClock.Waiter> takers = new ArrayDeque<>();
+    private final ArrayDeque<DiscreteEventClock.Waiter> putters = new ArrayDeque<>();
+
+    VirtualTimeQueue(DiscreteEventClock clock, int capacity) {
+        this(clock, capacity, new ArrayDeque<>());
+    }
+
+    /**
+     * Keeps the items in the given queue, which must be empty and not bounded below the capacity.
+     */
+    VirtualTimeQueue(DiscreteEventClock clock, int capacity, Queue<E> items) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        this.clock = clock;
+        this.lock = clock.lock;
+        this.capacity = capacity;
+        this.items = items;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        offer(e, DiscreteEventClock.NO_DEADLINE);
+    }
+
+    @Override
+    public void putAll(List<? extends E> items) throws InterruptedException {
+        synchronized (lock) {
+            for (E item : items) {
+                offer(item, DiscreteEventClock.NO_DEADLINE);
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(e, Math.max(0, unit.toMillis(timeout)));
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        synchronized (lock) {
+            if (items.size() == capacity) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return poll(DiscreteEventClock.NO_DEADLINE);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(Math.max(0, unit.toMillis(timeout)));
+    }
+
+    @Override
+    public E poll() {
+        synchronized (lock) {
+            return items.isEmpty() ? null : dequeue();
+        }
+    }
+
+    @Override
+    public E peek() {
+        synchronized (lock) {
+            return items.peek();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return items.size();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        synchronized (lock) {
+            return capacity == Integer.MAX_VALUE ? Integer.MAX_VALUE : capacity - items.size();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        synchronized (lock) {
+            int n = 0;
+            while (n < maxElements && !items.isEmpty()) {
+                c.add(dequeue());
+                n++;
+            }
+            return n;
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        synchronized (lock) {
+            return List.copyOf(items).iterator();
+        }
+    }
+
+    private boolean offer(E e, long timeoutMillis) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        synchronized (lock) {
+            long deadline = timeoutMillis == DiscreteEventClock.NO_DEADLINE
+                ? DiscreteEventClock.NO_DEADLINE : clock.now() + timeoutMillis;
+            while (items.size() == capacity) {
+                if (deadline != DiscreteEventClock.NO_DEADLINE && clock.now() >= deadline) {
+                    return false;
+                }
+                DiscreteEventClock.Waiter waiter = clock.newWaiter(deadline);
+                putters.add(waiter);
+                try {
+                    clock.park(waiter);
+                } finally {
+                    putters.remove(waiter);
+                }
+            }
+            enqueue(e);
+            return true;
+        }
+    }
+
+    private E poll(long timeoutMillis) throws InterruptedException {
+        synchronized (lock) {
+            long deadline = timeoutMillis == DiscreteEventClock.NO_DEADLINE
+                ? DiscreteEventClock.NO_DEADLINE : clock.now() + timeoutMillis;
+            while (items.isEmpty()) {
+                if (deadline != DiscreteEventClock.NO_DEADLINE && clock.now() >= deadline) {
+                    return null;
+                }
+                DiscreteEventClock.Waiter waiter = clock.newWaiter(deadline);
+                takers.add(waiter);
+                try {
+                    clock.park(waiter);
+                } finally {
+                    takers.remove(waiter);
+                }
+            }
+            return dequeue();
+        }
+    }
+
+    // Both helpers must be called while holding the lock.
+    private void enqueue(E e) {
+        items.add(e);
+        signalOne(takers);
+    }
+
+    private E dequeue() {
+        E e = items.poll();
+        signalOne(putters);
+        return e;
+    }
+
+    // Skips waiters whose deadline already woke them, so a wake-up is never lost.
+    private void signalOne(ArrayDeque<DiscreteEventClock.Waiter> waiters) {
+        DiscreteEventClock.Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (clock.signal(waiter)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.swiftcart;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VirtualTimeSemaphore is the Semaphore handed to the stations when the simulation runs on a
+ * DiscreteEventClock. Waiting for a permit parks on the clock, so a station queueing for a
+ * resource counts as idle and virtual time can move on.
+ * It keeps its own permit count; the single-permit operations the stations use
+ * (acquire, tryAcquire, release, availablePermits) are supported, the rest are not.
+ */
+class VirtualTimeSemaphore extends Semaphore {
+    private static final long serialVersionUID = 1L;
+
+    private final DiscreteEventClock clock;
+    private final Object lock;
+    private final ArrayDeque<DiscreteEventClock.Waiter> waiters = new ArrayDeque<>();
+    private int permits;
+
+    VirtualTimeSemaphore(DiscreteEventClock clock, int permits) {
+        super(0);
+        this.clock = clock;
+        this.lock = clock.lock;
+        this.permits = permits;
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        tryAcquire(DiscreteEventClock.NO_DEADLINE);
+    }
+
+    @Override
+    public void acquireUninterruptibly() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        synchronized (lock) {
+            if (permits > 0) {
+                permits--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return tryAcquire(Math.max(0, unit.toMillis(timeout)));
+    }
+
+    @Override
+    public void release() {
+        synchronized (lock) {
+            permits++;
+            DiscreteEventClock.Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                if (clock.signal(waiter)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int availablePermits() {
+        synchronized (lock) {
+            return permits;
+        }
+    }
+
+    @Override
+    public void acquire(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void release(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryAcquire(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryAcquire(int count, long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void acquireUninterruptibly(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int drainPermits() {
+        throw new UnsupportedOperationException();
+    }
+
+    private boolean tryAcquire(long timeoutMillis) throws InterruptedException {
+        synchronized (lock) {
+            long deadline = timeoutMillis == DiscreteEventClock.NO_DEADLINE
+                ? DiscreteEventClock.NO_DEADLINE : clock.now() + timeoutMillis;
+            while (permits == 0) {
+                if (deadline != DiscreteEventClock.NO_DEADLINE && clock.now() >= deadline) {
+                    return false;
+                }
+                DiscreteEventClock.Waiter waiter = clock.newWaiter(deadline);
+                waiters.add(waiter);
+                try {
+                    clock.park(waiter);
+                } finally {
+                    waiters.remove(waiter);
+                }
+            }
+            permits--;
+            return true;
+        }
+    }
+}
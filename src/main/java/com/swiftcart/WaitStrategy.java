@@ -0,0 +1,60 @@
+package com.swiftcart;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WaitStrategy decides what a thread does while a ring buffer is empty (consumer) or full (producer).
+ * The ring buffers never take a lock or signal another thread, so waiting threads poll:
+ * BUSY_SPIN burns a core for the lowest latency, YIELD gives the core away between polls,
+ * and PARK backs off to short timed parks so idle stations cost almost no CPU.
+ */
+public enum WaitStrategy {
+    BUSY_SPIN {
+        @Override
+        public int idle(int counter) {
+            Thread.onSpinWait();
+            return Math.min(counter + 1, IDLE_LIMIT);
+        }
+    },
+    YIELD {
+        @Override
+        public int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return Math.min(counter + 1, IDLE_LIMIT);
+        }
+    },
+    PARK {
+        @Override
+        public int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return Math.min(counter + 1, IDLE_LIMIT);
+        }
+    };
+
+    /**
+     * The counter stops here instead of overflowing on a station that stays idle for days.
+     * Callers that switch to a wait of their own after some number of polls, like the EventLog
+     * writer, must switch below it.
+     */
+    public static final int IDLE_LIMIT = 1 << 20;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Waits once. The counter is the number of times the caller has already waited for
+     * the current item, up to IDLE_LIMIT; the returned value is passed back in on the next call.
+     */
+    public abstract int idle(int counter);
+}
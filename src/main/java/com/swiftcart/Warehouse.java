@@ -0,0 +1,343 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+
+/**
+ * Warehouse class simulates one facility: the pipeline from its intake queue to its trucks.
+ * It owns its queues, its SimulationMetrics and an executor of its own for its stations, loaders
+ * and DispatchScheduler, so several warehouses in one JVM share nothing but the clock, the journal
+ * and the event log. Orders are put into its intake queue by the OrderIntakes, directly or through
+ * an OrderRouter, and a POISON_PILL in that queue shuts the warehouse down behind them.
+ * Every warehouse gets the full set of workers, limits and modes of the SimulationConfig. Its
+ * rejections and breakdowns are drawn from the RandomStreams of the run's master seed.
+ * Every queue is bounded, so a stage that falls behind holds back the ones before it. The picking,
+ * packing and labelling workers run in StationPools on an executor of their own, and with
+ * autoscaling on a WorkerAutoscaler moves workers between those stages while the warehouse runs.
+ * With the work-stealing engine those three stages run on a ForkJoinPool in a WorkStealingPipeline instead.
+ * With deadline scheduling every order queue, whatever the transport, is a deadline queue of the clock.
+ */
+public class Warehouse {
+    private final int number;
+    private final SimulationConfig config;
+    private final IdSequence containerIds;
+    private final IdSequence truckIds;
+    private final long seed;
+    private final SimulationClock clock;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final int totalContainers;
+    private final int totalPickers;
+    private final int totalPackers;
+    private final int totalLabellers;
+    private final int totalSorters;
+    private final int totalLoaders;
+    private final int sortingShards;
+    private final boolean scheduledLoading;
+
+    private final BlockingQueue<Order> intakeQueue;
+    private final BlockingQueue<Order> pickingQueue;
+    private final BlockingQueue<Order> packingQueue;
+    private final BlockingQueue<Order> labellingQueue;
+    private final BlockingQueue<ZoneBatch> batchQueue;
+    private final BlockingQueue<Container> sortingQueue;
+    private final BlockingQueue<LoadingJob> jobQueue;
+    private final BlockingQueue<Integer> freeBays;
+    private final BlockingQueue<Container> loadingQueue;
+    private final Semaphore pickingSemaphore;
+    private final SimulationMetrics metrics;
+    private final ExecutorService executor;
+    private final ExecutorService stationExecutor;
+    private final ForkJoinPool stealingPool;
+    private final List<StationPool> stationPools = new ArrayList<>();
+
+    /**
+     * Builds the queues and the executor of a warehouse. Nothing runs until start is called.
+     * Container and truck ids are drawn from sequences shared by all warehouses of the run, and
+     * every stage's RandomStream is derived from the run's master seed.
+     */
+    public Warehouse(int number, int totalOrders, SimulationConfig config, IdSequence containerIds, IdSequence truckIds, long seed,
+                     SimulationClock clock, Transport transport, OrderJournal journal, EventLog log) throws InterruptedException {
+        this.number = number;
+        this.config = config;
+        this.containerIds = containerIds;
+        this.truckIds = truckIds;
+        this.seed = seed;
+        this.clock = clock;
+        this.journal = journal;
+        this.log = log;
+        this.metrics = new SimulationMetrics(clock);
+        // A streaming run has no end to its orders, so this is capped rather than overflowing
+        this.totalContainers = (int) Math.min(((long) totalOrders + config.getOrdersPerContainer() - 1) / config.getOrdersPerContainer(),
+            Integer.MAX_VALUE);
+        // Queues and executors are sized for the most workers the autoscaler may give each order stage
+        this.totalPickers = config.getMaxWorkers(Stage.PICKING);
+        this.totalPackers = config.getMaxWorkers(Stage.PACKING);
+        // Every worker of the work-stealing engine labels, and puts into the labelling queue
+        this.totalLabellers = config.isWorkStealing() ? config.getStealingWorkers() : config.getMaxWorkers(Stage.LABELLING);
+        this.totalSorters = config.getSorters();
+        this.totalLoaders = config.getLoaders();
+        this.sortingShards = config.getSortingShards();
+        this.scheduledLoading = config.isScheduledLoading();
+        int orderQueueCapacity = config.getOrderQueueCapacity();
+        int loadingBays = config.getLoadingBays();
+
+        // The order queues are bounded so that a fast source is held back instead of buffered
+        intakeQueue = orderQueue(transport, orderQueueCapacity, producers(config.getIntakes(), totalPickers), totalPickers);
+        pickingQueue = orderQueue(transport, orderQueueCapacity, producers(totalPickers, totalPackers), totalPackers);
+        packingQueue = orderQueue(transport, orderQueueCapacity, producers(totalPackers, totalLabellers), totalLabellers);
+        if (sortingShards > 0) {
+            List<BlockingQueue<Order>> shardQueues = new ArrayList<>();
+            for (int i = 0; i < sortingShards; i++) {
+                shardQueues.add(transport.newQueue(orderQueueCapacity, totalLabellers, 1));
+            }
+            labellingQueue = new ZoneRoutingQueue(shardQueues);
+            batchQueue = transport.newQueue(orderQueueCapacity, sortingShards, 1);
+        } else {
+            labellingQueue = orderQueue(transport, orderQueueCapacity, producers(totalLabellers, totalSorters), totalSorters);
+            batchQueue = null;
+        }
+        int containerBuilders = sortingShards > 0 ? 1 : totalSorters;
+        // With scheduled loading the LoadingScheduler is the only consumer of the sorting queue
+        int sortingConsumers = scheduledLoading ? 1 : totalLoaders;
+        sortingQueue = transport.newQueue(config.getSortingQueueCapacity(), producers(containerBuilders, sortingConsumers), sortingConsumers);
+        if (scheduledLoading) {
+            jobQueue = transport.newQueue(loadingBays, producers(1, totalLoaders), totalLoaders);
+            freeBays = transport.newQueue(loadingBays, totalLoaders, 1);
+            for (int bay = 1; bay <= loadingBays; bay++) {
+                freeBays.put(bay);
+            }
+        } else {
+            jobQueue = null;
+            freeBays = null;
+        }
+        loadingQueue = transport.newQueue(config.getLoadingQueueCapacity(), totalLoaders, 1);
+        pickingSemaphore = clock.newSemaphore(config.getPickingPermits());
+
+        metrics.registerQueue("intake", intakeQueue);
+        metrics.registerQueue("picking", pickingQueue);
+        metrics.registerQueue("packing", packingQueue);
+        metrics.registerQueue("labelling", labellingQueue);
+        if (batchQueue != null) {
+            metrics.registerQueue("zoneBatches", batchQueue);
+        }
+        metrics.registerQueue("sorting", sortingQueue);
+        if (jobQueue != null) {
+            metrics.registerQueue("loadingJobs", jobQueue);
+        }
+        metrics.registerQueue("loading", loadingQueue);
+
+        // One thread for every sorter and loader, one for the trucks and one for the autoscaler or the
+        // work-stealing feeder; the order stations get one for the most workers each stage may have
+        int sortingThreads = sortingShards > 0 ? sortingShards + 1 : totalSorters;
+        int loadingThreads = scheduledLoading ? totalLoaders + 1 : totalLoaders;
+        executor = config.getExecutionMode().newExecutor(sortingThreads + loadingThreads + 1
+            + (config.isAutoscale() || config.isWorkStealing() ? 1 : 0));
+        if (config.isWorkStealing()) {
+            // Async mode keeps each worker's own tasks in FIFO order, like the queues between stations
+            stealingPool = new ForkJoinPool(config.getStealingWorkers(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            stationExecutor = stealingPool;
+        } else {
+            stealingPool = null;
+            stationExecutor = config.getExecutionMode().newExecutor(totalPickers + totalPackers + config.getMaxWorkers(Stage.LABELLING));
+        }
+    }
+
+    /**
+     * Registers the metrics over JMX, starts sampling the queues and submits every station.
+     * If recovery is not null, what the crashed run had in flight is put back into this
+     * warehouse's queues and its counts are carried over first.
+     * The metrics are registered under mbeanName, or not at all if it is null.
+     * The stations only start working once the clock is started.
+     */
+    public void start(JournalRecovery recovery, String mbeanName) throws InterruptedException {
+        if (mbeanName != null) {
+            try {
+                metrics.registerMBean(mbeanName);
+            } catch (JMException e) {
+                System.err.println("Could not register the metrics MBean: " + e.getMessage());
+            }
+        }
+        metrics.startSampling(10);
+
+        LongAdder boxesPacked = metrics.boxesPackedCounter();
+        LongAdder containersShipped = metrics.containersShippedCounter();
+        if (recovery != null) {
+            recovery.restoreQueues(intakeQueue, pickingQueue, packingQueue, labellingQueue, sortingQueue, loadingQueue, clock);
+            for (Stage stage : Stage.values()) {
+                metrics.stage(stage).rejected((int) recovery.getRejected(stage));
+            }
+            boxesPacked.add(recovery.getSortedOrders());
+            containersShipped.add(recovery.getContainersSorted());
+            metrics.trucksDispatchedCounter().add(recovery.getTrucksDeparted());
+            if (sortingShards > 0) {
+                // The shards' batches are rebuilt by sorting those orders again
+                for (Order order : recovery.getBatchedOrders()) {
+                    order.markEnqueued(clock.nanoTime());
+                    labellingQueue.put(order);
+                }
+            } else {
+                boxesPacked.add(recovery.getBatchedOrders().size());
+            }
+        }
+
+        if (stealingPool != null) {
+            executor.submit(clock.participant(new WorkStealingPipeline(intakeQueue, pickingQueue, packingQueue, labellingQueue, pickingSemaphore,
+                stealingPool, config.getOrderQueueCapacity(), metrics, config, seed, journal, log, clock)));
+        } else {
+            stationPools.add(stationPool(Stage.PICKING, intakeQueue, pickingQueue, config.getPickers(), shutdown ->
+                new PickingStation(intakeQueue, pickingQueue, pickingSemaphore, metrics.stage(Stage.PICKING), shutdown, journal, log, clock,
+                    config.getPickingBatch(), RandomStream.forStage(seed, Stage.PICKING), config.getRejectionRate(), config.getServiceMillis(Stage.PICKING))));
+            stationPools.add(stationPool(Stage.PACKING, pickingQueue, packingQueue, config.getPackers(), shutdown ->
+                new PackingStation(pickingQueue, packingQueue, metrics.stage(Stage.PACKING), shutdown, journal, log, clock,
+                    config.getPackingBatch(), RandomStream.forStage(seed, Stage.PACKING), config.getRejectionRate(), config.getServiceMillis(Stage.PACKING))));
+            stationPools.add(stationPool(Stage.LABELLING, packingQueue, labellingQueue, config.getLabellers(), shutdown ->
+                new LabellingStation(packingQueue, labellingQueue, metrics.stage(Stage.LABELLING), shutdown, journal, log, clock,
+                    config.getLabellingBatch(), RandomStream.forStage(seed, Stage.LABELLING), config.getRejectionRate(), config.getServiceMillis(Stage.LABELLING))));
+            for (StationPool pool : stationPools) {
+                pool.start();
+            }
+            if (config.isAutoscale()) {
+                executor.submit(clock.participant(new WorkerAutoscaler(stationPools, config.getAutoscaleIntervalMillis(),
+                    config.getAutoscaleTargetWaitMillis(), config.getAutoscaleHighWater(), log, clock)));
+            }
+        }
+
+        if (sortingShards > 0) {
+            ZoneRoutingQueue zoneRouter = (ZoneRoutingQueue) labellingQueue;
+            ShutdownCoordinator<Order> shardShutdown = new ShutdownCoordinator<>(sortingShards, Order.POISON_PILL);
+            for (int i = 0; i < sortingShards; i++) {
+                executor.submit(clock.participant(new SortingShard(i, zoneRouter.shard(i), batchQueue, boxesPacked,
+                    metrics.stage(Stage.SORTING), shardShutdown, journal, log, clock, config.getSortingBatch(), config.getRegionalBatchSize())));
+            }
+            executor.submit(clock.participant(new ContainerAssembler(batchQueue, sortingQueue, containersShipped, containerIds,
+                config.getBatchesPerContainer(), metrics.stage(Stage.SORTING), journal, log, clock)));
+        } else {
+            ShutdownCoordinator<Order> sortingShutdown = new ShutdownCoordinator<>(totalSorters, Order.POISON_PILL);
+            // Containers are recycled when their truck departs, so a long run never has more than a few dozen in flight
+            int pooledBuffers = Math.min(totalContainers, 64) + totalSorters;
+            OrderBufferPool containerPool = config.isPooledSorting()
+                ? new OrderBufferPool(config.getOrdersPerContainer(), pooledBuffers, 2 * pooledBuffers)
+                : null;
+            for (int i = 0; i < totalSorters; i++) {
+                ContainerBuilder containerBuilder = containerPool != null
+                    ? new PooledContainerBuilder(containerPool, containerIds, config.getRegionalBatchSize(), config.getBatchesPerContainer())
+                    : new ListContainerBuilder(containerIds, config.getRegionalBatchSize(), config.getBatchesPerContainer());
+                if (i == 0 && recovery != null) {
+                    // The first sorting area takes over the partial regional batches of the crashed run
+                    containersShipped.add(recovery.restoreBatches(containerBuilder, journal, sortingQueue, loadingQueue, clock));
+                }
+                executor.submit(clock.participant(new SortingArea(labellingQueue, sortingQueue, containersShipped, boxesPacked,
+                    metrics.stage(Stage.SORTING), sortingShutdown, journal, log, clock, config.getSortingBatch(), containerBuilder,
+                    config.getPriority())));
+            }
+        }
+
+        if (scheduledLoading) {
+            executor.submit(clock.participant(new LoadingScheduler(sortingQueue, jobQueue, freeBays,
+                config.getLoadingPriority(), config.getSortingQueueCapacity())));
+            ShutdownCoordinator<LoadingJob> loadingShutdown = new ShutdownCoordinator<>(totalLoaders, LoadingJob.POISON_PILL);
+            for (int i = 0; i < totalLoaders; i++) {
+                executor.submit(clock.participant(new ScheduledLoader(jobQueue, freeBays, loadingQueue, metrics.stage(Stage.LOADING), loadingShutdown,
+                    journal, log, clock, RandomStream.forStage(seed, Stage.LOADING), config.getBreakdownRate(), config.getBreakdownMillis())));
+            }
+        } else {
+            Semaphore loadingBaySemaphore = clock.newSemaphore(config.getLoadingBays());
+            Semaphore loaderSemaphore = clock.newSemaphore(config.getLoaderPermits());
+            ShutdownCoordinator<Container> loadingShutdown = new ShutdownCoordinator<>(totalLoaders, Container.POISON_PILL);
+            for (int i = 0; i < totalLoaders; i++) {
+                executor.submit(clock.participant(new Loader(sortingQueue, loadingQueue, loaderSemaphore, loadingBaySemaphore, metrics.stage(Stage.LOADING),
+                    loadingShutdown, journal, log, clock, RandomStream.forStage(seed, Stage.LOADING), config.getBreakdownRate(), config.getBreakdownMillis())));
+            }
+        }
+
+        executor.submit(clock.participant(new DispatchScheduler(loadingQueue, config.getDispatch(), truckIds, metrics.stage(Stage.TRUCK), metrics.dispatch(),
+            journal, log, clock)));
+    }
+
+    private BlockingQueue<Order> orderQueue(Transport transport, int capacity, int producers, int consumers) {
+        return config.getPriority().isDeadlineScheduling() ? clock.newDeadlineQueue(capacity) : transport.newQueue(capacity, producers, consumers);
+    }
+
+    private StationPool stationPool(Stage stage, BlockingQueue<Order> inputQueue, BlockingQueue<Order> outputQueue, int workers,
+                                    Function<ShutdownCoordinator<Order>, OrderStation> factory) {
+        return new StationPool(stage, inputQueue, outputQueue, metrics.stage(stage), workers, config.getMinWorkers(stage),
+            config.getMaxWorkers(stage), factory, stationExecutor, clock);
+    }
+
+    /**
+     * Waits for every station of the warehouse to finish, then stops the queue sampling.
+     */
+    public void awaitTermination() {
+        // The autoscaler may still start order stations until the pools have finished, so their executor is shut down last
+        await(executor);
+        await(stationExecutor);
+        metrics.stopSampling();
+    }
+
+    private void await(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            // Wait for all threads to finish their work.
+            if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+                System.err.println("Warehouse " + number + " did not terminate in the specified time.");
+                executor.shutdownNow(); // Force shutdown if graceful period expires
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void unregisterMBean() {
+        try {
+            metrics.unregisterMBean();
+        } catch (JMException e) {
+            System.err.println("Could not unregister the metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public BlockingQueue<Order> getIntakeQueue() {
+        return intakeQueue;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the pools of picking, packing and labelling workers, in that order.
+     */
+    public List<StationPool> getStationPools() {
+        return stationPools;
+    }
+
+    /**
+     * Returns how many orders are waiting in the queues in front of each order station, from intake to labelling.
+     */
+    public int[] getQueuedOrders() {
+        return new int[] {intakeQueue.size(), pickingQueue.size(), packingQueue.size(), labellingQueue.size()};
+    }
+
+    public int getContainersAwaitingDispatch() {
+        return sortingQueue.size();
+    }
+
+    // Producers of a hop: the upstream workers, plus the downstream workers when there are several,
+    // since they hand the poison pill on to each other through their input queue.
+    private static int producers(int upstreamWorkers, int downstreamWorkers) {
+        return upstreamWorkers + (downstreamWorkers > 1 ? downstreamWorkers : 0);
+    }
+}
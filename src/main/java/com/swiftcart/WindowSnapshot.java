@@ -0,0 +1,71 @@
+package com.swiftcart;
+
+/**
+ * WindowSnapshot is what the pipeline did in the last few seconds of a run: how many orders it
+ * completed and rejected, and how many trucks left and how long they had waited for their first
+ * container, with the throughput, rejection rate and mean truck wait worked out from them.
+ */
+public class WindowSnapshot {
+    private final int seconds;
+    private final long ordersCompleted;
+    private final long ordersRejected;
+    private final long trucksDeparted;
+    private final long truckWaitMillis;
+
+    public WindowSnapshot(int seconds, long ordersCompleted, long ordersRejected, long trucksDeparted, long truckWaitMillis) {
+        this.seconds = seconds;
+        this.ordersCompleted = ordersCompleted;
+        this.ordersRejected = ordersRejected;
+        this.trucksDeparted = trucksDeparted;
+        this.truckWaitMillis = truckWaitMillis;
+    }
+
+    /**
+     * Returns the totals of both windows, such as the same window of two warehouses.
+     */
+    public WindowSnapshot plus(WindowSnapshot other) {
+        return new WindowSnapshot(seconds, ordersCompleted + other.ordersCompleted, ordersRejected + other.ordersRejected,
+            trucksDeparted + other.trucksDeparted, truckWaitMillis + other.truckWaitMillis);
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Returns the orders that passed the last order stage, labelling.
+     */
+    public long getOrdersCompleted() {
+        return ordersCompleted;
+    }
+
+    public long getOrdersRejected() {
+        return ordersRejected;
+    }
+
+    public long getTrucksDeparted() {
+        return trucksDeparted;
+    }
+
+    /**
+     * Returns the orders completed per second.
+     */
+    public double getThroughput() {
+        return (double) ordersCompleted / seconds;
+    }
+
+    /**
+     * Returns the fraction of the orders finished in the window, completed or rejected, that were rejected.
+     */
+    public double getRejectionRate() {
+        long finished = ordersCompleted + ordersRejected;
+        return finished == 0 ? 0.0 : (double) ordersRejected / finished;
+    }
+
+    /**
+     * Returns the mean wait for the first container of the trucks that left, in ms, or 0 if none left.
+     */
+    public double getMeanTruckWaitMillis() {
+        return trucksDeparted == 0 ? 0.0 : (double) truckWaitMillis / trucksDeparted;
+    }
+}
@@ -0,0 +1,189 @@
+package com.swiftcart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * WorkStealingPipeline runs the picking, packing and labelling of a warehouse on one ForkJoinPool
+ * instead of a thread per station. Any worker can do any stage, so no worker sits parked on a
+ * stage that has nothing to do while another stage queues up.
+ * This runnable is the feeder: it takes orders from the intake queue and hands each one to the
+ * pool. A worker that picks an order carries it on through packing and labelling itself and puts
+ * it into the sorting stage's queue, so the order stays in one thread's cache and takes no queue
+ * hops in between. Picking still holds a permit of the picking semaphore, but a worker never
+ * blocks on it: an order that finds no permit waits in a queue, and whichever worker gives a
+ * permit back forks a task to pick the next one, which an idle worker steals while the one that
+ * gave it back goes on packing its own order. At most maxInFlight orders are in the pool at once,
+ * so a slow sorting stage holds the feeder back like it holds back the stations.
+ * Orders are processed one at a time, whatever the batch settings. Rejections, journal records,
+ * events and per-stage metrics are the same as the stations', with no queue wait between the stages.
+ * On the POISON_PILL the feeder waits for the orders in flight and then passes the pill on.
+ * An order whose processing throws is rejected at the stage that threw and counted as failed in
+ * its StageMetrics, since the pool would swallow the exception and the feeder would wait for the
+ * order forever.
+ * The pool's workers are not clock participants, so the pipeline only runs on the real-time clock.
+ */
+public class WorkStealingPipeline implements Runnable {
+    private static final Stage[] STAGES = {Stage.PICKING, Stage.PACKING, Stage.LABELLING};
+    private static final String[] STATION_NAMES = {"PickingStation", "PackingStation", "LabellingStation"};
+    private static final String[] ACTIONS = {"Picking", "Packing", "Labelling"};
+    private static final int FEED_BATCH = 64;
+
+    private final BlockingQueue<Order> intakeQueue;
+    private final BlockingQueue<Order> pickingQueue;
+    private final BlockingQueue<Order> packingQueue;
+    private final BlockingQueue<Order> labellingQueue;
+    private final Semaphore pickingSemaphore;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ConcurrentLinkedQueue<Order> waitingToPick = new ConcurrentLinkedQueue<>();
+    private final StageMetrics[] metrics = new StageMetrics[STAGES.length];
+    private final RandomStream[] random = new RandomStream[STAGES.length];
+    private final long[] serviceMillis = new long[STAGES.length];
+    private final double rejectionRate;
+    private final OrderJournal journal;
+    private final EventLog log;
+    private final SimulationClock clock;
+
+    /**
+     * Orders already in the picking and packing queues, as a recovered run leaves them, are
+     * carried on from the stage after the queue they are in before any new order is taken.
+     */
+    public WorkStealingPipeline(BlockingQueue<Order> intakeQueue, BlockingQueue<Order> pickingQueue, BlockingQueue<Order> packingQueue,
+                                BlockingQueue<Order> labellingQueue, Semaphore pickingSemaphore, ForkJoinPool pool, int maxInFlight,
+                                SimulationMetrics simulationMetrics, SimulationConfig config, long seed, OrderJournal journal, EventLog log,
+                                SimulationClock clock) {
+        if (clock instanceof DiscreteEventClock) {
+            throw new IllegalArgumentException("The work-stealing engine runs on a ForkJoinPool, which the discrete-event clock cannot track");
+        }
+        this.intakeQueue = intakeQueue;
+        this.pickingQueue = pickingQueue;
+        this.packingQueue = packingQueue;
+        this.labellingQueue = labellingQueue;
+        this.pickingSemaphore = pickingSemaphore;
+        this.pool = pool;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        for (int i = 0; i < STAGES.length; i++) {
+            metrics[i] = simulationMetrics.stage(STAGES[i]);
+            random[i] = RandomStream.forStage(seed, STAGES[i]);
+            serviceMillis[i] = config.getServiceMillis(STAGES[i]);
+        }
+        this.rejectionRate = config.getRejectionRate();
+        this.journal = journal;
+        this.log = log;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run() {
+        List<Order> batch = new ArrayList<>(FEED_BATCH);
+        try {
+            resume(pickingQueue, 1);
+            resume(packingQueue, 2);
+            boolean poisoned = false;
+            while (!poisoned) {
+                batch.add(intakeQueue.take());
+                intakeQueue.drainTo(batch, FEED_BATCH - 1);
+                for (Order order : batch) {
+                    if (order == Order.POISON_PILL) {
+                        poisoned = true;
+                    } else {
+                        inFlight.acquire();
+                        waitingToPick.offer(order);
+                        pool.execute(this::pickNext);
+                    }
+                }
+                batch.clear();
+            }
+            // Sorting is only poisoned once the last order has left the pool
+            inFlight.acquire(maxInFlight);
+            labellingQueue.put(Order.POISON_PILL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resume(BlockingQueue<Order> queue, int fromStage) throws InterruptedException {
+        List<Order> orders = new ArrayList<>();
+        queue.drainTo(orders);
+        for (Order order : orders) {
+            inFlight.acquire();
+            pool.execute(() -> carryOn(order, fromStage));
+        }
+    }
+
+    // Picks the next waiting order if a picking permit is free, then carries it on to the sorting queue
+    private void pickNext() {
+        if (!pickingSemaphore.tryAcquire()) {
+            return; // Whoever holds the permit forks the next pick when it gives the permit back
+        }
+        Order order = waitingToPick.poll();
+        boolean picked = false;
+        try {
+            picked = order != null && process(order, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pickingSemaphore.release();
+            // A picked order keeps its place in flight until carryOn is done with it
+            if (order != null && !picked) {
+                inFlight.release();
+            }
+            if (!waitingToPick.isEmpty()) {
+                pool.execute(this::pickNext);
+            }
+        }
+        if (picked) {
+            carryOn(order, 1);
+        }
+    }
+
+    // Takes the order through the remaining stages on this worker and hands it to sorting
+    private void carryOn(Order order, int fromStage) {
+        try {
+            for (int stage = fromStage; stage < STAGES.length; stage++) {
+                if (!process(order, stage)) {
+                    return;
+                }
+            }
+            labellingQueue.put(order);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    // One stage of one order, like an OrderStation; returns false if the stage rejected it or it failed there
+    private boolean process(Order order, int stage) throws InterruptedException {
+        StageMetrics stageMetrics = metrics[stage];
+        long entered = clock.nanoTime();
+        try {
+            stageMetrics.entered(order, entered);
+            log.log(EventType.ORDER_PROCESSED, STATION_NAMES[stage], order.getId(), 0, ACTIONS[stage]);
+            if (random[stage].nextDouble(order.getId()) < rejectionRate) {
+                stageMetrics.rejected(1, entered);
+                journal.orderRejected(STAGES[stage], order);
+                log.log(EventType.ORDER_REJECTED, STATION_NAMES[stage], order.getId());
+                return false;
+            }
+            if (serviceMillis[stage] > 0) {
+                clock.sleep(serviceMillis[stage]);
+            }
+            stageMetrics.finished(order, clock.nanoTime());
+        } catch (RuntimeException e) {
+            stageMetrics.failed(clock.nanoTime());
+            journal.orderRejected(STAGES[stage], order);
+            log.log(EventType.ORDER_REJECTED, STATION_NAMES[stage], order.getId());
+            return false;
+        }
+        journal.orderPassed(STAGES[stage], order);
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package com.swiftcart;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * WorkerAutoscaler moves workers to whichever order stage is the bottleneck while the run is in progress.
+ * Every interval of the simulation clock it samples each StationPool's input queue depth and the
+ * mean queue wait of the orders its workers took since the last sample. A stage whose queue is
+ * fuller than the high-water mark, or whose orders waited longer than the target, is under pressure;
+ * of those, the one under the most pressure gets one more worker, unless its own output queue is
+ * full too, since then it is held back by the stage after it and more workers would only wait.
+ * A stage whose queue has stayed empty for a few samples in a row gives a worker back, as long as
+ * the service time its workers recorded in the interval shows the others could take over its orders
+ * without being more than 70% busy; otherwise a stage that needs 1.5 workers would flap between 1 and 2.
+ * Changes stay within each pool's minimum and maximum, and are reported through the EventLog.
+ * The autoscaler stops once every pool has shut down.
+ */
+public class WorkerAutoscaler implements Runnable {
+    // Samples in a row a stage must be idle before it gives a worker back
+    static final int IDLE_SAMPLES = 3;
+    // How busy the remaining workers may be after one is retired
+    static final double RETIRE_UTILISATION = 0.7;
+
+    private final List<StationPool> pools;
+    private final long intervalMillis;
+    private final long targetWaitNanos;
+    private final double highWater;
+    private final EventLog log;
+    private final SimulationClock clock;
+    private final long[] lastCount;
+    private final long[] lastSum;
+    private final long[] lastServiceSum;
+    private final int[] idleSamples;
+
+    public WorkerAutoscaler(List<StationPool> pools, long intervalMillis, long targetWaitMillis, double highWater, EventLog log, SimulationClock clock) {
+        this.pools = pools;
+        this.intervalMillis = intervalMillis;
+        this.targetWaitNanos = targetWaitMillis * 1_000_000L;
+        this.highWater = highWater;
+        this.log = log;
+        this.clock = clock;
+        this.lastCount = new long[pools.size()];
+        this.lastSum = new long[pools.size()];
+        this.lastServiceSum = new long[pools.size()];
+        this.idleSamples = new int[pools.size()];
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!finished()) {
+                clock.sleep(intervalMillis);
+                sample();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample() {
+        StationPool bottleneck = null;
+        double highestPressure = 1.0;
+        for (int i = 0; i < pools.size(); i++) {
+            StationPool pool = pools.get(i);
+            if (pool.isFinished()) {
+                continue;
+            }
+            LatencyHistogram queueWait = pool.getMetrics().getQueueWait();
+            long count = queueWait.getCount();
+            long sum = queueWait.getSum();
+            long taken = count - lastCount[i];
+            double meanWait = taken > 0 ? (double) (sum - lastSum[i]) / taken : 0;
+            lastCount[i] = count;
+            lastSum[i] = sum;
+            long serviceSum = pool.getMetrics().getServiceTime().getSum();
+            long busyNanos = serviceSum - lastServiceSum[i];
+            lastServiceSum[i] = serviceSum;
+
+            double fill = fill(pool.getInputQueue());
+            double pressure = Math.max(fill / highWater, meanWait / targetWaitNanos);
+            boolean heldBack = fill(pool.getOutputQueue()) >= highWater;
+            if (pressure >= highestPressure && !heldBack && pool.getWorkers() < pool.getMaxWorkers()) {
+                bottleneck = pool;
+                highestPressure = pressure;
+            }
+            int workers = pool.getWorkers();
+            boolean spare = workers > 1 && busyNanos < RETIRE_UTILISATION * (workers - 1) * intervalMillis * 1_000_000L;
+            idleSamples[i] = pool.getInputQueue().isEmpty() && spare ? idleSamples[i] + 1 : 0;
+        }
+
+        if (bottleneck != null && bottleneck.addWorker()) {
+            scaled(bottleneck);
+        }
+        for (int i = 0; i < pools.size(); i++) {
+            StationPool pool = pools.get(i);
+            if (pool != bottleneck && idleSamples[i] >= IDLE_SAMPLES && pool.retireWorker()) {
+                idleSamples[i] = 0;
+                scaled(pool);
+            }
+        }
+    }
+
+    private void scaled(StationPool pool) {
+        log.log(EventType.STAGE_SCALED, "Autoscaler", pool.getWorkers(), pool.getInputQueue().size(), pool.getStage().name());
+    }
+
+    private boolean finished() {
+        for (StationPool pool : pools) {
+            if (!pool.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // How full a bounded queue is, from 0 to 1
+    private static double fill(BlockingQueue<?> queue) {
+        long size = queue.size();
+        long capacity = size + queue.remainingCapacity();
+        return capacity == 0 ? 1.0 : (double) size / capacity;
+    }
+}
@@ -0,0 +1,73 @@
+package com.swiftcart;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Zone lists the regional zones an order can be shipped to.
+ * The ordinal doubles as the zone's one-byte code, so per-zone state lives in arrays indexed by
+ * ordinal instead of maps keyed by the zone name, and the order store keeps a zone in one byte.
+ */
+public enum Zone {
+    NORTH("North"),
+    SOUTH("South"),
+    EAST("East"),
+    WEST("West"),
+    CENTRAL("Central");
+
+    public static final int COUNT = values().length;
+    private static final Zone[] BY_CODE = values();
+
+    private final String displayName;
+    private final byte[] nameBytes;
+
+    Zone(String displayName) {
+        this.displayName = displayName;
+        this.nameBytes = displayName.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    public static Zone forCode(byte code) {
+        if (code < 0 || code >= COUNT) {
+            throw new IllegalArgumentException("Unknown zone code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Returns the zone with the given name, ignoring case.
+     */
+    public static Zone forName(String name) {
+        for (Zone zone : BY_CODE) {
+            if (zone.displayName.equalsIgnoreCase(name)) {
+                return zone;
+            }
+        }
+        throw new IllegalArgumentException("Unknown zone: " + name);
+    }
+
+    /**
+     * Returns the zone whose ASCII name is in bytes[start, start + length), or null if there is none.
+     * Allocates nothing, so file sources can look up a zone per line.
+     */
+    static Zone lookup(byte[] bytes, int start, int length) {
+        for (Zone zone : BY_CODE) {
+            if (Arrays.equals(zone.nameBytes, 0, zone.nameBytes.length, bytes, start, start + length)) {
+                return zone;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
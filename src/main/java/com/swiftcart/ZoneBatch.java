@@ -0,0 +1,33 @@
+package com.swiftcart;
+
+import java.util.List;
+
+/**
+ * ZoneBatch is a batch of boxes for one regional zone, passed from a SortingShard to the ContainerAssembler.
+ * A complete batch holds 6 boxes; incomplete batches are only sent when a shard flushes on shutdown.
+ * A static POISON_PILL constant is used to signal the end of processing.
+ */
+public class ZoneBatch {
+    public static final ZoneBatch POISON_PILL = new ZoneBatch(null, List.of(), false);
+    private final Zone regionalZone;
+    private final List<Order> orders;
+    private final boolean complete;
+
+    public ZoneBatch(Zone regionalZone, List<Order> orders, boolean complete) {
+        this.regionalZone = regionalZone;
+        this.orders = orders;
+        this.complete = complete;
+    }
+
+    public Zone getRegionalZone() {
+        return regionalZone;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
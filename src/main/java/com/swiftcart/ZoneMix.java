@@ -0,0 +1,64 @@
+package com.swiftcart;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * ZoneMix decides which regional zone the orders of a SyntheticOrderSource go to.
+ * Chosen with -Dswiftcart.source.zones:
+ * uniform (the default) spreads orders evenly over the five zones,
+ * skewed or skewed:S gives the k-th zone a weight of 1/k^S (Zipf, S defaults to 1),
+ * and North=5,South=1,... sets the weights explicitly (zones left out get none).
+ * The skewed mix ranks the zones in their Zone order.
+ */
+public final class ZoneMix {
+    private static final Zone[] ZONES = Zone.values();
+
+    private final double[] cumulative;
+
+    private ZoneMix(double[] weights) {
+        cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("A zone mix needs at least one zone with a positive weight");
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    public static ZoneMix forSpec(String spec) {
+        double[] weights = new double[ZONES.length];
+        if (spec == null || spec.isEmpty() || spec.equalsIgnoreCase("uniform")) {
+            Arrays.fill(weights, 1.0);
+        } else if (spec.toLowerCase().startsWith("skewed")) {
+            double exponent = spec.indexOf(':') < 0 ? 1.0 : Double.parseDouble(spec.substring(spec.indexOf(':') + 1));
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = 1.0 / Math.pow(i + 1, exponent);
+            }
+        } else {
+            for (String entry : spec.split(",")) {
+                String[] pair = entry.split("=");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Unknown zone weight in " + spec + ": " + entry);
+                }
+                weights[Zone.forName(pair[0].trim()).ordinal()] = Double.parseDouble(pair[1].trim());
+            }
+        }
+        return new ZoneMix(weights);
+    }
+
+    public Zone pick(SplittableRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (r < cumulative[i]) {
+                return ZONES[i];
+            }
+        }
+        return ZONES[cumulative.length - 1];
+    }
+}
@@ -0,0 +1,171 @@
+package com.swiftcart;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * ZoneRoutingQueue is the labelling queue in sharded sorting mode.
+ * The labelling stations put into it as usual, and every order is routed to the input queue
+ * of the SortingShard that owns its regional zone. Zones are handed out to shards in the order
+ * they are first seen, so with as many shards as zones every zone gets its own shard, and
+ * with fewer shards the zones are spread evenly over them.
+ * A POISON_PILL is copied to every shard. Orders can only be taken from the shard queues.
+ */
+public class ZoneRoutingQueue extends AbstractQueue<Order> implements BlockingQueue<Order>, BulkQueue<Order> {
+    private final List<BlockingQueue<Order>> shardQueues;
+    // Shard of every zone by ordinal, -1 until the zone is first seen
+    private final AtomicIntegerArray shardByZone = new AtomicIntegerArray(Zone.COUNT);
+    private final AtomicInteger nextShard = new AtomicInteger(0);
+    // Every labelling thread splits its batches over the shards in lists of its own, reused batch after batch
+    private final ThreadLocal<List<List<Order>>> perShardBatches;
+
+    public ZoneRoutingQueue(List<BlockingQueue<Order>> shardQueues) {
+        this.shardQueues = List.copyOf(shardQueues);
+        this.perShardBatches = ThreadLocal.withInitial(() -> {
+            List<List<Order>> lists = new ArrayList<>(this.shardQueues.size());
+            for (int i = 0; i < this.shardQueues.size(); i++) {
+                lists.add(new ArrayList<>());
+            }
+            return lists;
+        });
+        for (int i = 0; i < Zone.COUNT; i++) {
+            shardByZone.set(i, -1);
+        }
+    }
+
+    public BlockingQueue<Order> shard(int index) {
+        return shardQueues.get(index);
+    }
+
+    public int shardCount() {
+        return shardQueues.size();
+    }
+
+    @Override
+    public void put(Order order) throws InterruptedException {
+        if (order == Order.POISON_PILL) {
+            for (BlockingQueue<Order> shardQueue : shardQueues) {
+                shardQueue.put(Order.POISON_PILL);
+            }
+            return;
+        }
+        route(order).put(order);
+    }
+
+    @Override
+    public void putAll(List<? extends Order> orders) throws InterruptedException {
+        for (Order order : orders) {
+            if (order == Order.POISON_PILL) {
+                throw new IllegalArgumentException("The poison pill must be put on its own");
+            }
+        }
+        List<List<Order>> perShard = perShardBatches.get();
+        try {
+            for (Order order : orders) {
+                perShard.get(shardIndex(order)).add(order);
+            }
+            for (int i = 0; i < shardQueues.size(); i++) {
+                Batches.putAll(shardQueues.get(i), perShard.get(i));
+            }
+        } finally {
+            for (List<Order> batch : perShard) {
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(Order order) {
+        if (order == Order.POISON_PILL) {
+            throw new IllegalArgumentException("The poison pill must be put, not offered");
+        }
+        return route(order).offer(order);
+    }
+
+    @Override
+    public boolean offer(Order order, long timeout, TimeUnit unit) throws InterruptedException {
+        if (order == Order.POISON_PILL) {
+            throw new IllegalArgumentException("The poison pill must be put, not offered");
+        }
+        return route(order).offer(order, timeout, unit);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<Order> shardQueue : shardQueues) {
+            size += shardQueue.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int remaining = Integer.MAX_VALUE;
+        for (BlockingQueue<Order> shardQueue : shardQueues) {
+            remaining = Math.min(remaining, shardQueue.remainingCapacity());
+        }
+        return remaining;
+    }
+
+    @Override
+    public Order take() {
+        throw new UnsupportedOperationException("Take orders from the shard queues");
+    }
+
+    @Override
+    public Order poll(long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException("Take orders from the shard queues");
+    }
+
+    @Override
+    public Order poll() {
+        throw new UnsupportedOperationException("Take orders from the shard queues");
+    }
+
+    @Override
+    public Order peek() {
+        throw new UnsupportedOperationException("Take orders from the shard queues");
+    }
+
+    @Override
+    public int drainTo(Collection<? super Order> c) {
+        throw new UnsupportedOperationException("Take orders from the shard queues");
+    }
+
+    @Override
+    public int drainTo(Collection<? super Order> c, int maxElements) {
+        throw new UnsupportedOperationException("Take orders from the shard queues");
+    }
+
+    @Override
+    public Iterator<Order> iterator() {
+        throw new UnsupportedOperationException("Iterate the shard queues");
+    }
+
+    private BlockingQueue<Order> route(Order order) {
+        return shardQueues.get(shardIndex(order));
+    }
+
+    private int shardIndex(Order order) {
+        int zone = order.getRegionalZone().ordinal();
+        int shard = shardByZone.get(zone);
+        if (shard < 0) {
+            synchronized (shardByZone) {
+                shard = shardByZone.get(zone);
+                if (shard < 0) {
+                    shard = nextShard.getAndIncrement() % shardQueues.size();
+                    shardByZone.set(zone, shard);
+                }
+            }
+        }
+        return shard;
+    }
+}
@@ -0,0 +1,117 @@
+package com.swiftcart;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * IdSequenceStressTest checks that an IdSequence never hands out an id twice.
+ * Every round starts many threads on one sequence behind a latch, so they all reserve blocks at
+ * the same moment. In the "containers" workload each thread sorts boxes into containers through a
+ * ListContainerBuilder of its own, as the sorting areas of a run do; in the "raw" workload each
+ * thread calls next() in a tight loop, which is as much contention as the sequence can see. Half
+ * the rounds resume the sequence after a journaled id first, as a recovered run does.
+ * Every id of a round is then checked against a bitmap for duplicates and for ids outside the
+ * reserved range. Block size 1 reserves every id with its own atomic add and is the baseline.
+ */
+class IdSequenceStressTest {
+    private static final int RESUME_AFTER = 1_000;
+    private static final int THREADS = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+    private static final int IDS_PER_THREAD = 20_000;
+    private static final int ROUNDS = 10;
+
+    static Stream<Arguments> workloads() {
+        return Stream.of("containers", "raw").flatMap(workload ->
+            Stream.of(1, 7, IdSequence.DEFAULT_BLOCK_SIZE).map(blockSize -> Arguments.of(workload, blockSize)));
+    }
+
+    @ParameterizedTest(name = "{0}, block {1}")
+    @MethodSource("workloads")
+    void handsOutEveryIdOnce(String workload, int blockSize) throws InterruptedException {
+        Zone[] zones = Zone.values();
+        Order[] orders = new Order[ContainerBuilder.DEFAULT_BATCH_SIZE * ContainerBuilder.DEFAULT_BATCHES_PER_CONTAINER];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new Order(i + 1, zones[i % zones.length]);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            IdSequence sequence = new IdSequence(blockSize);
+            int firstId = 1;
+            if (round % 2 == 1) {
+                sequence.resumeAfter(RESUME_AFTER);
+                firstId = RESUME_AFTER + 1;
+            }
+            int[][] handedOut = new int[THREADS][IDS_PER_THREAD];
+            race(thread -> {
+                if (workload.equals("raw")) {
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        handedOut[thread][i] = sequence.next();
+                    }
+                } else {
+                    fillContainers(sequence, orders, handedOut[thread]);
+                }
+            });
+            int reserved = sequence.getReserved();
+            BitSet seen = new BitSet(reserved + 1);
+            int duplicates = 0;
+            for (int[] threadIds : handedOut) {
+                for (int id : threadIds) {
+                    if (id < firstId || id > reserved || seen.get(id)) {
+                        duplicates++;
+                    }
+                    seen.set(id);
+                }
+            }
+            assertEquals(0, duplicates, "duplicate or out-of-range ids in round " + round);
+        }
+    }
+
+    // Sorts boxes through a builder of this thread's own until it has created ids.length containers
+    private static void fillContainers(IdSequence sequence, Order[] orders, int[] ids) {
+        ContainerBuilder builder = new ListContainerBuilder(sequence, ContainerBuilder.DEFAULT_BATCH_SIZE, ContainerBuilder.DEFAULT_BATCHES_PER_CONTAINER);
+        int created = 0;
+        while (created < ids.length) {
+            for (Order order : orders) {
+                builder.add(order);
+                Container container = builder.pollContainer();
+                if (container != null && created < ids.length) {
+                    ids[created++] = container.getId();
+                }
+            }
+        }
+    }
+
+    private static void race(ThreadTask task) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            workers[i] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run(thread);
+            }, "id-stress-" + i);
+            workers[i].start();
+        }
+        ready.await();
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
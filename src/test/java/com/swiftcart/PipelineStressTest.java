@@ -0,0 +1,266 @@
+package com.swiftcart;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * PipelineStressTest runs the whole pipeline with random configurations, one after another in
+ * the same JVM, and checks that no order is lost or counted twice. Each round draws its worker
+ * counts, queue capacities, batch sizes, sorting and loading modes, transport, clock and number of
+ * warehouses from the seed and the round, so a failing round runs again the same way. From every
+ * run's journal each created order must be rejected once or sorted into exactly one container,
+ * every container loaded onto exactly one truck and every truck with containers depart once, and
+ * the metrics must agree with the journal. A run that does not finish within the time bound counts
+ * as a deadlock and fails with the stacks of every thread.
+ * PipelineThroughputTest times the same rounds.
+ */
+class PipelineStressTest {
+    static final long SEED = 1;
+    static final int ROUNDS = 12;
+    static final int ORDERS = 5_000;
+    private static final long TIME_BOUND_SECONDS = 60;
+    private static final long JOURNAL_BYTES = 16L * 1024 * 1024;
+    private static final int[] QUEUE_CAPACITIES = {1, 2, 4, 16, 64, 1024};
+    private static final int[] BATCH_SIZES = {1, 2, 8, 32};
+    private static final String[] TRANSPORTS = {"blocking", "ring-park", "ring-yield"};
+
+    private static ExecutorService runner;
+    private static Path journal;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        runner = newRunner();
+        journal = Files.createTempFile("swiftcart-stress", ".journal");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        runner.shutdownNow();
+        Files.deleteIfExists(journal);
+    }
+
+    static IntStream rounds() {
+        return IntStream.range(0, ROUNDS);
+    }
+
+    @ParameterizedTest(name = "round {0}")
+    @MethodSource("rounds")
+    void conservesOrdersWithoutDeadlock(int round) throws Exception {
+        runChecked(runner, journal, round, variant(round));
+    }
+
+    /**
+     * Returns a single daemon thread to run the simulations on, so a deadlocked one can be left behind.
+     */
+    static ExecutorService newRunner() {
+        return Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "stress-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the clock mode and the swiftcart.* settings of the round.
+     */
+    static String[] variant(int round) {
+        return variant(new SplittableRandom(SEED * 1_000_003 + round));
+    }
+
+    static String configuration(String[] variant) {
+        return String.join(" ", Arrays.asList(variant).subList(1, variant.length));
+    }
+
+    /**
+     * Runs the round on the runner with its journal in the given file and fails on a deadlock or any broken invariant.
+     */
+    static SimulationResult runChecked(ExecutorService runner, Path journal, int round, String[] variant) throws Exception {
+        SimulationResult result = runBounded(runner, journal, round, variant);
+        List<String> problems = new ArrayList<>();
+        check(result, OrderJournal.read(journal), problems);
+        assertTrue(problems.isEmpty(), () -> "Round " + round + " (" + configuration(variant) + ") broke its invariants:\n    "
+            + String.join("\n    ", problems));
+        return result;
+    }
+
+    // The clock mode, then swiftcart.* settings
+    private static String[] variant(SplittableRandom random) {
+        List<String> variant = new ArrayList<>();
+        boolean realtime = random.nextBoolean();
+        variant.add(realtime ? "realtime" : "discrete");
+        // The work-stealing engine runs on a ForkJoinPool, so only in real time
+        boolean stealing = realtime && random.nextInt(3) == 0;
+        boolean autoscale = !stealing && random.nextInt(4) == 0;
+        boolean deadline = random.nextInt(4) == 0;
+        int shards = deadline || random.nextBoolean() ? 0 : random.nextInt(1, 4);
+        variant.add("workers.picking=" + random.nextInt(1, 9));
+        variant.add("workers.packing=" + random.nextInt(1, 5));
+        variant.add("workers.labelling=" + random.nextInt(1, 5));
+        variant.add("workers.sorting=" + random.nextInt(1, 4));
+        variant.add("workers.loading=" + random.nextInt(1, 7));
+        variant.add("picking.permits=" + random.nextInt(1, 5));
+        variant.add("queue.capacity=" + QUEUE_CAPACITIES[random.nextInt(QUEUE_CAPACITIES.length)]);
+        variant.add("sorting.queueCapacity=" + random.nextInt(1, 11));
+        variant.add("loading.queueCapacity=" + random.nextInt(1, 37));
+        for (String stage : new String[] {"picking", "packing", "labelling", "sorting"}) {
+            variant.add("batch." + stage + "=" + BATCH_SIZES[random.nextInt(BATCH_SIZES.length)]);
+        }
+        variant.add("sorting.batchSize=" + random.nextInt(1, 9));
+        variant.add("sorting.batchesPerContainer=" + random.nextInt(1, 5));
+        variant.add("sorting.shards=" + shards);
+        variant.add("sorting.pooled=" + random.nextBoolean());
+        variant.add("loading=" + (random.nextBoolean() ? "scheduled" : "semaphore"));
+        variant.add("dispatch.maxDwellMillis=" + (random.nextBoolean() ? 0 : 2_000));
+        variant.add("warehouses=" + random.nextInt(1, 4));
+        variant.add("priority=" + (deadline ? "deadline" : "fifo"));
+        variant.add("priority.express=" + (deadline ? "0.2" : "0"));
+        if (stealing) {
+            variant.add("engine=stealing");
+        }
+        if (autoscale) {
+            variant.add("autoscale=true");
+            variant.add("autoscale.intervalMillis=100");
+        }
+        if (realtime) {
+            variant.add("transport=" + TRANSPORTS[random.nextInt(TRANSPORTS.length)]);
+            variant.add("loading.breakdownMillis=5");
+        }
+        return variant.toArray(new String[0]);
+    }
+
+    // Runs the variant on the runner thread; a run that outlasts the time bound fails with every thread's stack
+    private static SimulationResult runBounded(ExecutorService runner, Path journal, int round, String[] variant) throws Exception {
+        Future<SimulationResult> run = runner.submit(() -> run(journal, variant));
+        try {
+            return run.get(TIME_BOUND_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw new AssertionError("Round " + round + " failed: " + String.join(" ", variant), e.getCause());
+        } catch (TimeoutException e) {
+            StringBuilder stacks = new StringBuilder();
+            for (Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet()) {
+                stacks.append(String.format("%n\"%s\" %s%n", thread.getKey().getName(), thread.getKey().getState()));
+                for (StackTraceElement frame : thread.getValue()) {
+                    stacks.append("    at ").append(frame).append(System.lineSeparator());
+                }
+            }
+            return fail(String.format("Round %d did not finish within %d s, deadlocked: %s%n%s", round, TIME_BOUND_SECONDS,
+                String.join(" ", variant), stacks));
+        }
+    }
+
+    private static SimulationResult run(Path journal, String[] variant) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.source.orders", String.valueOf(ORDERS));
+        properties.setProperty("swiftcart.source.arrivals", "max");
+        properties.setProperty("swiftcart.seed", String.valueOf(SEED));
+        for (int i = 1; i < variant.length; i++) {
+            String[] setting = variant[i].split("=", 2);
+            properties.setProperty("swiftcart." + setting[0], setting[1]);
+        }
+        SimulationConfig config = SimulationConfig.fromProperties(properties);
+        SimulationClock clock = SimulationClock.forMode(variant[0]);
+        try (OrderJournal orderJournal = OrderJournal.create(journal, JOURNAL_BYTES, clock, false)) {
+            return new Simulation(config, clock, orderJournal, EventLog.disabled()).run(null, false);
+        }
+    }
+
+    // Adds a line to problems for every broken invariant
+    private static void check(SimulationResult result, List<JournalRecord> records, List<String> problems) {
+        Map<Integer, Integer> created = new HashMap<>();
+        Map<Integer, Integer> ended = new HashMap<>();
+        // Container of each sorted order, truck of each loaded container, departures of each truck
+        Map<Integer, Integer> containers = new HashMap<>();
+        Map<Integer, Integer> trucks = new HashMap<>();
+        Map<Integer, Integer> departures = new HashMap<>();
+        for (JournalRecord record : records) {
+            switch (record.getType()) {
+                case CREATED:
+                    created.merge(record.getOrderId(), 1, Integer::sum);
+                    break;
+                case REJECTED:
+                    ended.merge(record.getOrderId(), 1, Integer::sum);
+                    break;
+                case SORTED:
+                    ended.merge(record.getOrderId(), 1, Integer::sum);
+                    containers.put(record.getOrderId(), record.getRef());
+                    break;
+                case LOADED:
+                    if (trucks.put(record.getOrderId(), record.getRef()) != null) {
+                        problems.add("container " + record.getOrderId() + " loaded twice");
+                    }
+                    break;
+                case DEPARTED:
+                    departures.merge(record.getRef(), 1, Integer::sum);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> order : created.entrySet()) {
+            int ends = ended.getOrDefault(order.getKey(), 0);
+            if (order.getValue() != 1 || ends != 1) {
+                problems.add("order " + order.getKey() + " created " + order.getValue() + " times, rejected or sorted " + ends + " times");
+            }
+        }
+        for (Integer order : ended.keySet()) {
+            if (!created.containsKey(order)) {
+                problems.add("order " + order + " was never created");
+            }
+        }
+        for (Integer container : containers.values()) {
+            if (!trucks.containsKey(container)) {
+                problems.add("container " + container + " never loaded");
+                trucks.put(container, -1);
+            }
+        }
+        for (Map.Entry<Integer, Integer> container : trucks.entrySet()) {
+            if (container.getValue() != -1 && departures.getOrDefault(container.getValue(), 0) != 1) {
+                problems.add("truck " + container.getValue() + " with container " + container.getKey() + " departed "
+                    + departures.getOrDefault(container.getValue(), 0) + " times");
+            }
+        }
+
+        SimulationMetrics metrics = result.getMetrics();
+        if (created.size() != result.getTotalOrders()) {
+            problems.add("journal has " + created.size() + " orders of " + result.getTotalOrders());
+        }
+        if (metrics.getBoxesPacked() + metrics.getOrdersRejected() != result.getTotalOrders()) {
+            problems.add("boxes packed " + metrics.getBoxesPacked() + " + rejected " + metrics.getOrdersRejected() + " != "
+                + result.getTotalOrders() + " orders");
+        }
+        if (metrics.getContainersShipped() != trucks.size()) {
+            problems.add("containers shipped " + metrics.getContainersShipped() + ", journal has " + trucks.size());
+        }
+        if (metrics.getTrucksDispatched() != departures.size()) {
+            problems.add("trucks dispatched " + metrics.getTrucksDispatched() + ", journal has " + departures.size());
+        }
+        if (Arrays.stream(result.getQueuedOrders()).sum() != 0 || result.getContainersAwaitingDispatch() != 0) {
+            problems.add("orders left queued " + Arrays.toString(result.getQueuedOrders()) + ", containers awaiting dispatch "
+                + result.getContainersAwaitingDispatch());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.swiftcart;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PipelineThroughputTest runs every round of PipelineStressTest a few times and fails a round
+ * whose best orders/s drops by more than half against stress-baseline.properties in the test
+ * resources. The orders/s are divided by the speed of a fixed sort, to take out the speed of one
+ * core, but how the pipeline's threads scale depends on the number of cores, so the baseline
+ * only holds on machines with as many processors as the one it was taken on, and the test fails
+ * on any other. It is tagged throughput and left out of the default build; run it with
+ * mvn test -Pthroughput. A missing baseline, or one without the round, fails; after an intended
+ * change, or on another kind of machine, record a new one with
+ * mvn test -Pthroughput -Dswiftcart.stress.record=true and commit it.
+ */
+@Tag("throughput")
+class PipelineThroughputTest {
+    private static final int RUNS = 3;
+    private static final Path BASELINE_FILE = Path.of(System.getProperty("basedir", "."),
+        "src", "test", "resources", "com", "swiftcart", "stress-baseline.properties");
+    private static final boolean RECORDING = Boolean.getBoolean("swiftcart.stress.record");
+    // Wall time on a shared machine moves the same build by a third either way, so only a real
+    // slowdown, such as a lock or a spin on the hot path, falls below half
+    private static final double MAX_DROP = Double.parseDouble(System.getProperty("swiftcart.stress.maxDrop", "0.5"));
+
+    private static final Properties baseline = new Properties();
+    private static double machineSpeed;
+    private static ExecutorService runner;
+    private static Path journal;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        String processors = String.valueOf(Runtime.getRuntime().availableProcessors());
+        if (!RECORDING) {
+            assertTrue(Files.exists(BASELINE_FILE), () -> "No stress baseline at " + BASELINE_FILE
+                + "; record one with mvn test -Pthroughput -Dswiftcart.stress.record=true");
+            try (InputStream in = Files.newInputStream(BASELINE_FILE)) {
+                baseline.load(in);
+            }
+            assertEquals(String.valueOf(PipelineStressTest.SEED), baseline.getProperty("seed"), "seed of " + BASELINE_FILE);
+            assertEquals(String.valueOf(PipelineStressTest.ORDERS), baseline.getProperty("orders"), "orders of " + BASELINE_FILE);
+            assertEquals(baseline.getProperty("processors"), processors, () -> BASELINE_FILE + " was taken with "
+                + baseline.getProperty("processors") + " processors; record one for this machine with -Dswiftcart.stress.record=true");
+        }
+        baseline.setProperty("seed", String.valueOf(PipelineStressTest.SEED));
+        baseline.setProperty("orders", String.valueOf(PipelineStressTest.ORDERS));
+        baseline.setProperty("processors", processors);
+        machineSpeed = machineSpeed();
+        runner = PipelineStressTest.newRunner();
+        journal = Files.createTempFile("swiftcart-throughput", ".journal");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        // Nothing was started when setUp failed on the baseline
+        if (runner == null) {
+            return;
+        }
+        runner.shutdownNow();
+        Files.deleteIfExists(journal);
+        if (RECORDING) {
+            try (OutputStream out = Files.newOutputStream(BASELINE_FILE)) {
+                baseline.store(out, "PipelineThroughputTest orders/s per round over machine sorts/s; "
+                    + "record with mvn test -Pthroughput -Dswiftcart.stress.record=true");
+            }
+        }
+    }
+
+    static IntStream rounds() {
+        return PipelineStressTest.rounds();
+    }
+
+    @ParameterizedTest(name = "round {0}")
+    @MethodSource("rounds")
+    void keepsItsThroughput(int round) throws Exception {
+        String[] variant = PipelineStressTest.variant(round);
+        double best = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            PipelineStressTest.runChecked(runner, journal, round, variant);
+            best = Math.max(best, PipelineStressTest.ORDERS / ((System.nanoTime() - start) / 1e9));
+        }
+
+        double throughput = best;
+        double relative = throughput / machineSpeed;
+        String key = "round." + round;
+        String recorded = baseline.getProperty(key);
+        if (RECORDING) {
+            baseline.setProperty(key, String.format("%.2f", relative));
+            return;
+        }
+        assertTrue(recorded != null, () -> BASELINE_FILE + " has no " + key
+            + "; record a new baseline with mvn test -Pthroughput -Dswiftcart.stress.record=true");
+        double expected = Double.parseDouble(recorded);
+        assertTrue(relative >= (1 - MAX_DROP) * expected, () -> String.format("Round %d throughput dropped from %.2f to %.2f (%.0f orders/s): %s",
+            round, expected, relative, throughput, PipelineStressTest.configuration(variant)));
+    }
+
+    // Best sorts/s of a fixed single-threaded workload, the speed of one core of this machine
+    private static double machineSpeed() {
+        long[] values = new long[200_000];
+        double best = 0;
+        for (int attempt = 0; attempt < 7; attempt++) {
+            SplittableRandom random = new SplittableRandom(attempt);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextLong();
+            }
+            long start = System.nanoTime();
+            Arrays.sort(values);
+            best = Math.max(best, 1e9 / (System.nanoTime() - start));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,82 @@
+package com.swiftcart;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * ReproducibilityTest checks that a seed fixes a run's random outcomes however its threads are scheduled.
+ * The same seed is run with one, four and eight pickers and packers, with batching, with the
+ * autoscaler, on the ring-buffer transport and the real-time clock, with the loading scheduler
+ * and on the work-stealing engine, all of which change which worker takes which order and when.
+ * Every run must reject exactly as many orders at every stage and ship exactly as many boxes as
+ * the run with the default settings; the rejected orders themselves are the same by construction,
+ * since each rejection is drawn by order id. Containers and trucks are counted too. Loader
+ * breakdowns are drawn by container id in the same way; they only shift the times, which these
+ * counts do not cover. The real-time variants shorten the breakdowns to keep the run quick.
+ */
+class ReproducibilityTest {
+    private static final int ORDERS = 3_000;
+    private static final String SEED = "7";
+
+    private static long[] expected;
+
+    @BeforeAll
+    static void runDefaults() throws IOException, InterruptedException {
+        expected = run(new String[0]);
+    }
+
+    static Stream<Arguments> variants() {
+        return Stream.of(
+            variant("1 worker", "workers.picking=1", "picking.permits=1"),
+            variant("8 workers", "workers.picking=8", "workers.packing=8", "workers.labelling=4"),
+            variant("batched", "workers.packing=4", "batch.picking=16", "batch.packing=8", "batch.labelling=4"),
+            variant("autoscaled", "autoscale=true", "autoscale.intervalMillis=100", "service.labelling=5"),
+            variant("scheduled", "loading=scheduled", "workers.loading=6"),
+            variant("ring-park", "transport=ring-park", "workers.packing=3", "clock=realtime", "loading.breakdownMillis=5"),
+            variant("realtime", "clock=realtime", "workers.packing=4", "workers.labelling=4", "loading.breakdownMillis=5"),
+            variant("stealing", "engine=stealing", "clock=realtime", "loading.breakdownMillis=5"));
+    }
+
+    private static Arguments variant(String name, String... settings) {
+        return Arguments.of(name, settings);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("variants")
+    void hasTheOutcomeOfTheDefaults(String name, String[] settings) throws IOException, InterruptedException {
+        assertArrayEquals(expected, run(settings), name + " differs from the defaults");
+    }
+
+    // Rejections per order stage, boxes packed, containers and trucks
+    private static long[] run(String[] settings) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("swiftcart.source.orders", String.valueOf(ORDERS));
+        properties.setProperty("swiftcart.source.arrivals", "max");
+        properties.setProperty("swiftcart.seed", SEED);
+        String clockMode = "discrete";
+        for (String option : settings) {
+            String[] setting = option.split("=", 2);
+            if (setting[0].equals("clock")) {
+                clockMode = setting[1];
+            } else {
+                properties.setProperty("swiftcart." + setting[0], setting[1]);
+            }
+        }
+        SimulationClock clock = SimulationClock.forMode(clockMode);
+        SimulationResult result = new Simulation(SimulationConfig.fromProperties(properties), clock, OrderJournal.disabled(), EventLog.disabled())
+            .run(null, false);
+        SimulationMetrics metrics = result.getMetrics();
+        return new long[] {
+            metrics.stage(Stage.PICKING).getRejected(), metrics.stage(Stage.PACKING).getRejected(), metrics.stage(Stage.LABELLING).getRejected(),
+            metrics.getBoxesPacked(), metrics.getContainersShipped(), metrics.getTrucksDispatched()
+        };
+    }
+}